@@ -2,46 +2,52 @@ package oop.ex6.parser;
 
 
 import oop.ex6.codeelements.*;
-import java.util.ArrayList;
+
+import java.util.List;
 
 /**
- * An assignment call object.
+ * An assignment call object - an assignment of a variable whose value isn't known yet, which is checked once the
+ * value of that variable is known for good.
  */
-public class AssignmentCall  {
+public class AssignmentCall extends DeferredCheck {
 
     /**
      * verifies the assignment calls that commenced.
-     * @throws InvalidTypeException is thrown for an invalid type.
-     * @throws UndeclaredVariableException is thrown for an undeclared variable.
-     * @throws IncompatibleValueTypeException is thrown for an unmatched value and type.
+     * @param context the compilation whose assignment calls are verified.
+     * @throws ParserException never, since assignments only fail for their variables.
+     * @throws CodeElementsException is thrown for an invalid type, an undeclared variable, or an unmatched value
+     * and type.
      */
-    static void verifyAll() throws InvalidTypeException, UndeclaredVariableException, IncompatibleValueTypeException
+    static void verifyAll(CompilationContext context) throws ParserException, CodeElementsException
     {
-        for (AssignmentCall item: listAllUnchecked)
+        for (AssignmentCall item: context.getAssignmentCalls())
+            item.run();
+    }
+
+    /**
+     * verifies all the assignment calls, collecting a diagnostic for every one that fails.
+     * @param context the compilation whose assignment calls are verified.
+     * @param diagnostics the list the diagnostics are added to.
+     */
+    static void verifyAll(CompilationContext context, List<Diagnostic> diagnostics)
+    {
+        for (AssignmentCall item: context.getAssignmentCalls())
         {
-            if (item.assigner==null) {
-                String variableName = item.assignerName;
-                Scope scope = Scope.searchScopeOfVariable(variableName, item.scope);
-                if (scope == null)
-                    throw new UndeclaredVariableException();
-                else
-                    item.assigner = scope.getVariable(variableName);
+            try {
+                item.run();
+            }
+            catch (ParserException | CodeElementsException e) {
+                diagnostics.add(Diagnostic.of(item.line, item.column, e));
             }
-            VariableType typeAssigned =  item.assigned.getVariableType();
-            if(item.assigner.getValue()==null)
-                throw new UndeclaredVariableException();
-            if (!typeAssigned.checkValue(item.assigner.getValue()))
-                throw new InvalidTypeException();
         }
-
     }
 
 
-    private static ArrayList<AssignmentCall> listAllUnchecked = new ArrayList<>();
-
     Variable assigner;
     String assignerName;
-    Variable assigned;
+    VariableType assignedType;
+    boolean settled;
+    Constant settledValue;
     Scope scope;
 
     /**
@@ -53,20 +59,76 @@ public class AssignmentCall  {
      */
     public AssignmentCall(Variable assigner, Variable assigned, String assignerName, Scope scope)
     {
+        super(scope.getContext());
         this.assigner = assigner;
-        this.assigned = assigned;
+        this.assignedType = assigned.getVariableType();
         this.assignerName = assignerName;
         this.scope = scope;
-        listAllUnchecked.add(this);
+        scope.getContext().addAssignmentCall(this);
     }
 
     /**
-     * resets the list of all assignment calls
+     * verifies the assignment, once all the global variables are known.
+     * @throws InvalidTypeException is thrown for an invalid type.
+     * @throws UndeclaredVariableException is thrown for an undeclared variable.
+     * @throws IncompatibleValueTypeException is thrown for an unmatched value and type.
      */
-    public static void resetAll()
+    @Override
+    void verify() throws InvalidTypeException, UndeclaredVariableException, IncompatibleValueTypeException
     {
-        listAllUnchecked =  new ArrayList<>();
+        Constant value = settledValue;
+        if (!settled) {
+            if (assigner==null) {
+                assigner = Variable.getVariable(assignerName, scope);
+                if (assigner == null)
+                    throw new UndeclaredVariableException();
+            }
+            value = assigner.getValue();
+        }
+        if(value==null)
+            throw new UndeclaredVariableException();
+        if (!assignedType.accepts(value))
+            throw new InvalidTypeException();
     }
 
+    /**
+     * Settles the assignment once its top level scope has closed - an assigner that is a local variable can't
+     * change any more, so its value is kept instead of the scope, and only a global assigner is left to be
+     * found when the assignment is verified.
+     */
+    @Override
+    void settle()
+    {
+        if (assigner == null) {
+            Variable local = Scope.findLocalVariable(assignerName, scope);
+            if (local != null) {
+                settled = true;
+                settledValue = local.getValue();
+            }
+        }
+        scope = scope.getContext().getRootScope();
+    }
 
+    /**
+     * The value of a local assigner is known once the assignment is settled, and so is the value of a final
+     * global one. Any other global may still be assigned until the end of the file.
+     * @return the symbol id of an assigner that wasn't declared yet, READY if the value of the assigner is
+     * known for good, or END_OF_FILE.
+     */
+    @Override
+    int dependency()
+    {
+        if (settled)
+            return READY;
+        if (assigner == null) {
+            assigner = scope.getVariable(assignerName);
+            if (assigner == null)
+                return scope.getContext().getSymbols().intern(assignerName);
+        }
+        if (!assigner.isFinal())
+            return END_OF_FILE;
+        settled = true;
+        settledValue = assigner.getValue();
+        return READY;
+    }
 }
@@ -0,0 +1,213 @@
+package oop.ex6.main;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.ValidationMetrics;
+import oop.ex6.parser.ValidationMode;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Validates many files in a single run. The files are given as paths to files or directories, or as a manifest
+ * (one path per line) on the standard input. Every file is validated in a compilation of its own, and a result
+ * line is printed for it in the form: path, result code, error line and error message, separated by tabs.
+ * Since compilations share no state, the files are validated in parallel (one worker per core by default, or
+ * as many as given with --jobs), while the results are still printed in the order of the files.
+ * With --cache, results are kept in the given cache file, and files whose content didn't change since they were
+ * last validated are not validated again.
+ * When the {@link ValidationMetrics} are collected, they are printed to the standard error when the run ends.
+ */
+public class BatchValidator {
+
+    private final static String SJAVA_SUFFIX = ".sjava";
+    private final static String SEPARATOR = "\t";
+    private final static String NO_MESSAGE = "";
+    private final static String JOBS_FLAG = "--jobs";
+    private final static String CACHE_FLAG = "--cache";
+    private final static String USAGE = "Usage: --batch [--jobs N] [--cache FILE] [PATH...]";
+
+    /**
+     * Validates all the files given in the arguments, or in the standard input if there are none.
+     * @param arguments the batch options followed by paths of files and directories to validate.
+     * @param out the stream the results are printed to.
+     * @throws IOException when the manifest or the cache could not be read, the cache could not be written, or
+     * the number of jobs is not a positive number, in which case the usage is printed to the standard error.
+     */
+    public static void run(List<String> arguments, PrintStream out) throws IOException
+    {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        String cachePath = null;
+        List<String> paths = arguments;
+        while (paths.size() > 1 && (paths.get(0).equals(JOBS_FLAG) || paths.get(0).equals(CACHE_FLAG))) {
+            if (paths.get(0).equals(JOBS_FLAG))
+                jobs = parseJobs(paths.get(1));
+            else
+                cachePath = paths.get(1);
+            paths = paths.subList(2, paths.size());
+        }
+        if (paths.isEmpty())
+            paths = readManifest();
+        List<File> files = collectFiles(paths);
+        if (cachePath == null)
+            run(files, null, jobs, out);
+        else {
+            try (ValidationCache cache = new ValidationCache(Paths.get(cachePath))) {
+                run(files, cache, jobs, out);
+                System.err.println(cache.report());
+            }
+        }
+        if (ValidationMetrics.ENABLED)
+            ValidationMetrics.dump(System.err);
+    }
+
+    /**
+     * @param jobs the value of the --jobs option.
+     * @return the number of jobs.
+     * @throws IOException when the value is not a positive number.
+     */
+    private static int parseJobs(String jobs) throws IOException
+    {
+        int count;
+        try {
+            count = Integer.parseInt(jobs);
+        }
+        catch (NumberFormatException e) {
+            count = 0;
+        }
+        if (count < 1) {
+            System.err.println(USAGE);
+            throw new IOException("Invalid number of jobs: " + jobs);
+        }
+        return count;
+    }
+
+    /**
+     * Validates the files on the given number of workers, printing their results in order.
+     * @param files the files to validate.
+     * @param cache the cache of results, or null to validate every file.
+     * @param jobs the number of workers.
+     * @param out the stream the results are printed to.
+     */
+    private static void run(List<File> files, ValidationCache cache, int jobs, PrintStream out)
+    {
+        if (jobs == 1) {
+            for (File file : files)
+                out.println(formatResult(file, validate(file, cache)));
+            return;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(jobs, Math.max(1, files.size())));
+        try {
+            ArrayList<Future<ValidationResult>> results = new ArrayList<>();
+            for (File file : files)
+                results.add(workers.submit(() -> validate(file, cache)));
+            for (int i = 0; i < files.size(); i++)
+                out.println(formatResult(files.get(i), results.get(i).get()));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Validates a single file, turning io errors, and any failure of the validator on the file, into a result of
+     * their own, so the rest of the batch is still validated.
+     * @param file the file to validate.
+     * @param cache the cache of results, or null to validate the file.
+     * @return the result of the validation.
+     */
+    static ValidationResult validate(File file, ValidationCache cache)
+    {
+        try {
+            if (cache != null)
+                return cache.validate(file);
+            return FileParser.validateFile(file, ValidationMode.SEQUENTIAL);
+        }
+        catch (IOException e) {
+            return ValidationResult.ioError(e.getMessage());
+        }
+        catch (RuntimeException e) {
+            return ValidationResult.internalError(e);
+        }
+    }
+
+    /**
+     * @param file the file that was validated.
+     * @param result the result of the validation.
+     * @return the result line of the file.
+     */
+    static String formatResult(File file, ValidationResult result)
+    {
+        String message = result.getMessage() == null ? NO_MESSAGE : result.getMessage();
+        return file.getPath() + SEPARATOR + result.getCode() + SEPARATOR + result.getLine() + SEPARATOR + message;
+    }
+
+    /**
+     * Expands the given paths to the files that should be validated - directories are searched recursively
+     * for s-java files, in a sorted order so the output is stable between runs.
+     * @param paths the paths given by the user.
+     * @return the files to validate.
+     */
+    static List<File> collectFiles(List<String> paths)
+    {
+        ArrayList<File> files = new ArrayList<>();
+        for (String path : paths)
+            addFiles(new File(path), files, true);
+        return files;
+    }
+
+    /**
+     * Adds the file, or the s-java files under it if it is a directory, to the list of files.
+     * @param file the file or directory to add.
+     * @param files the list of files.
+     * @param explicit true if the file was given by the user, and should be added whatever its name is.
+     */
+    private static void addFiles(File file, List<File> files, boolean explicit)
+    {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                return;
+            Arrays.sort(children);
+            for (File child : children)
+                addFiles(child, files, false);
+        }
+        else if (explicit || file.getName().endsWith(SJAVA_SUFFIX))
+            files.add(file);
+    }
+
+    /**
+     * Reads the paths to validate from the standard input, one path per line.
+     * @return the paths in the manifest.
+     * @throws IOException when the standard input could not be read.
+     */
+    private static List<String> readManifest() throws IOException
+    {
+        ArrayList<String> paths = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty())
+                paths.add(line);
+        }
+        return paths;
+    }
+}
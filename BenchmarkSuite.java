@@ -0,0 +1,322 @@
+package oop.ex6.bench;
+
+import oop.ex6.codeelements.*;
+import oop.ex6.parser.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks that track the performance of the validator between releases: micro benchmarks of the
+ * parse path of every line type that has one, on lines that were tokenized in advance, and macro benchmarks of
+ * validating whole files of 1k, 100k and 10M lines from the {@link CorpusGenerator}. Every benchmark is warmed
+ * up and then measured over several iterations, and the results are written as a JSON array in the layout of
+ * JMH results (benchmark, mode, and a primary metric with its score, error and unit), so the usual JMH tools
+ * can compare two runs.
+ * The error is the half width of the 99.9% confidence interval of the score.
+ * Usage: BenchmarkSuite [--quick] [--out FILE] - with --quick the 10M line file is skipped, and without --out
+ * the results are written to the standard output.
+ */
+public class BenchmarkSuite {
+
+    private final static String QUICK_FLAG = "--quick";
+    private final static String OUT_FLAG = "--out";
+    private final static int[] FILE_LINES = {1000, 100000, 10000000};
+    private final static int QUICK_FILES = 2;
+    private final static long CORPUS_SEED = 1;
+    private final static int WARMUP_ITERATIONS = 5;
+    private final static int MEASURED_ITERATIONS = 10;
+    private final static int LARGE_FILE_LINES = 1000000;
+    private final static int LARGE_FILE_WARMUP_ITERATIONS = 1;
+    private final static int LARGE_FILE_MEASURED_ITERATIONS = 3;
+    private final static long ITERATION_NANOS = 200000000L;
+    private final static int BATCH = 1024;
+    private final static double NANOS_PER_SECOND = 1e9;
+    private final static double[] T_99_9 = {0, 636.6, 31.6, 12.9, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59};
+    private final static double Z_99_9 = 3.29;
+
+    /**
+     * A measured piece of work.
+     */
+    private interface Workload {
+        /**
+         * Runs the work once.
+         * @return the number of operations that were run.
+         * @throws Exception when the work failed, which fails the benchmark.
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * The result of a single benchmark.
+     */
+    private static class Result {
+        private final String name;
+        private final String mode;
+        private final String unit;
+        private final double[] samples;
+
+        /**
+         * @param name the name of the benchmark.
+         * @param mode the JMH mode of the benchmark - "avgt" for time per operation, "thrpt" for throughput.
+         * @param unit the unit of the samples.
+         * @param samples the score of every measured iteration.
+         */
+        private Result(String name, String mode, String unit, double[] samples)
+        {
+            this.name = name;
+            this.mode = mode;
+            this.unit = unit;
+            this.samples = samples;
+        }
+
+        /**
+         * @return the mean of the samples.
+         */
+        private double score()
+        {
+            return Arrays.stream(samples).average().orElse(Double.NaN);
+        }
+
+        /**
+         * @return the half width of the 99.9% confidence interval of the mean.
+         */
+        private double error()
+        {
+            int n = samples.length;
+            if (n < 2)
+                return Double.NaN;
+            double mean = score(), sum = 0;
+            for (double sample : samples)
+                sum += (sample - mean) * (sample - mean);
+            double t = n - 1 < T_99_9.length ? T_99_9[n - 1] : Z_99_9;
+            return t * Math.sqrt(sum / (n - 1)) / Math.sqrt(n);
+        }
+
+        /**
+         * @return the result as a JSON object in the layout of a JMH result.
+         */
+        private String toJson()
+        {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"benchmark\":").append(Diagnostic.quote(name)).append(",\"mode\":\"").append(mode)
+                    .append("\",\"measurementIterations\":").append(samples.length)
+                    .append(",\"primaryMetric\":{\"score\":").append(number(score()))
+                    .append(",\"scoreError\":").append(number(error())).append(",\"scoreUnit\":\"").append(unit)
+                    .append("\",\"rawData\":[[");
+            for (int i = 0; i < samples.length; i++)
+                json.append(i > 0 ? "," : "").append(number(samples[i]));
+            return json.append("]]}}").toString();
+        }
+    }
+
+    /**
+     * Runs all the benchmarks.
+     * @param args the options of the run.
+     * @throws Exception when a benchmark failed.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        List<String> options = Arrays.asList(args);
+        int files = options.contains(QUICK_FLAG) ? QUICK_FILES : FILE_LINES.length;
+        int out = options.indexOf(OUT_FLAG);
+        ArrayList<Result> results = new ArrayList<>();
+        results.add(micro("parse.DECLARATION", declarations()));
+        results.add(micro("parse.ASSIGNMENT", assignments()));
+        results.add(micro("parse.CONDITION", conditions()));
+        results.add(micro("parse.METHOD_SIGNATURE", methodSignatures()));
+        results.add(micro("parse.METHOD_CALL", methodCalls()));
+        for (int i = 0; i < files; i++)
+            results.add(validation(FILE_LINES[i]));
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++)
+            json.append("  ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+        json.append("]");
+        if (out < 0 || out + 1 >= args.length) {
+            System.out.println(json);
+            return;
+        }
+        try (PrintStream stream = new PrintStream(args[out + 1])) {
+            stream.println(json);
+        }
+    }
+
+    /**
+     * Measures the time per operation of a workload, running it again and again for the length of every
+     * iteration.
+     * @param name the name of the benchmark.
+     * @param workload the measured workload.
+     * @return the result of the benchmark.
+     * @throws Exception when the workload failed.
+     */
+    private static Result micro(String name, Workload workload) throws Exception
+    {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            iterate(workload);
+        double[] samples = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++)
+            samples[i] = iterate(workload);
+        System.err.printf("%-24s %10.1f ns/op%n", name, samples[MEASURED_ITERATIONS - 1]);
+        return new Result(name, "avgt", "ns/op", samples);
+    }
+
+    /**
+     * @param workload the measured workload.
+     * @return the time per operation of the workload over a single iteration, in nanoseconds.
+     * @throws Exception when the workload failed.
+     */
+    private static double iterate(Workload workload) throws Exception
+    {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            operations += workload.run();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * Measures the number of lines per second the validator validates a generated file in.
+     * @param lines the number of lines in the file.
+     * @return the result of the benchmark.
+     * @throws IOException when the file could not be written or read.
+     */
+    private static Result validation(int lines) throws IOException
+    {
+        File file = File.createTempFile("suite", ".sjava");
+        file.deleteOnExit();
+        int written;
+        try (PrintWriter writer = new PrintWriter(file)) {
+            written = CorpusGenerator.valid(CORPUS_SEED, lines).generate(writer);
+        }
+        boolean large = lines >= LARGE_FILE_LINES;
+        for (int i = 0; i < (large ? LARGE_FILE_WARMUP_ITERATIONS : WARMUP_ITERATIONS); i++)
+            validate(file);
+        double[] samples = new double[large ? LARGE_FILE_MEASURED_ITERATIONS : MEASURED_ITERATIONS];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            long runs = 0;
+            do {
+                validate(file);
+                runs++;
+            } while (System.nanoTime() - start < ITERATION_NANOS);
+            samples[i] = written * runs * NANOS_PER_SECOND / (System.nanoTime() - start);
+        }
+        file.delete();
+        String name = "validate." + lines + "_lines";
+        System.err.printf("%-24s %10.0f lines/s%n", name, samples[samples.length - 1]);
+        return new Result(name, "thrpt", "lines/s", samples);
+    }
+
+    /**
+     * Validates the file, failing the benchmark if the file is not valid.
+     * @param file the file to validate.
+     * @throws IOException when the file could not be read.
+     */
+    private static void validate(File file) throws IOException
+    {
+        ValidationResult result = FileParser.validateFile(file, ValidationMode.SEQUENTIAL);
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+    }
+
+    /**
+     * @return declarations of distinct variables, parsed into a new compilation every batch.
+     */
+    private static Workload declarations()
+    {
+        TokenizedLine[] lines = new TokenizedLine[BATCH];
+        for (int i = 0; i < BATCH; i++)
+            lines[i] = Lexer.tokenize("int v" + i + " = 5, w" + i + ";");
+        return () -> {
+            CompilationContext context = new CompilationContext();
+            Scope scope = new Scope(context.getRootScope(), true);
+            for (TokenizedLine line : lines)
+                LineType.DECLARATION.parse(line, scope);
+            return BATCH;
+        };
+    }
+
+    /**
+     * @return assignments of a literal to a local variable.
+     * @throws Exception never, since the variables are valid.
+     */
+    private static Workload assignments() throws Exception
+    {
+        CompilationContext context = new CompilationContext();
+        Scope scope = new Scope(context.getRootScope(), true);
+        LineType.DECLARATION.parse(Lexer.tokenize("int a;"), scope);
+        TokenizedLine line = Lexer.tokenize("a = 7;");
+        return () -> {
+            for (int i = 0; i < BATCH; i++)
+                LineType.ASSIGNMENT.parse(line, scope);
+            return BATCH;
+        };
+    }
+
+    /**
+     * @return conditions over literals and local variables.
+     * @throws Exception never, since the variables are valid.
+     */
+    private static Workload conditions() throws Exception
+    {
+        CompilationContext context = new CompilationContext();
+        Scope scope = new Scope(context.getRootScope(), true);
+        LineType.DECLARATION.parse(Lexer.tokenize("boolean flag = true;"), scope);
+        TokenizedLine line = Lexer.tokenize("if (flag || flag && 1.5) {");
+        return () -> {
+            for (int i = 0; i < BATCH; i++)
+                LineType.CONDITION.parse(line, scope);
+            return BATCH;
+        };
+    }
+
+    /**
+     * @return method signatures, each parsed into a new method scope of its own.
+     */
+    private static Workload methodSignatures()
+    {
+        TokenizedLine[] lines = new TokenizedLine[BATCH];
+        for (int i = 0; i < BATCH; i++)
+            lines[i] = Lexer.tokenize("void method" + i + "(int p, final String q, boolean r) {");
+        return () -> {
+            CompilationContext context = new CompilationContext();
+            for (TokenizedLine line : lines)
+                LineType.METHOD_SIGNATURE.parse(line, new Scope(context.getRootScope(), true));
+            return BATCH;
+        };
+    }
+
+    /**
+     * @return method calls with literal and variable arguments, deferred into a new compilation every batch.
+     */
+    private static Workload methodCalls()
+    {
+        TokenizedLine declaration = Lexer.tokenize("int a = 5;");
+        TokenizedLine line = Lexer.tokenize("bar(a, \"text\", 3);");
+        return () -> {
+            CompilationContext context = new CompilationContext();
+            Scope scope = new Scope(context.getRootScope(), true);
+            LineType.DECLARATION.parse(declaration, scope);
+            for (int i = 0; i < BATCH; i++)
+                LineType.METHOD_CALL.parse(line, scope);
+            return BATCH;
+        };
+    }
+
+    /**
+     * @param value a number.
+     * @return the number as a JSON number, or as null if it is not a number.
+     */
+    private static String number(double value)
+    {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+}
@@ -0,0 +1,609 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.VariableType;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compiles a valid s-java file to a class file, so the program can be run rather than only checked. The file
+ * becomes a class whose global variables are static fields, initialized by the global code in the static
+ * initializer, and whose methods are static methods; if and while blocks become branches.
+ * Values are converted the way s-java assigns them - an int to a double by widening it, and an int or a double
+ * to a boolean by comparing it with zero, which is also how conditions are decided. Conditions short circuit,
+ * with && binding tighter than ||.
+ * The lines are read twice: first for the global variables and the method signatures, since a method may use
+ * a global variable or call a method that is declared further down, and then for the code. The file must have
+ * been validated - only the code that s-java allows but a class file has no place for, such as a method declared
+ * inside a block, is reported.
+ */
+class BytecodeGenerator {
+
+    private final static String INITIALIZER = "<clinit>";
+    private final static String VOID_DESCRIPTOR = ")V";
+    private final static String STRING_DESCRIPTOR = "Ljava/lang/String;";
+    private final static int DCONST_1 = 15;
+
+    /**
+     * A local variable of the method that is being compiled.
+     */
+    private static class LocalVariable {
+        private final VariableType type;
+        private final int slot;
+
+        /**
+         * @param type the type of the variable.
+         * @param slot the first slot the variable takes.
+         */
+        private LocalVariable(VariableType type, int slot)
+        {
+            this.type = type;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * A scope that is open - the body of a method, or an if or a while block - with the variables declared in
+     * it.
+     */
+    private static class Block {
+        private final HashMap<String, LocalVariable> variables = new HashMap<>();
+        private final boolean isMethod;
+        private final MethodCode.Label condition;
+        private final MethodCode.Label end;
+        private final int firstSlot;
+
+        /**
+         * @param isMethod true for the body of a method.
+         * @param condition the condition of a while block, which its end jumps back to, or null.
+         * @param end the end of an if or a while block, which the condition jumps to when it is false, or null.
+         * @param firstSlot the first slot of the variables of the block, which are free again once it closes.
+         */
+        private Block(boolean isMethod, MethodCode.Label condition, MethodCode.Label end, int firstSlot)
+        {
+            this.isMethod = isMethod;
+            this.condition = condition;
+            this.end = end;
+            this.firstSlot = firstSlot;
+        }
+    }
+
+    private final List<String> lines;
+    private final ClassFileWriter out;
+    private final HashMap<String, VariableType> globals = new HashMap<>();
+    private final HashMap<String, VariableType[]> methods = new HashMap<>();
+    private final MethodCode initializer = new MethodCode();
+    private final ArrayDeque<Block> blocks = new ArrayDeque<>();
+    private final TokenizedLine line = new TokenizedLine();
+    private MethodCode code = initializer;
+    private String methodName;
+    private int nextSlot;
+    private int lineNumber;
+
+    /**
+     * @param lines the lines of a valid file.
+     * @param className the name of the class to compile the file to.
+     */
+    BytecodeGenerator(List<String> lines, String className)
+    {
+        this.lines = lines;
+        this.out = new ClassFileWriter(className);
+    }
+
+    /**
+     * @param fileName the name of an s-java file.
+     * @return the name of the class the file is compiled to - the name of the file without its extension, with
+     * every character a class name can't have replaced by an underscore.
+     */
+    static String className(String fileName)
+    {
+        int extension = fileName.lastIndexOf('.');
+        String name = extension > 0 ? fileName.substring(0, extension) : fileName;
+        StringBuilder className = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            className.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0)))
+            className.insert(0, '_');
+        return className.toString();
+    }
+
+    /**
+     * Compiles the file.
+     * @return the class file.
+     * @throws ParserException when the file has code that can't be compiled.
+     */
+    byte[] generate() throws ParserException
+    {
+        declare();
+        for (lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            Lexer.tokenize(lines.get(lineNumber - 1), line);
+            compileLine(LineType.chooseLineType(line));
+        }
+        initializer.op(MethodCode.RETURN, 0);
+        out.addMethod(INITIALIZER, "(" + VOID_DESCRIPTOR, initializer);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the line that was being compiled when compiling the file failed, starting from 1.
+     */
+    int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    /**
+     * The first pass - adds a field for every global variable, and keeps the parameter types of every method.
+     * @throws ParserException when a method is declared inside a block.
+     */
+    private void declare() throws ParserException
+    {
+        ProgramScanner scanner = new ProgramScanner(line, "A method declared inside a block can't be compiled");
+        for (lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            LineType type = scanner.scan(lines.get(lineNumber - 1));
+            if (type == LineType.METHOD_SIGNATURE)
+                methods.put(line.text(ProgramScanner.SIGNATURE_NAME_INDEX), ProgramScanner.parameterTypes(line));
+            else if (type == LineType.DECLARATION)
+                declareGlobals();
+        }
+    }
+
+    /**
+     * Adds the fields of a declaration of global variables.
+     * @throws UnsupportedCodeException when the class has too many constants.
+     */
+    private void declareGlobals() throws UnsupportedCodeException
+    {
+        boolean isFinal = line.isWord(0, ProgramScanner.FINAL);
+        int index = isFinal ? 1 : 0;
+        VariableType type = LineParser.typeAt(line, index);
+        for (index++; ; index = ProgramScanner.declaratorEnd(line, index) + 2) {
+            globals.put(line.text(index), type);
+            out.addField(line.text(index), descriptor(type), isFinal);
+            if (line.is(ProgramScanner.declaratorEnd(line, index) + 1, TokenKind.SEMICOLON))
+                return;
+        }
+    }
+
+    /**
+     * The second pass - compiles a single line into the method it is in, or into the static initializer.
+     * @param type the type of the line.
+     * @throws UnsupportedCodeException when the line can't be compiled.
+     */
+    private void compileLine(LineType type) throws UnsupportedCodeException
+    {
+        switch (type) {
+            case DECLARATION:
+                compileDeclaration();
+                break;
+            case ASSIGNMENT:
+                VariableType variableType = typeOf(line.text(0));
+                pushValue(ProgramScanner.ASSIGNED_VALUE_INDEX, variableType);
+                store(line.text(0));
+                break;
+            case METHOD_CALL:
+                compileMethodCall();
+                break;
+            case CONDITION:
+                compileCondition();
+                break;
+            case METHOD_SIGNATURE:
+                openMethod();
+                break;
+            case CLOSE_SCOPE:
+                closeBlock();
+                break;
+            case RETURN:
+                if (code == initializer)
+                    throw new UnsupportedCodeException("A return outside of a method can't be compiled");
+                code.op(MethodCode.RETURN, 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Compiles a declaration - a global variable is assigned its value, if it has one, and a local variable is
+     * given a slot and assigned its value, or the default value of its type, so it is always assigned before
+     * it is used.
+     * @throws UnsupportedCodeException when a value can't be compiled.
+     */
+    private void compileDeclaration() throws UnsupportedCodeException
+    {
+        int index = line.isWord(0, ProgramScanner.FINAL) ? 1 : 0;
+        VariableType type = LineParser.typeAt(line, index);
+        for (index++; ; index = ProgramScanner.declaratorEnd(line, index) + 2) {
+            String name = line.text(index);
+            boolean hasValue = line.is(index + 1, TokenKind.ASSIGN);
+            if (blocks.isEmpty()) {
+                if (hasValue) {
+                    pushValue(index + 2, type);
+                    store(name);
+                }
+            }
+            else {
+                if (hasValue)
+                    pushValue(index + 2, type);
+                else
+                    pushDefault(type);
+                blocks.peek().variables.put(name, new LocalVariable(type, nextSlot));
+                nextSlot += size(type);
+                store(name);
+            }
+            if (line.is(ProgramScanner.declaratorEnd(line, index) + 1, TokenKind.SEMICOLON))
+                return;
+        }
+    }
+
+    /**
+     * Compiles a method call - its arguments, converted to the types of the parameters, and the call.
+     * @throws UnsupportedCodeException when an argument can't be compiled.
+     */
+    private void compileMethodCall() throws UnsupportedCodeException
+    {
+        String name = line.text(0);
+        VariableType[] parameters = methods.get(name);
+        int arguments = 0;
+        for (int i = 0; i < parameters.length; i++) {
+            pushValue(ProgramScanner.CALL_OPEN_INDEX + 1 + 2 * i, parameters[i]);
+            arguments += size(parameters[i]);
+        }
+        code.op2(MethodCode.INVOKESTATIC, out.methodReference(name, methodDescriptor(parameters)), -arguments);
+    }
+
+    /**
+     * Compiles the condition of an if or a while block, and opens the block. The condition jumps to the end of
+     * the block when it is false, and falls through into the block when it is true.
+     * @throws UnsupportedCodeException when an operand can't be compiled.
+     */
+    private void compileCondition() throws UnsupportedCodeException
+    {
+        MethodCode.Label condition = null;
+        if (line.isWord(0, ProgramScanner.WHILE)) {
+            condition = new MethodCode.Label();
+            code.place(condition);
+        }
+        MethodCode.Label end = new MethodCode.Label();
+        MethodCode.Label body = new MethodCode.Label();
+        int close = line.size() - 2;
+        // the operands are in groups joined by ||, every one a run of operands joined by &&
+        for (int index = ProgramScanner.CONDITION_OPEN_INDEX + 1; ; ) {
+            int groupEnd = index;
+            while (groupEnd + 1 < close && line.is(groupEnd + 1, TokenKind.AND))
+                groupEnd += 2;
+            boolean lastGroup = groupEnd + 1 == close;
+            MethodCode.Label nextGroup = lastGroup ? end : new MethodCode.Label();
+            for (int i = index; i <= groupEnd; i += 2)
+                jumpIfFalse(i, nextGroup);
+            if (lastGroup)
+                break;
+            code.jump(MethodCode.GOTO, body, 0);
+            code.place(nextGroup);
+            index = groupEnd + 2;
+        }
+        code.place(body);
+        blocks.push(new Block(false, condition, end, nextSlot));
+    }
+
+    /**
+     * Opens the body of a method, with its parameters in the first slots.
+     */
+    private void openMethod()
+    {
+        methodName = line.text(ProgramScanner.SIGNATURE_NAME_INDEX);
+        code = new MethodCode();
+        nextSlot = 0;
+        Block body = new Block(true, null, null, 0);
+        int end = line.size() - 2;
+        for (int index = ProgramScanner.SIGNATURE_OPEN_INDEX + 1; index < end;
+             index = ProgramScanner.parameterEnd(line, index) + 1) {
+            int typeIndex = ProgramScanner.parameterTypeIndex(line, index);
+            VariableType type = LineParser.typeAt(line, typeIndex);
+            body.variables.put(line.text(typeIndex + 1), new LocalVariable(type, nextSlot));
+            nextSlot += size(type);
+        }
+        code.reserveLocals(nextSlot);
+        blocks.push(body);
+    }
+
+    /**
+     * Closes the innermost block - a while block jumps back to its condition - or adds the method it ends.
+     * @throws UnsupportedCodeException when the method or the block is too long.
+     */
+    private void closeBlock() throws UnsupportedCodeException
+    {
+        Block block = blocks.pop();
+        if (block.isMethod) {
+            out.addMethod(methodName, methodDescriptor(methods.get(methodName)), code);
+            code = initializer;
+            nextSlot = 0;
+            return;
+        }
+        if (block.condition != null)
+            code.jump(MethodCode.GOTO, block.condition, 0);
+        code.place(block.end);
+        nextSlot = block.firstSlot;
+    }
+
+    /**
+     * Jumps to a label if an operand of a condition is false - a false literal, a number that is zero, or a
+     * variable whose value is.
+     * @param index the index of the operand.
+     * @param target the label.
+     * @throws UnsupportedCodeException when the operand can't be compiled.
+     */
+    private void jumpIfFalse(int index, MethodCode.Label target) throws UnsupportedCodeException
+    {
+        String text = line.text(index);
+        if (line.kind(index) == TokenKind.NUMBER) {
+            if (ProgramScanner.parseDouble(text) == 0)
+                code.jump(MethodCode.GOTO, target, 0);
+            return;
+        }
+        if (text.equals(ProgramScanner.TRUE))
+            return;
+        if (text.equals(ProgramScanner.FALSE)) {
+            code.jump(MethodCode.GOTO, target, 0);
+            return;
+        }
+        VariableType type = load(text);
+        if (type == VariableType.STRING)
+            throw new UnsupportedCodeException("The string " + text + " can't be a condition");
+        if (type == VariableType.DOUBLE) {
+            code.op(MethodCode.DCONST_0, 2);
+            code.op(MethodCode.DCMPL, -3);
+        }
+        code.jump(MethodCode.IFEQ, target, -1);
+    }
+
+    /**
+     * Pushes a value - a literal or a variable - converted to the given type.
+     * @param index the index of the value.
+     * @param type the type the value is assigned to.
+     * @throws UnsupportedCodeException when the value can't be compiled.
+     */
+    private void pushValue(int index, VariableType type) throws UnsupportedCodeException
+    {
+        String text = line.text(index);
+        switch (line.kind(index)) {
+            case NUMBER:
+                if (type == VariableType.DOUBLE)
+                    pushDouble(ProgramScanner.parseDouble(text));
+                else if (type == VariableType.BOOLEAN)
+                    pushInt(ProgramScanner.parseDouble(text) != 0 ? 1 : 0);
+                else
+                    pushInt(ProgramScanner.parseInt(text));
+                return;
+            case STRING:
+                ldc(out.string(text.substring(1, text.length() - 1)));
+                return;
+            case CHAR:
+                pushInt(text.charAt(1));
+                return;
+            default:
+                if (ProgramScanner.isBooleanLiteral(text))
+                    pushInt(text.equals(ProgramScanner.TRUE) ? 1 : 0);
+                else
+                    convert(load(text), type);
+        }
+    }
+
+    /**
+     * Converts the value on top of the stack.
+     * @param from the type of the value.
+     * @param to the type to convert it to.
+     * @throws UnsupportedCodeException when s-java has no such conversion.
+     */
+    private void convert(VariableType from, VariableType to) throws UnsupportedCodeException
+    {
+        if (from == to)
+            return;
+        if (from == VariableType.INT && to == VariableType.DOUBLE)
+            code.op(MethodCode.I2D, 1);
+        else if ((from == VariableType.INT || from == VariableType.DOUBLE) && to == VariableType.BOOLEAN) {
+            if (from == VariableType.DOUBLE) {
+                code.op(MethodCode.DCONST_0, 2);
+                code.op(MethodCode.DCMPL, -3);
+            }
+            // an int that is not zero becomes true
+            MethodCode.Label zero = new MethodCode.Label(), done = new MethodCode.Label();
+            code.jump(MethodCode.IFEQ, zero, -1);
+            pushInt(1);
+            code.jump(MethodCode.GOTO, done, 0);
+            code.adjustStack(-1);
+            code.place(zero);
+            pushInt(0);
+            code.place(done);
+        }
+        else
+            throw new UnsupportedCodeException("A " + from.getName() + " can't be converted to a " + to.getName());
+    }
+
+    /**
+     * Pushes the value of a variable.
+     * @param name the name of the variable.
+     * @return the type of the variable.
+     * @throws UnsupportedCodeException when there is no such variable.
+     */
+    private VariableType load(String name) throws UnsupportedCodeException
+    {
+        LocalVariable local = findLocal(name);
+        if (local != null) {
+            code.local(loadOpcode(local.type), local.slot, size(local.type), size(local.type));
+            return local.type;
+        }
+        VariableType type = typeOf(name);
+        code.op2(MethodCode.GETSTATIC, out.fieldReference(name, descriptor(type)), size(type));
+        return type;
+    }
+
+    /**
+     * Pops the value on top of the stack into a variable.
+     * @param name the name of the variable.
+     * @throws UnsupportedCodeException when there is no such variable.
+     */
+    private void store(String name) throws UnsupportedCodeException
+    {
+        LocalVariable local = findLocal(name);
+        if (local != null) {
+            code.local(storeOpcode(local.type), local.slot, size(local.type), -size(local.type));
+            return;
+        }
+        VariableType type = typeOf(name);
+        code.op2(MethodCode.PUTSTATIC, out.fieldReference(name, descriptor(type)), -size(type));
+    }
+
+    /**
+     * @param name the name of a variable.
+     * @return the type of the innermost local variable with that name, or else of the global one.
+     * @throws UnsupportedCodeException when there is no such variable.
+     */
+    private VariableType typeOf(String name) throws UnsupportedCodeException
+    {
+        LocalVariable local = findLocal(name);
+        if (local != null)
+            return local.type;
+        VariableType type = globals.get(name);
+        if (type == null)
+            throw new UnsupportedCodeException("The variable " + name + " can't be resolved");
+        return type;
+    }
+
+    /**
+     * @param name the name of a variable.
+     * @return the innermost local variable with that name, or null if there is none.
+     */
+    private LocalVariable findLocal(String name)
+    {
+        for (Block block : blocks) {
+            LocalVariable local = block.variables.get(name);
+            if (local != null)
+                return local;
+        }
+        return null;
+    }
+
+    /**
+     * @param type the type of a variable that is declared without a value.
+     */
+    private void pushDefault(VariableType type)
+    {
+        if (type == VariableType.DOUBLE)
+            code.op(MethodCode.DCONST_0, 2);
+        else if (type == VariableType.STRING)
+            code.op(MethodCode.ACONST_NULL, 1);
+        else
+            code.op(MethodCode.ICONST_0, 1);
+    }
+
+    /**
+     * Pushes an int, in the shortest instruction that holds it.
+     * @param value the int.
+     * @throws UnsupportedCodeException when the class has too many constants.
+     */
+    private void pushInt(int value) throws UnsupportedCodeException
+    {
+        if (value >= -1 && value <= 5)
+            code.op(MethodCode.ICONST_0 + value, 1);
+        else if (value == (byte) value)
+            code.op1(MethodCode.BIPUSH, value & 0xFF, 1);
+        else if (value == (short) value)
+            code.op2(MethodCode.SIPUSH, value & 0xFFFF, 1);
+        else
+            ldc(out.integer(value));
+    }
+
+    /**
+     * Pushes a double.
+     * @param value the double.
+     * @throws UnsupportedCodeException when the class has too many constants.
+     */
+    private void pushDouble(double value) throws UnsupportedCodeException
+    {
+        if (Double.doubleToRawLongBits(value) == 0)
+            code.op(MethodCode.DCONST_0, 2);
+        else if (value == 1)
+            code.op(DCONST_1, 2);
+        else
+            code.op2(MethodCode.LDC2_W, out.doubleConstant(value), 2);
+    }
+
+    /**
+     * Pushes a constant of a single slot.
+     * @param index the index of the constant in the pool.
+     */
+    private void ldc(int index)
+    {
+        if (index <= 0xFF)
+            code.op1(MethodCode.LDC, index, 1);
+        else
+            code.op2(MethodCode.LDC_W, index, 1);
+    }
+
+    /**
+     * @param parameters the types of the parameters of a method.
+     * @return the descriptor of the method.
+     */
+    private static String methodDescriptor(VariableType[] parameters)
+    {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (VariableType parameter : parameters)
+            descriptor.append(descriptor(parameter));
+        return descriptor.append(VOID_DESCRIPTOR).toString();
+    }
+
+    /**
+     * @param type a type.
+     * @return the descriptor of the type.
+     */
+    private static String descriptor(VariableType type)
+    {
+        switch (type) {
+            case INT:
+                return "I";
+            case DOUBLE:
+                return "D";
+            case BOOLEAN:
+                return "Z";
+            case CHAR:
+                return "C";
+            default:
+                return STRING_DESCRIPTOR;
+        }
+    }
+
+    /**
+     * @param type a type.
+     * @return the number of slots a value of the type takes.
+     */
+    private static int size(VariableType type)
+    {
+        return type == VariableType.DOUBLE ? 2 : 1;
+    }
+
+    /**
+     * @param type a type.
+     * @return the opcode that loads a local variable of the type.
+     */
+    private static int loadOpcode(VariableType type)
+    {
+        if (type == VariableType.DOUBLE)
+            return MethodCode.DLOAD;
+        return type == VariableType.STRING ? MethodCode.ALOAD : MethodCode.ILOAD;
+    }
+
+    /**
+     * @param type a type.
+     * @return the opcode that stores a local variable of the type.
+     */
+    private static int storeOpcode(VariableType type)
+    {
+        if (type == VariableType.DOUBLE)
+            return MethodCode.DSTORE;
+        return type == VariableType.STRING ? MethodCode.ASTORE : MethodCode.ISTORE;
+    }
+}
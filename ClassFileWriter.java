@@ -0,0 +1,381 @@
+package oop.ex6.parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Writes a class file of a single class - its constant pool, its static fields and its static methods. Classes
+ * are written in version 49 of the format, the last one a method can be verified in without stack map frames,
+ * so branches only need their targets to be patched once they are placed.
+ * Constants are added to the pool once, however many instructions refer to them.
+ */
+class ClassFileWriter {
+
+    private final static int MAGIC = 0xCAFEBABE;
+    private final static int MAJOR_VERSION = 49;
+    private final static int MAX_U2 = 0xFFFF;
+    private final static String OBJECT = "java/lang/Object";
+    private final static String CODE = "Code";
+
+    final static int ACC_PUBLIC = 0x0001;
+    final static int ACC_STATIC = 0x0008;
+    final static int ACC_FINAL = 0x0010;
+    final static int ACC_SUPER = 0x0020;
+
+    private final static int CONSTANT_UTF8 = 1;
+    private final static int CONSTANT_INTEGER = 3;
+    private final static int CONSTANT_DOUBLE = 6;
+    private final static int CONSTANT_CLASS = 7;
+    private final static int CONSTANT_STRING = 8;
+    private final static int CONSTANT_FIELDREF = 9;
+    private final static int CONSTANT_METHODREF = 10;
+    private final static int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * A growing array of bytes, written in the big endian order of class files.
+     */
+    static class Bytes {
+        private final static int INITIAL_CAPACITY = 64;
+
+        private byte[] data = new byte[INITIAL_CAPACITY];
+        private int length;
+
+        /**
+         * @param value the byte to add.
+         */
+        void u1(int value)
+        {
+            ensure(1);
+            data[length++] = (byte) value;
+        }
+
+        /**
+         * @param value the two bytes to add.
+         */
+        void u2(int value)
+        {
+            ensure(2);
+            data[length++] = (byte) (value >>> 8);
+            data[length++] = (byte) value;
+        }
+
+        /**
+         * @param value the four bytes to add.
+         */
+        void u4(int value)
+        {
+            u2(value >>> 16);
+            u2(value);
+        }
+
+        /**
+         * @param bytes the bytes to add.
+         */
+        void add(Bytes bytes)
+        {
+            ensure(bytes.length);
+            System.arraycopy(bytes.data, 0, data, length, bytes.length);
+            length += bytes.length;
+        }
+
+        /**
+         * Overwrites two bytes that were already added.
+         * @param offset the offset of the first byte.
+         * @param value the two bytes.
+         */
+        void setU2(int offset, int value)
+        {
+            data[offset] = (byte) (value >>> 8);
+            data[offset + 1] = (byte) value;
+        }
+
+        /**
+         * @return the number of bytes added.
+         */
+        int length()
+        {
+            return length;
+        }
+
+        /**
+         * @param extra the number of bytes about to be added.
+         */
+        private void ensure(int extra)
+        {
+            if (length + extra > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    private final Bytes pool = new Bytes();
+    private final HashMap<String, Integer> constants = new HashMap<>();
+    private int poolCount = 1;
+    private final Bytes fields = new Bytes();
+    private int fieldCount;
+    private final Bytes methods = new Bytes();
+    private int methodCount;
+    private final String className;
+
+    /**
+     * @param className the internal name of the class, with slashes between its packages.
+     */
+    ClassFileWriter(String className)
+    {
+        this.className = className;
+    }
+
+    /**
+     * Adds a public static field.
+     * @param name the name of the field.
+     * @param descriptor the descriptor of its type.
+     * @param isFinal true if the field is final.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    void addField(String name, String descriptor, boolean isFinal) throws UnsupportedCodeException
+    {
+        fields.u2(ACC_PUBLIC | ACC_STATIC | (isFinal ? ACC_FINAL : 0));
+        fields.u2(utf8(name));
+        fields.u2(utf8(descriptor));
+        fields.u2(0);
+        fieldCount++;
+    }
+
+    /**
+     * Adds a public static method.
+     * @param name the name of the method.
+     * @param descriptor the descriptor of the method.
+     * @param code the code of the method, all of whose labels are placed.
+     * @throws UnsupportedCodeException when the code of the method is too long, or the constant pool is full.
+     */
+    void addMethod(String name, String descriptor, MethodCode code) throws UnsupportedCodeException
+    {
+        Bytes bytes = code.bytes();
+        if (bytes.length() > MAX_U2)
+            throw new UnsupportedCodeException("The method " + name + " is too long");
+        methods.u2(ACC_PUBLIC | ACC_STATIC);
+        methods.u2(utf8(name));
+        methods.u2(utf8(descriptor));
+        methods.u2(1);
+        methods.u2(utf8(CODE));
+        // max stack, max locals, code length, code, no exception table and no attributes
+        methods.u4(2 + 2 + 4 + bytes.length() + 2 + 2);
+        methods.u2(code.getMaxStack());
+        methods.u2(code.getMaxLocals());
+        methods.u4(bytes.length());
+        methods.add(bytes);
+        methods.u2(0);
+        methods.u2(0);
+        methodCount++;
+    }
+
+    /**
+     * @return the class file.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    byte[] toByteArray() throws UnsupportedCodeException
+    {
+        int thisClass = classReference(className);
+        int superClass = classReference(OBJECT);
+        Bytes file = new Bytes();
+        file.u4(MAGIC);
+        file.u2(0);
+        file.u2(MAJOR_VERSION);
+        file.u2(poolCount);
+        file.add(pool);
+        file.u2(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        file.u2(thisClass);
+        file.u2(superClass);
+        file.u2(0);
+        file.u2(fieldCount);
+        file.add(fields);
+        file.u2(methodCount);
+        file.add(methods);
+        file.u2(0);
+        return Arrays.copyOf(file.data, file.length);
+    }
+
+    /**
+     * @param value an int constant.
+     * @return the index of the constant in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    int integer(int value) throws UnsupportedCodeException
+    {
+        String key = "I" + value;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        pool.u1(CONSTANT_INTEGER);
+        pool.u4(value);
+        return add(key, 1);
+    }
+
+    /**
+     * @param value a double constant.
+     * @return the index of the constant in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    int doubleConstant(double value) throws UnsupportedCodeException
+    {
+        long bits = Double.doubleToRawLongBits(value);
+        String key = "D" + bits;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        pool.u1(CONSTANT_DOUBLE);
+        pool.u4((int) (bits >>> 32));
+        pool.u4((int) bits);
+        // a double takes two entries of the pool
+        return add(key, 2);
+    }
+
+    /**
+     * @param value a string constant.
+     * @return the index of the constant in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    int string(String value) throws UnsupportedCodeException
+    {
+        String key = "S" + value;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        int utf8 = utf8(value);
+        pool.u1(CONSTANT_STRING);
+        pool.u2(utf8);
+        return add(key, 1);
+    }
+
+    /**
+     * @param name the name of a static field of the class.
+     * @param descriptor the descriptor of its type.
+     * @return the index of the reference to the field in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    int fieldReference(String name, String descriptor) throws UnsupportedCodeException
+    {
+        return memberReference(CONSTANT_FIELDREF, name, descriptor);
+    }
+
+    /**
+     * @param name the name of a static method of the class.
+     * @param descriptor the descriptor of the method.
+     * @return the index of the reference to the method in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    int methodReference(String name, String descriptor) throws UnsupportedCodeException
+    {
+        return memberReference(CONSTANT_METHODREF, name, descriptor);
+    }
+
+    /**
+     * @param tag the tag of a field or a method reference.
+     * @param name the name of the member of the class.
+     * @param descriptor the descriptor of the member.
+     * @return the index of the reference in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    private int memberReference(int tag, String name, String descriptor) throws UnsupportedCodeException
+    {
+        String key = tag + name + ":" + descriptor;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        int owner = classReference(className);
+        int nameAndType = nameAndType(name, descriptor);
+        pool.u1(tag);
+        pool.u2(owner);
+        pool.u2(nameAndType);
+        return add(key, 1);
+    }
+
+    /**
+     * @param name the internal name of a class.
+     * @return the index of the class in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    private int classReference(String name) throws UnsupportedCodeException
+    {
+        String key = "C" + name;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        int utf8 = utf8(name);
+        pool.u1(CONSTANT_CLASS);
+        pool.u2(utf8);
+        return add(key, 1);
+    }
+
+    /**
+     * @param name the name of a member.
+     * @param descriptor the descriptor of the member.
+     * @return the index of the name and type in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    private int nameAndType(String name, String descriptor) throws UnsupportedCodeException
+    {
+        String key = "N" + name + ":" + descriptor;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        pool.u1(CONSTANT_NAME_AND_TYPE);
+        pool.u2(nameIndex);
+        pool.u2(descriptorIndex);
+        return add(key, 1);
+    }
+
+    /**
+     * Adds a string in the modified UTF-8 of class files - a null character and the halves of surrogate pairs
+     * are encoded on their own.
+     * @param value the string.
+     * @return the index of the string in the pool.
+     * @throws UnsupportedCodeException when the constant pool is full, or the string is too long.
+     */
+    private int utf8(String value) throws UnsupportedCodeException
+    {
+        String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index != null)
+            return index;
+        Bytes encoded = new Bytes();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80)
+                encoded.u1(c);
+            else if (c < 0x800) {
+                encoded.u1(0xC0 | (c >> 6));
+                encoded.u1(0x80 | (c & 0x3F));
+            }
+            else {
+                encoded.u1(0xE0 | (c >> 12));
+                encoded.u1(0x80 | ((c >> 6) & 0x3F));
+                encoded.u1(0x80 | (c & 0x3F));
+            }
+        }
+        if (encoded.length() > MAX_U2)
+            throw new UnsupportedCodeException("A string is too long");
+        pool.u1(CONSTANT_UTF8);
+        pool.u2(encoded.length());
+        pool.add(encoded);
+        return add(key, 1);
+    }
+
+    /**
+     * Records the constant that was just written to the pool.
+     * @param key the key of the constant.
+     * @param entries the number of entries the constant takes.
+     * @return the index of the constant.
+     * @throws UnsupportedCodeException when the constant pool is full.
+     */
+    private int add(String key, int entries) throws UnsupportedCodeException
+    {
+        int index = poolCount;
+        poolCount += entries;
+        if (poolCount > MAX_U2)
+            throw new UnsupportedCodeException("The class has too many constants");
+        constants.put(key, index);
+        return index;
+    }
+}
@@ -0,0 +1,255 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds everything that belongs to the compilation of a single file - the root scope, the method table and
+ * the checks that are deferred until what they depend on is known. Every file gets its own context, so files
+ * that are compiled in the same run, even at the same time on different threads, never see each other's methods
+ * or variables.
+ */
+public class CompilationContext {
+
+    private Scope rootScope;
+    private SymbolTable symbols = new SymbolTable();
+    private MethodTable methods = new MethodTable();
+    private DeferredChecks deferred = new DeferredChecks();
+    private VariableArena localVariables = new VariableArena();
+    private boolean forked;
+    private ArrayList<Integer> declaredMethods = new ArrayList<>();
+    private int line;
+    private int column;
+    private ArrayList<Diagnostic> warnings = new ArrayList<>();
+    private boolean skipUnreachable;
+
+    /**
+     * The context constructor - creates the root scope of the compilation.
+     */
+    public CompilationContext()
+    {
+        rootScope = new Scope(this);
+    }
+
+    /**
+     * A constructor for a context that shares the root scope, the symbol table and the method table of another
+     * context, but has deferred checks of its own.
+     * @param rootScope the shared root scope.
+     * @param symbols the shared symbol table.
+     * @param methods the shared method table.
+     */
+    private CompilationContext(Scope rootScope, SymbolTable symbols, MethodTable methods)
+    {
+        this.rootScope = rootScope;
+        this.symbols = symbols;
+        this.methods = methods;
+        this.forked = true;
+    }
+
+    /**
+     * Creates a context for a part of this compilation - such as a single method - whose deferred checks
+     * should be kept apart from the rest, so that part can be checked again on its own.
+     * @return a context with the same root scope, symbol table and method table, and no deferred checks.
+     */
+    CompilationContext fork()
+    {
+        return new CompilationContext(rootScope, symbols, methods);
+    }
+
+    /**
+     * @return the table of the identifiers declared in the compilation.
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * @return the arena the variables of the local scopes of the compilation are kept in.
+     */
+    public VariableArena getLocalVariables()
+    {
+        return localVariables;
+    }
+
+    /**
+     * @return the root (global) scope of the compilation.
+     */
+    public Scope getRootScope()
+    {
+        return rootScope;
+    }
+
+    /**
+     * Sets the position of the statement that is being parsed, which deferred checks are reported at.
+     * @param line the line of the statement, starting from 1.
+     * @param column the column the statement starts at, starting from 1.
+     */
+    void setPosition(int line, int column)
+    {
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the line of the statement that is being parsed.
+     */
+    int getLine()
+    {
+        return line;
+    }
+
+    /**
+     * @return the column the statement that is being parsed starts at.
+     */
+    int getColumn()
+    {
+        return column;
+    }
+
+    /**
+     * @param skipUnreachable true to only follow the scopes of code that can never run, rather than validate it,
+     * so errors in it are not reported.
+     */
+    void setSkipUnreachable(boolean skipUnreachable)
+    {
+        this.skipUnreachable = skipUnreachable;
+    }
+
+    /**
+     * @return true if code that can never run is not validated.
+     */
+    boolean skipsUnreachable()
+    {
+        return skipUnreachable;
+    }
+
+    /**
+     * @param name the name of the warning.
+     * @param message the message of the warning.
+     * @return a warning at the statement that is being parsed, which is not reported yet.
+     */
+    Diagnostic warning(String name, String message)
+    {
+        return new Diagnostic(line, column, name, message);
+    }
+
+    /**
+     * Reports a warning - code that is valid, but does not do what it seems to.
+     * @param warning the warning.
+     */
+    void addWarning(Diagnostic warning)
+    {
+        warnings.add(warning);
+    }
+
+    /**
+     * @return the warnings of the compilation, by the order they were reported in.
+     */
+    List<Diagnostic> getWarnings()
+    {
+        return warnings;
+    }
+
+    /**
+     * Adds a method to the method table of the compilation, and runs the deferred checks that waited for it.
+     * @param method the method to add.
+     * @throws InvalidMethodException when there already is a method with that name - methods can't be
+     * overloaded.
+     */
+    void addMethod(Method method) throws InvalidMethodException
+    {
+        int symbol = symbols.intern(method.getName());
+        if (methods.get(symbol) != null)
+            throw new InvalidMethodException();
+        methods.put(symbol, method);
+        declaredMethods.add(symbol);
+        deferred.resolve(symbol);
+    }
+
+    /**
+     * Removes the methods that were added through this context from the method table, so they can be parsed
+     * again.
+     */
+    void removeDeclaredMethods()
+    {
+        for (int symbol : declaredMethods)
+            methods.put(symbol, null);
+        declaredMethods.clear();
+    }
+
+    /**
+     * Runs the deferred checks that waited for a global variable, once it was declared.
+     * @param symbol the symbol id of the name of the variable.
+     */
+    public void declareGlobal(int symbol)
+    {
+        deferred.resolve(symbol);
+    }
+
+    /**
+     * @param symbol the symbol id of the name of the method for which we're searching.
+     * @return the method with the given name.
+     * @throws InvalidMethodCallException is thrown when the method doesn't exist in the method table.
+     */
+    Method getMethod(int symbol) throws InvalidMethodCallException
+    {
+        Method method = methods.get(symbol);
+        if (method == null)
+            throw new InvalidMethodCallException();
+        return method;
+    }
+
+    /**
+     * Adds an assignment that could only be checked once the whole file has been read.
+     * @param assignmentCall the assignment to check later.
+     */
+    void addAssignmentCall(AssignmentCall assignmentCall)
+    {
+        deferred.add(assignmentCall);
+    }
+
+    /**
+     * @return the assignments that are checked once the whole file has been read, without those that are
+     * already known to pass.
+     */
+    List<AssignmentCall> getAssignmentCalls()
+    {
+        return deferred.getAssignmentCalls();
+    }
+
+    /**
+     * Called once a top level scope has closed. Settles the deferred checks that were added since the last
+     * time, so they no longer keep its scopes - and runs those whose result is already known - and then frees
+     * the variables of its scopes. A forked context only ever holds a single method, so its arena is dropped
+     * rather than kept for the next one.
+     */
+    void closeTopLevelScope()
+    {
+        deferred.settle();
+        if (forked)
+            localVariables.release();
+        else
+            localVariables.reset();
+    }
+
+    /**
+     * Adds a method call that could only be checked once the whole file has been read.
+     * @param methodCall the method call to check later.
+     */
+    void addMethodCall(MethodCall methodCall)
+    {
+        deferred.add(methodCall);
+    }
+
+    /**
+     * @return the method calls that are checked once the whole file has been read, without those that are
+     * already known to pass.
+     */
+    List<MethodCall> getMethodCalls()
+    {
+        return deferred.getMethodCalls();
+    }
+}
@@ -0,0 +1,194 @@
+package oop.ex6.codeelements;
+
+/**
+ * The value of a variable, parsed once from its literal - an integer as a long, a decimal as a double, a boolean,
+ * a char, or a string as an interned handle - and tagged with the types it is a value of, as a bitmask of
+ * {@link VariableType#getMask()}. A variable that is assigned another variable shares its constant, and checking
+ * a value against a type compares bitmasks, so the literal is never classified again and its text is not kept.
+ */
+public final class Constant {
+
+    /** The value of a parameter, which is only known once its method is called, and which no type accepts. */
+    public final static Constant UNKNOWN = new Constant(0, 0, null);
+    /** The constant true. */
+    public final static Constant TRUE = new Constant(VariableType.BOOLEAN_LITERAL, 1, null);
+    /** The constant false. */
+    public final static Constant FALSE = new Constant(VariableType.BOOLEAN_LITERAL, 0, null);
+
+    private final static char QUOTATION_MARK = '"';
+    private final static char APOSTROPHE = '\'';
+    private final static char MINUS = '-';
+    private final static char DOT = '.';
+    private final static char FIRST_OF_TRUE = 't';
+    private final static int CACHED_VALUES = 128;
+
+    /** The integers from 0 and the ascii chars, which are the most common literals, made once. */
+    private final static Constant[] INTEGERS = new Constant[CACHED_VALUES];
+    private final static Constant[] CHARS = new Constant[CACHED_VALUES];
+
+    static {
+        for (int i = 0; i < CACHED_VALUES; i++) {
+            INTEGERS[i] = new Constant(VariableType.INTEGER_LITERAL, i, null);
+            CHARS[i] = new Constant(VariableType.CHAR_LITERAL, i, null);
+        }
+    }
+
+    private final int typeMask;
+    private final long bits;
+    private final String string;
+
+    /**
+     * @param typeMask the types the constant is a value of.
+     * @param bits an integer, a boolean as 0 or 1, a char, or the raw bits of a decimal.
+     * @param string the text of a string, without its quotes.
+     */
+    private Constant(int typeMask, long bits, String string)
+    {
+        this.typeMask = typeMask;
+        this.bits = bits;
+        this.string = string;
+    }
+
+    /**
+     * @param literal a literal.
+     * @return the constant of the literal.
+     */
+    public static Constant parse(String literal)
+    {
+        return parse(literal, 0, literal.length(), LiteralClassifier.classify(literal));
+    }
+
+    /**
+     * Parses a literal that was already classified, such as a token of a line, without creating a string of it
+     * unless it is a string or a decimal.
+     * @param text the text the literal is in.
+     * @param start the offset of the first character of the literal.
+     * @param end the offset after the last character of the literal.
+     * @param typeMask the types the literal is a value of, as {@link LiteralClassifier} classifies it.
+     * @return the constant of the literal - one that no type accepts if it is not a literal of any type.
+     */
+    public static Constant parse(CharSequence text, int start, int end, int typeMask)
+    {
+        if (typeMask == VariableType.INTEGER_LITERAL) {
+            long value = parseInteger(text, start, end);
+            return value >= 0 && value < CACHED_VALUES ? INTEGERS[(int) value] : new Constant(typeMask, value, null);
+        }
+        if (typeMask == VariableType.DECIMAL_LITERAL)
+            return new Constant(typeMask, Double.doubleToRawLongBits(parseDecimal(text, start, end)), null);
+        if (typeMask == VariableType.BOOLEAN_LITERAL)
+            return text.charAt(start) == FIRST_OF_TRUE ? TRUE : FALSE;
+        if (typeMask == VariableType.CHAR_LITERAL) {
+            char c = text.charAt(start + 1);
+            return c < CACHED_VALUES ? CHARS[c] : new Constant(typeMask, c, null);
+        }
+        if (typeMask == VariableType.STRING_LITERAL)
+            return new Constant(typeMask, 0, text.subSequence(start + 1, end - 1).toString().intern());
+        return UNKNOWN;
+    }
+
+    /**
+     * @return the types the constant is a value of, as a bitmask.
+     */
+    public int getTypeMask()
+    {
+        return typeMask;
+    }
+
+    /**
+     * @return true if the constant is an integer, rather than a decimal.
+     */
+    public boolean isInteger()
+    {
+        return typeMask == VariableType.INTEGER_LITERAL;
+    }
+
+    /**
+     * @return the value of an integer, a boolean as 0 or 1, or a char.
+     */
+    public long longValue()
+    {
+        return bits;
+    }
+
+    /**
+     * @return the value of an integer or a decimal.
+     */
+    public double doubleValue()
+    {
+        return isInteger() ? bits : Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * @return true if the constant holds as a condition - true, or a number that is not zero.
+     */
+    public boolean isTrue()
+    {
+        if (typeMask == VariableType.DECIMAL_LITERAL)
+            return Double.longBitsToDouble(bits) != 0;
+        return (typeMask == VariableType.INTEGER_LITERAL || typeMask == VariableType.BOOLEAN_LITERAL) && bits != 0;
+    }
+
+    /**
+     * @return the text of a string, without its quotes, or null for any other constant.
+     */
+    public String stringValue()
+    {
+        return string;
+    }
+
+    /**
+     * @return the constant written as an s-java literal.
+     */
+    @Override
+    public String toString()
+    {
+        if (typeMask == VariableType.INTEGER_LITERAL)
+            return String.valueOf(bits);
+        if (typeMask == VariableType.DECIMAL_LITERAL)
+            return String.valueOf(Double.longBitsToDouble(bits));
+        if (typeMask == VariableType.BOOLEAN_LITERAL)
+            return String.valueOf(bits != 0);
+        if (typeMask == VariableType.CHAR_LITERAL)
+            return APOSTROPHE + String.valueOf((char) bits) + APOSTROPHE;
+        if (typeMask == VariableType.STRING_LITERAL)
+            return QUOTATION_MARK + string + QUOTATION_MARK;
+        return "?";
+    }
+
+    /**
+     * @param text the text an integer literal is in, which may have any number of digits.
+     * @param start the offset of the literal.
+     * @param end the offset after the literal.
+     * @return its value, saturated to the range of a long - which keeps its sign, and whether it is zero.
+     */
+    private static long parseInteger(CharSequence text, int start, int end)
+    {
+        boolean negative = text.charAt(start) == MINUS;
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10)
+                return negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @param text the text a decimal literal is in - s-java allows several decimal points in a row, which mean a
+     * single one.
+     * @param start the offset of the literal.
+     * @param end the offset after the literal.
+     * @return its value.
+     */
+    private static double parseDecimal(CharSequence text, int start, int end)
+    {
+        StringBuilder number = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != DOT || text.charAt(i - 1) != DOT)
+                number.append(c);
+        }
+        return Double.parseDouble(number.toString());
+    }
+}
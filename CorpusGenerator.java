@@ -0,0 +1,477 @@
+package oop.ex6.bench;
+
+import java.io.FileNotFoundException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Generates large s-java programs for load and scaling tests: global declarations, followed by methods with
+ * typed parameters whose bodies declare and assign variables, nest if and while blocks, and call other methods
+ * - also methods that are only declared further down the file. The generator keeps a model of the scopes, so
+ * every variable it uses is declared, initialized and of the right type, and a program without injected errors
+ * is valid. With an error rate, statements are replaced at that rate by statements with a single error of a
+ * random kind, and the lines of those statements are kept.
+ * The same settings and seed always generate the same program.
+ * Usage: CorpusGenerator [--seed N] [--methods N] [--lines N] [--globals N] [--statements N] [--depth N]
+ * [--density F] [--errors F] [--out FILE] - with --lines, methods are generated until the program has at least
+ * that many lines, whatever --methods is.
+ */
+public class CorpusGenerator {
+
+    private final static String[] TYPES = {"int", "double", "boolean", "char", "String"};
+    private final static int INT = 0, DOUBLE = 1, BOOLEAN = 2, CHAR = 3, STRING = 4;
+    private final static int MAX_PARAMETERS = 4;
+    private final static int MAX_VARIABLES_PER_DECLARATION = 3;
+    private final static int MAX_CONDITION_OPERANDS = 3;
+    private final static int MAX_ARGUMENT_LITERAL = 1000;
+    private final static int FORWARD_CALL_WINDOW = 8;
+    private final static int ERROR_KINDS = 6;
+    private final static double BLOCK_RATE = 0.15;
+    private final static double CALL_RATE = 0.2;
+    private final static double COMMENT_RATE = 0.05;
+    private final static double FINAL_RATE = 0.2;
+    private final static double INITIALIZED_RATE = 0.7;
+    private final static double VARIABLE_VALUE_RATE = 0.3;
+    private final static double NESTED_RETURN_RATE = 0.1;
+    private final static String INDENT = "    ";
+
+    private final static long DEFAULT_SEED = 1;
+    private final static int DEFAULT_METHODS = 100;
+    private final static int DEFAULT_GLOBALS = 20;
+    private final static int DEFAULT_STATEMENTS = 12;
+    private final static int DEFAULT_DEPTH = 3;
+    private final static double DEFAULT_DENSITY = 0.4;
+    private final static double DEFAULT_ERRORS = 0;
+
+    /**
+     * A variable in the model of the scopes.
+     */
+    private static class ModelVariable {
+        private final String name;
+        private final int type;
+        private final boolean isFinal;
+        private boolean initialized;
+
+        /**
+         * @param name the name of the variable.
+         * @param type the index of the type of the variable.
+         * @param isFinal true if the variable is final.
+         * @param initialized true if the variable has a value that can be used.
+         */
+        private ModelVariable(String name, int type, boolean isFinal, boolean initialized)
+        {
+            this.name = name;
+            this.type = type;
+            this.isFinal = isFinal;
+            this.initialized = initialized;
+        }
+    }
+
+    private final Random random;
+    private final int methods;
+    private final int targetLines;
+    private final int globals;
+    private final int statements;
+    private final int depth;
+    private final double density;
+    private final double errorRate;
+
+    private PrintWriter out;
+    private int lines;
+    private final ArrayList<Integer> errorLines = new ArrayList<>();
+    private final ArrayList<HashMap<String, ModelVariable>> scopes = new ArrayList<>();
+    private final ArrayList<int[]> parameterTypes = new ArrayList<>();
+    private final ArrayList<boolean[]> parameterFinals = new ArrayList<>();
+    private final HashSet<Integer> definedMethods = new HashSet<>();
+    private int nextName;
+
+    /**
+     * The generator constructor.
+     * @param seed the seed of the generated program.
+     * @param methods the number of methods to generate.
+     * @param targetLines the least number of lines to generate, which overrides the number of methods, or 0.
+     * @param globals the number of global declarations.
+     * @param statements the number of statements in a method body, and in every nested block.
+     * @param depth the deepest nesting of if and while blocks.
+     * @param density the part of the statements that are declarations.
+     * @param errorRate the part of the statements that are replaced by statements with an error.
+     */
+    public CorpusGenerator(long seed, int methods, int targetLines, int globals, int statements, int depth,
+                           double density, double errorRate)
+    {
+        this.random = new Random(seed);
+        this.methods = targetLines > 0 ? Integer.MAX_VALUE : methods;
+        this.targetLines = targetLines;
+        this.globals = globals;
+        this.statements = statements;
+        this.depth = depth;
+        this.density = density;
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Generates a valid program with the default settings and the given seed.
+     * @param seed the seed of the program.
+     * @param targetLines the least number of lines to generate.
+     * @return a generator of the program.
+     */
+    public static CorpusGenerator valid(long seed, int targetLines)
+    {
+        return new CorpusGenerator(seed, DEFAULT_METHODS, targetLines, DEFAULT_GLOBALS, DEFAULT_STATEMENTS,
+                DEFAULT_DEPTH, DEFAULT_DENSITY, 0);
+    }
+
+    /**
+     * Runs the generator.
+     * @param args the settings of the generator.
+     * @throws FileNotFoundException when the output file could not be created.
+     */
+    public static void main(String[] args) throws FileNotFoundException
+    {
+        long seed = DEFAULT_SEED;
+        int methods = DEFAULT_METHODS, lines = 0, globals = DEFAULT_GLOBALS, statements = DEFAULT_STATEMENTS,
+                depth = DEFAULT_DEPTH;
+        double density = DEFAULT_DENSITY, errors = DEFAULT_ERRORS;
+        String path = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--methods": methods = Integer.parseInt(value); break;
+                case "--lines": lines = Integer.parseInt(value); break;
+                case "--globals": globals = Integer.parseInt(value); break;
+                case "--statements": statements = Integer.parseInt(value); break;
+                case "--depth": depth = Integer.parseInt(value); break;
+                case "--density": density = Double.parseDouble(value); break;
+                case "--errors": errors = Double.parseDouble(value); break;
+                case "--out": path = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        CorpusGenerator generator = new CorpusGenerator(seed, methods, lines, globals, statements, depth, density,
+                errors);
+        try (PrintWriter writer = path == null ? new PrintWriter(new OutputStreamWriter(System.out)) :
+                new PrintWriter(path)) {
+            generator.generate(writer);
+        }
+        System.err.println(generator.lines + " lines, " + generator.definedMethods.size() + " methods, " +
+                generator.errorLines.size() + " injected errors" + (generator.errorLines.isEmpty() ? "" :
+                " (first in line " + generator.errorLines.get(0) + ")"));
+    }
+
+    /**
+     * Writes the program.
+     * @param writer the writer the program is written to.
+     * @return the number of lines written.
+     */
+    public int generate(PrintWriter writer)
+    {
+        out = writer;
+        scopes.add(new HashMap<>());
+        for (int i = 0; i < globals; i++) {
+            if (!injectError(true))
+                declaration(true);
+        }
+        for (int method = 0; method < methods && (targetLines <= 0 || lines < targetLines); method++)
+            method(method);
+        // methods that were called further up, but not generated since the program was long enough
+        for (int method = 0; method < parameterTypes.size(); method++) {
+            if (!definedMethods.contains(method)) {
+                definedMethods.add(method);
+                emit(signature(method));
+                emit(INDENT + "return;");
+                emit("}");
+            }
+        }
+        out.flush();
+        return lines;
+    }
+
+    /**
+     * @return the lines of the statements with injected errors, starting from 1.
+     */
+    public ArrayList<Integer> getErrorLines()
+    {
+        return errorLines;
+    }
+
+    /**
+     * Writes a method - its signature, a body of statements and a closing return.
+     * @param method the index of the method.
+     */
+    private void method(int method)
+    {
+        definedMethods.add(method);
+        nextName = 0;
+        emit(signature(method));
+        HashMap<String, ModelVariable> scope = new HashMap<>();
+        int[] types = parameterTypes(method);
+        boolean[] finals = parameterFinals.get(method);
+        for (int i = 0; i < types.length; i++)
+            scope.put("p" + i, new ModelVariable("p" + i, types[i], finals[i], false));
+        scopes.add(scope);
+        block(1);
+        emit(INDENT + "return;");
+        scopes.remove(scopes.size() - 1);
+        emit("}");
+    }
+
+    /**
+     * Writes the statements of a block.
+     * @param level the nesting level of the block, 1 for a method body.
+     */
+    private void block(int level)
+    {
+        String indent = indent(level);
+        for (int i = 0; i < statements; i++) {
+            if (injectError(false))
+                continue;
+            double choice = random.nextDouble();
+            if (choice < COMMENT_RATE)
+                emit(random.nextBoolean() ? "" : indent + "// statement " + i);
+            else if (level < depth && choice < COMMENT_RATE + BLOCK_RATE) {
+                emit(indent + (random.nextBoolean() ? "if" : "while") + " (" + condition() + ") {");
+                scopes.add(new HashMap<>());
+                block(level + 1);
+                if (random.nextDouble() < NESTED_RETURN_RATE)
+                    emit(indent(level + 1) + "return;");
+                scopes.remove(scopes.size() - 1);
+                emit(indent + "}");
+            }
+            else if (random.nextDouble() < density)
+                declaration(false);
+            else if (random.nextDouble() < CALL_RATE)
+                emit(indent + call());
+            else
+                assignment(indent);
+        }
+    }
+
+    /**
+     * Writes a declaration of one or more variables of a single type.
+     * @param global true for a global declaration.
+     */
+    private void declaration(boolean global)
+    {
+        int type = random.nextInt(TYPES.length);
+        boolean isFinal = random.nextDouble() < FINAL_RATE;
+        int count = 1 + random.nextInt(MAX_VARIABLES_PER_DECLARATION);
+        StringBuilder line = new StringBuilder(global ? "" : indent(scopes.size() - 1));
+        line.append(isFinal ? "final " : "").append(TYPES[type]).append(' ');
+        ArrayList<ModelVariable> declared = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = (global ? "g" : "v") + nextName++;
+            boolean initialized = isFinal || random.nextDouble() < INITIALIZED_RATE;
+            line.append(i > 0 ? ", " : "").append(name);
+            if (initialized)
+                line.append(" = ").append(value(type));
+            declared.add(new ModelVariable(name, type, isFinal, initialized));
+        }
+        emit(line.append(';').toString());
+        for (ModelVariable variable : declared)
+            scopes.get(scopes.size() - 1).put(variable.name, variable);
+    }
+
+    /**
+     * Writes an assignment to a variable that is not final, or a declaration if there is none.
+     * @param indent the indentation of the line.
+     */
+    private void assignment(String indent)
+    {
+        ArrayList<ModelVariable> candidates = visible(-1, false);
+        candidates.removeIf(variable -> variable.isFinal);
+        if (candidates.isEmpty()) {
+            declaration(false);
+            return;
+        }
+        ModelVariable variable = candidates.get(random.nextInt(candidates.size()));
+        emit(indent + variable.name + " = " + value(variable.type) + ";");
+        HashMap<String, ModelVariable> scope = scopes.get(scopes.size() - 1);
+        if (scope.get(variable.name) == variable)
+            variable.initialized = true;
+        else
+            // assigning a variable of an outer scope gives the current scope a copy of it
+            scope.put(variable.name, new ModelVariable(variable.name, variable.type, false, true));
+    }
+
+    /**
+     * @return a call of a method that was generated or will be, with arguments of the right types.
+     */
+    private String call()
+    {
+        int method = random.nextInt(definedMethods.size() + FORWARD_CALL_WINDOW);
+        int[] types = parameterTypes(method);
+        StringBuilder line = new StringBuilder("m").append(method).append('(');
+        for (int i = 0; i < types.length; i++)
+            line.append(i > 0 ? ", " : "").append(value(types[i]));
+        return line.append(");").toString();
+    }
+
+    /**
+     * @return the operands of a condition, joined by || and &&.
+     */
+    private String condition()
+    {
+        int operands = 1 + random.nextInt(MAX_CONDITION_OPERANDS);
+        StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < operands; i++) {
+            if (i > 0)
+                condition.append(random.nextBoolean() ? " || " : " && ");
+            int type = random.nextInt(BOOLEAN + 1);
+            condition.append(value(type));
+        }
+        return condition.toString();
+    }
+
+    /**
+     * @param type the index of a type.
+     * @return an initialized variable of the type, or a literal of the type.
+     */
+    private String value(int type)
+    {
+        if (random.nextDouble() < VARIABLE_VALUE_RATE) {
+            ArrayList<ModelVariable> candidates = visible(type, true);
+            if (!candidates.isEmpty())
+                return candidates.get(random.nextInt(candidates.size())).name;
+        }
+        return literal(type);
+    }
+
+    /**
+     * @param type the index of a type.
+     * @return a literal of the type.
+     */
+    private String literal(int type)
+    {
+        switch (type) {
+            case INT:
+                return Integer.toString(random.nextInt(MAX_ARGUMENT_LITERAL) - MAX_ARGUMENT_LITERAL / 2);
+            case DOUBLE:
+                return random.nextInt(MAX_ARGUMENT_LITERAL) + "." + random.nextInt(100);
+            case BOOLEAN:
+                return random.nextBoolean() ? "true" : "false";
+            case CHAR:
+                return "'" + (char) ('a' + random.nextInt(26)) + "'";
+            default:
+                return "\"text " + random.nextInt(MAX_ARGUMENT_LITERAL) + "\"";
+        }
+    }
+
+    /**
+     * @param type the index of a type, or -1 for any type.
+     * @param initialized true to find only initialized variables.
+     * @return the variables that are visible in the current scope - the innermost variable of every name.
+     */
+    private ArrayList<ModelVariable> visible(int type, boolean initialized)
+    {
+        ArrayList<ModelVariable> variables = new ArrayList<>();
+        HashSet<String> hidden = new HashSet<>();
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            for (ModelVariable variable : scopes.get(i).values()) {
+                if (!hidden.add(variable.name))
+                    continue;
+                if ((type < 0 || variable.type == type) && (!initialized || variable.initialized))
+                    variables.add(variable);
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Replaces a statement by a statement with a single error, at the error rate.
+     * @param global true if the statement is global.
+     * @return true if a statement with an error was written.
+     */
+    private boolean injectError(boolean global)
+    {
+        if (errorRate <= 0 || random.nextDouble() >= errorRate)
+            return false;
+        String indent = global ? "" : indent(scopes.size() - 1);
+        String name = "e" + nextName++;
+        String line;
+        switch (random.nextInt(global ? ERROR_KINDS - 1 : ERROR_KINDS)) {
+            case 0:
+                line = "int " + name + " = \"text\";";
+                break;
+            case 1:
+                line = name + " = 5;";
+                break;
+            case 2:
+                line = "int " + name + " = 5";
+                break;
+            case 3:
+                line = "boolean " + name + " = 'c';";
+                break;
+            case 4:
+                line = "final double " + name + ";";
+                break;
+            default:
+                line = "missing" + name + "(1);";
+                break;
+        }
+        emit(indent + line);
+        errorLines.add(lines);
+        return true;
+    }
+
+    /**
+     * @param method the index of a method.
+     * @return the signature line of the method.
+     */
+    private String signature(int method)
+    {
+        int[] types = parameterTypes(method);
+        boolean[] finals = parameterFinals.get(method);
+        StringBuilder line = new StringBuilder("void m").append(method).append('(');
+        for (int i = 0; i < types.length; i++)
+            line.append(i > 0 ? ", " : "").append(finals[i] ? "final " : "").append(TYPES[types[i]])
+                    .append(" p").append(i);
+        return line.append(") {").toString();
+    }
+
+    /**
+     * @param method the index of a method.
+     * @return the types of the parameters of the method, chosen when the method is first needed.
+     */
+    private int[] parameterTypes(int method)
+    {
+        while (parameterTypes.size() <= method) {
+            int count = random.nextInt(MAX_PARAMETERS + 1);
+            int[] types = new int[count];
+            boolean[] finals = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                types[i] = random.nextInt(TYPES.length);
+                finals[i] = random.nextDouble() < FINAL_RATE;
+            }
+            parameterTypes.add(types);
+            parameterFinals.add(finals);
+        }
+        return parameterTypes.get(method);
+    }
+
+    /**
+     * @param level a nesting level.
+     * @return the indentation of the level.
+     */
+    private static String indent(int level)
+    {
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < level; i++)
+            indent.append(INDENT);
+        return indent.toString();
+    }
+
+    /**
+     * Writes a line of the program.
+     * @param line the line to write.
+     */
+    private void emit(String line)
+    {
+        out.println(line);
+        lines++;
+    }
+}
@@ -0,0 +1,88 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.Constant;
+import oop.ex6.codeelements.Scope;
+
+/**
+ * Folds the conditions of if and while blocks whose operands are all known while the file is parsed - literals,
+ * and final variables that were declared with a literal or with another such variable (see
+ * {@link oop.ex6.codeelements.Variable#isKnown()}) - and warns about the blocks that
+ * can never run, and about while loops that can never end, since their condition always holds and they have no
+ * return to leave them by. A block that can never run marks its scope, so the code inside it is not warned about
+ * again, and may be skipped rather than validated (see {@link CompilationContext#skipsUnreachable()}).
+ * The value of an operand, a group of operands joined by && and a whole condition is one of three, ordered so
+ * that && takes the lesser of two values and || the greater.
+ */
+class DeadCodeAnalysis {
+
+    /** The value of a condition that is always false. */
+    final static int NEVER = 0;
+    /** The value of a condition that is only known when the code runs. */
+    final static int UNKNOWN = 1;
+    /** The value of a condition that is always true. */
+    final static int ALWAYS = 2;
+
+    /** The kind of the warning of a block that can never run. */
+    final static String UNREACHABLE_BLOCK = "UnreachableBlock";
+    /** The kind of the warning of a while loop that can never end. */
+    final static String ENDLESS_LOOP = "EndlessLoop";
+
+    private final static String WHILE = "while";
+    private final static String NEVER_RUNS = " block can never run, since its condition is always false";
+    private final static String NEVER_ENDS =
+            "This while loop can never end, since its condition is always true and it has no return";
+
+    /**
+     * @param value the value of an operand, if it is known when the file is parsed, or null.
+     * @return the value of the operand as a condition.
+     */
+    static int valueOf(Constant value)
+    {
+        if (value == null || value == Constant.UNKNOWN)
+            return UNKNOWN;
+        return value.isTrue() ? ALWAYS : NEVER;
+    }
+
+    /**
+     * Warns about the block a condition opens, once the condition was folded.
+     * @param line the condition line.
+     * @param scope the scope the condition opens.
+     * @param condition the value of the condition.
+     */
+    static void analyzeCondition(TokenizedLine line, Scope scope, int condition)
+    {
+        if (scope.isUnreachable())
+            return;
+        CompilationContext context = scope.getContext();
+        boolean isLoop = line.isWord(0, WHILE);
+        if (condition == NEVER) {
+            scope.markUnreachable();
+            context.addWarning(context.warning(UNREACHABLE_BLOCK, (isLoop ? "This while" : "This if") + NEVER_RUNS));
+        }
+        else if (condition == ALWAYS && isLoop)
+            scope.setEndlessLoop(context.warning(ENDLESS_LOOP, NEVER_ENDS));
+    }
+
+    /**
+     * Notes a return statement, which leaves every loop it is in.
+     * @param scope the scope of the return statement.
+     */
+    static void analyzeReturn(Scope scope)
+    {
+        if (!scope.isUnreachable())
+            scope.markReturn();
+    }
+
+    /**
+     * Warns about a loop that can never end once its scope closes, and passes a return in the scope on to the
+     * scope around it.
+     * @param scope the scope that closes.
+     */
+    static void analyzeClose(Scope scope)
+    {
+        if (scope.getEndlessLoop() != null && !scope.hasReturn())
+            scope.getContext().addWarning(scope.getEndlessLoop());
+        if (scope.hasReturn() && !scope.isMethodScope())
+            scope.getOuterScope().markReturn();
+    }
+}
@@ -0,0 +1,193 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.Diagnostic;
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.Interpreter;
+import oop.ex6.parser.LineReader;
+import oop.ex6.parser.ParserException;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures what folding constant conditions saves on generated code that branches on feature flags - global
+ * final booleans, most of them off, that every block of the program is guarded by. The program is validated in
+ * full and with the blocks that can never run skipped, and it is run by the {@link Interpreter} as it is, with
+ * the blocks of the flags that are off left out, and with the flags not final, so every condition is checked
+ * when it runs; the global variables both runs leave are checked to be the same. Before it is measured, the
+ * analysis is checked not to fold a final variable that is declared with a variable that the code may change.
+ * Usage: DeadCodeBenchmark [methods] [flags]
+ */
+public class DeadCodeBenchmark {
+
+    private final static int DEFAULT_METHODS = 2000;
+    private final static int DEFAULT_FLAGS = 64;
+    private final static int BLOCKS_PER_METHOD = 8;
+    private final static int FLAGS_ON_EVERY = 4;
+    private final static int RUNS = 5;
+    private final static int VALIDATIONS = 10;
+    private final static int EXECUTIONS = 20;
+    private final static String METHOD = "main";
+    private final static String FINAL = "final ";
+    private final static String ERROR = "        int bad = \"oops\";";
+    private final static int ERROR_LINE = 12;
+    private final static String[] CHANGED_BEFORE_FINAL = {
+            "int x = 0;",
+            "int hit = 0;",
+            "void set() {",
+            "    x = 1;",
+            "    return;",
+            "}",
+            "void m() {",
+            "    set();",
+            "    final int f = x;",
+            "    if (f) {",
+            "        hit = 1;",
+            ERROR,
+            "    }",
+            "    return;",
+            "}"
+    };
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of methods, and the number of flags.
+     * @throws Exception when the program is not valid, or running it failed.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_METHODS;
+        int flags = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FLAGS;
+        checkChangedBeforeFinal();
+        List<String> folded = program(methods, flags, true);
+        List<String> unfolded = program(methods, flags, false);
+        String code = String.join("\n", folded);
+        ArrayList<Diagnostic> warnings = new ArrayList<>();
+        if (!FileParser.diagnose(new LineReader(new StringReader(code)), warnings, false).isEmpty())
+            throw new IllegalStateException("The generated program is not valid");
+        System.out.printf("%d lines, %d warnings%n", folded.size(), warnings.size());
+        Interpreter constant = resolve(folded);
+        Interpreter variable = resolve(unfolded);
+        for (int run = 0; run < RUNS; run++) {
+            long full = validate(code, false);
+            long skipped = validate(code, true);
+            long foldedNanos = execute(constant);
+            long unfoldedNanos = execute(variable);
+            if (!constant.getGlobals().equals(variable.getGlobals()))
+                throw new IllegalStateException("The runs differ: " + constant.getGlobals() + " and " +
+                        variable.getGlobals());
+            System.out.printf("validation: full %.1f ns/line, skipping dead code %.1f ns/line; " +
+                            "run: folded %.1f us, unfolded %.1f us%n",
+                    (double) full / folded.size(), (double) skipped / folded.size(),
+                    foldedNanos / 1000.0, unfoldedNanos / 1000.0);
+        }
+    }
+
+    /**
+     * Checks that a block whose condition reads a final variable, which is declared with a global variable that
+     * a call has just changed, is neither warned about nor skipped, and that it runs.
+     * @throws Exception when the check failed.
+     */
+    private static void checkChangedBeforeFinal() throws Exception
+    {
+        String code = String.join("\n", CHANGED_BEFORE_FINAL);
+        ArrayList<Diagnostic> warnings = new ArrayList<>();
+        FileParser.diagnose(new LineReader(new StringReader(code)), warnings, true);
+        ValidationResult skipped = FileParser.validate(new LineReader(new StringReader(code)), true);
+        if (!warnings.isEmpty() || skipped.getLine() != ERROR_LINE)
+            throw new IllegalStateException("A final variable of a changed variable was folded: " + warnings);
+        List<String> lines = new ArrayList<>(Arrays.asList(CHANGED_BEFORE_FINAL));
+        lines.remove(ERROR);
+        Interpreter interpreter = resolve(lines);
+        interpreter.run("m");
+        if (!"1".equals(interpreter.getGlobals().get("hit")))
+            throw new IllegalStateException("The block of a final variable of a changed variable did not run");
+    }
+
+    /**
+     * Generates the program - the flags, a method per feature whose blocks are each guarded by a flag, and a
+     * method that calls them all.
+     * @param methods the number of feature methods.
+     * @param flags the number of flags, of which every FLAGS_ON_EVERY is on.
+     * @param finalFlags true to declare the flags final, so their conditions can be folded.
+     * @return the lines of the program.
+     */
+    private static List<String> program(int methods, int flags, boolean finalFlags)
+    {
+        ArrayList<String> lines = new ArrayList<>();
+        for (int flag = 0; flag < flags; flag++)
+            lines.add((finalFlags ? FINAL : "") + "boolean flag" + flag + " = " + (flag % FLAGS_ON_EVERY == 0) + ";");
+        lines.add("int total = 0;");
+        lines.add("double level = 0.5;");
+        lines.add("String label = \"none\";");
+        for (int method = 0; method < methods; method++) {
+            lines.add("void feature" + method + "() {");
+            for (int block = 0; block < BLOCKS_PER_METHOD; block++) {
+                int flag = (method * BLOCKS_PER_METHOD + block) % flags;
+                lines.add("    if (flag" + flag + ") {");
+                lines.add("        int count" + block + " = " + block + ";");
+                lines.add("        double ratio" + block + " = count" + block + ";");
+                lines.add("        total = count" + block + ";");
+                lines.add("        level = ratio" + block + ";");
+                lines.add("        if (flag" + (flag + 1) % flags + " || flag" + (flag + 2) % flags + ") {");
+                lines.add("            label = \"feature" + method + "\";");
+                lines.add("        }");
+                lines.add("    }");
+            }
+            lines.add("    return;");
+            lines.add("}");
+        }
+        lines.add("void " + METHOD + "() {");
+        for (int method = 0; method < methods; method++)
+            lines.add("    feature" + method + "();");
+        lines.add("    return;");
+        lines.add("}");
+        return lines;
+    }
+
+    /**
+     * @param lines the lines of a valid program.
+     * @return an interpreter that resolved the program.
+     * @throws ParserException when the program can't be run.
+     */
+    private static Interpreter resolve(List<String> lines) throws ParserException
+    {
+        Interpreter interpreter = new Interpreter(lines);
+        interpreter.resolve();
+        return interpreter;
+    }
+
+    /**
+     * @param code the code of the program.
+     * @param skipUnreachable true to skip the code that can never run.
+     * @return the time of a single validation, in nanoseconds.
+     * @throws IOException never, since the code is in memory.
+     */
+    private static long validate(String code, boolean skipUnreachable) throws IOException
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < VALIDATIONS; i++) {
+            ValidationResult result = FileParser.validate(new LineReader(new StringReader(code)), skipUnreachable);
+            if (result.getCode() != ValidationResult.CODE_IS_VALID)
+                throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+        }
+        return (System.nanoTime() - start) / VALIDATIONS;
+    }
+
+    /**
+     * @param interpreter an interpreter that resolved the program.
+     * @return the time of a single run of the program, in nanoseconds.
+     * @throws ParserException when the run failed.
+     */
+    private static long execute(Interpreter interpreter) throws ParserException
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < EXECUTIONS; i++)
+            interpreter.run(METHOD);
+        return (System.nanoTime() - start) / EXECUTIONS;
+    }
+}
@@ -0,0 +1,88 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.LineReader;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures the time and the heap allocated per declared variable, for declarations with a growing number of
+ * comma separated variables. Constant numbers per variable mean that declaration parsing is linear in the
+ * length of the declaration. The allocation includes the variables themselves, which are kept by the scope.
+ * Usage: DeclarationBenchmark [declarations] [iterations]
+ */
+public class DeclarationBenchmark {
+
+    private final static int DEFAULT_DECLARATIONS = 2000;
+    private final static int DEFAULT_ITERATIONS = 20;
+    private final static int[] VARIABLES_PER_DECLARATION = {1, 8, 32, 96};
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of declarations in a source, and the number of measured runs.
+     * @throws IOException never, since the sources are in memory.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int declarations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DECLARATIONS;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int variables : VARIABLES_PER_DECLARATION) {
+            byte[] source = createSource(declarations, variables);
+            for (int i = 0; i < iterations; i++)
+                validate(source);
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                validate(source);
+            long nanos = System.nanoTime() - start;
+            bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+            double perVariable = (double) declarations * variables * iterations;
+            System.out.printf("%3d variables per declaration: %6.1f ns/variable, %6.1f bytes/variable%n",
+                    variables, nanos / perVariable, bytes / perVariable);
+        }
+    }
+
+    /**
+     * Validates a source, failing the benchmark if it is not valid.
+     * @param source the source to validate.
+     * @throws IOException never, since the source is in memory.
+     */
+    private static void validate(byte[] source) throws IOException
+    {
+        LineReader reader = new LineReader(Channels.newChannel(new ByteArrayInputStream(source)),
+                StandardCharsets.UTF_8);
+        ValidationResult result = FileParser.validate(reader);
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+    }
+
+    /**
+     * @param declarations the number of declaration lines.
+     * @param variables the number of variables in each declaration.
+     * @return a source of global declarations, where every other variable is initialized.
+     */
+    private static byte[] createSource(int declarations, int variables)
+    {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < declarations; i++) {
+            source.append("int ");
+            for (int j = 0; j < variables; j++) {
+                if (j > 0)
+                    source.append(", ");
+                source.append('v').append(i).append('_').append(j);
+                if (j % 2 == 0)
+                    source.append(" = ").append(j);
+            }
+            source.append(";\n");
+        }
+        return source.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.*;
+
+/**
+ * A check that could not be made when its line was parsed, since it depends on code further down the file - a
+ * method that is declared later, or a global variable whose value may still change. Once the top level scope
+ * of the check has closed it is settled, and from then on it is decided as soon as everything it depends on is
+ * known for good: the {@link DeferredChecks} it belongs to runs it then, keeps its failure if it failed, and
+ * forgets it if it passed. A check that depends on something that may change until the end of the file is run
+ * there.
+ */
+abstract class DeferredCheck {
+
+    /** The dependency of a check whose result is already known for good. */
+    final static int READY = -1;
+    /** The dependency of a check whose result may change until the end of the file. */
+    final static int END_OF_FILE = -2;
+
+    final int line;
+    final int column;
+    private boolean decided;
+    private Exception failure;
+
+    /**
+     * Creates a check at the statement that is being parsed.
+     * @param context the compilation of the check.
+     */
+    DeferredCheck(CompilationContext context)
+    {
+        this.line = context.getLine();
+        this.column = context.getColumn();
+    }
+
+    /**
+     * Settles the check once its top level scope has closed, so it no longer keeps the scopes of that method.
+     */
+    abstract void settle();
+
+    /**
+     * Resolves what the check depends on as far as it can be resolved now. Only called on a settled check.
+     * @return the symbol id of the method or global variable the check waits for, READY if the result of the
+     * check is known for good, or END_OF_FILE if it may change until the end of the file.
+     */
+    abstract int dependency();
+
+    /**
+     * Runs the check.
+     * @throws ParserException when the check failed for a method call.
+     * @throws CodeElementsException when the check failed for a variable.
+     */
+    abstract void verify() throws ParserException, CodeElementsException;
+
+    /**
+     * Runs the check before the end of the file, keeping its failure to be reported with the other checks.
+     * @return true if the check passed.
+     */
+    boolean decide()
+    {
+        decided = true;
+        try {
+            verify();
+            return true;
+        }
+        catch (ParserException | CodeElementsException e) {
+            failure = e;
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the check was decided and passed, so it need not be kept.
+     */
+    boolean passed()
+    {
+        return decided && failure == null;
+    }
+
+    /**
+     * Reports the result of the check at the end of the file - its failure if it was already decided, or else
+     * the result of running it now.
+     * @throws ParserException when the check failed for a method call.
+     * @throws CodeElementsException when the check failed for a variable.
+     */
+    void run() throws ParserException, CodeElementsException
+    {
+        if (!decided)
+            verify();
+        else if (failure instanceof ParserException)
+            throw (ParserException) failure;
+        else if (failure != null)
+            throw (CodeElementsException) failure;
+    }
+}
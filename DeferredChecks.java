@@ -0,0 +1,140 @@
+package oop.ex6.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The deferred checks of a compilation. Assignments and method calls are kept in the order they were parsed in,
+ * since that is the order their failures are reported in. Once a check is settled, it subscribes to the symbol
+ * of the method or global variable it waits for, and is run as soon as that method is declared or that variable
+ * is declared final; a check that passed is dropped from both the subscriptions and the lists, so a long file
+ * only keeps the checks that failed or that still wait for something.
+ */
+class DeferredChecks {
+
+    private final static int INITIAL_CAPACITY = 64;
+    private final static double MAX_PASSED_RATIO = 0.5;
+
+    private final ArrayList<AssignmentCall> assignmentCalls = new ArrayList<>();
+    private final ArrayList<MethodCall> methodCalls = new ArrayList<>();
+    private int settledAssignmentCalls;
+    private int settledMethodCalls;
+    private int passedChecks;
+    private ArrayList<DeferredCheck>[] waiting = newWaitingTable(INITIAL_CAPACITY);
+
+    /**
+     * @param assignmentCall an assignment that was parsed.
+     */
+    void add(AssignmentCall assignmentCall)
+    {
+        assignmentCalls.add(assignmentCall);
+    }
+
+    /**
+     * @param methodCall a method call that was parsed.
+     */
+    void add(MethodCall methodCall)
+    {
+        methodCalls.add(methodCall);
+    }
+
+    /**
+     * @return the assignments that were not yet known to pass, in the order they were parsed in.
+     */
+    List<AssignmentCall> getAssignmentCalls()
+    {
+        return assignmentCalls;
+    }
+
+    /**
+     * @return the method calls that were not yet known to pass, in the order they were parsed in.
+     */
+    List<MethodCall> getMethodCalls()
+    {
+        return methodCalls;
+    }
+
+    /**
+     * Settles the checks that were added since the last time, once the top level scope they were made in has
+     * closed, and runs or subscribes every one of them.
+     */
+    void settle()
+    {
+        for (int i = settledAssignmentCalls; i < assignmentCalls.size(); i++)
+            settle(assignmentCalls.get(i));
+        settledAssignmentCalls = assignmentCalls.size();
+        for (int i = settledMethodCalls; i < methodCalls.size(); i++)
+            settle(methodCalls.get(i));
+        settledMethodCalls = methodCalls.size();
+        if (passedChecks > (assignmentCalls.size() + methodCalls.size()) * MAX_PASSED_RATIO)
+            dropPassed();
+    }
+
+    /**
+     * Runs the checks that wait for the given symbol, now that a method or a global variable was declared with
+     * it. A check that still waits for something else subscribes to it instead.
+     * @param symbol the symbol id of the declared name.
+     */
+    void resolve(int symbol)
+    {
+        if (symbol >= waiting.length || waiting[symbol] == null)
+            return;
+        ArrayList<DeferredCheck> checks = waiting[symbol];
+        waiting[symbol] = null;
+        for (DeferredCheck check : checks)
+            schedule(check);
+    }
+
+    /**
+     * @param check a check whose top level scope has closed.
+     */
+    private void settle(DeferredCheck check)
+    {
+        check.settle();
+        schedule(check);
+    }
+
+    /**
+     * Runs a settled check if its result is known for good, or subscribes it to what it waits for.
+     * @param check the check.
+     */
+    private void schedule(DeferredCheck check)
+    {
+        int symbol = check.dependency();
+        if (symbol == DeferredCheck.READY) {
+            if (check.decide())
+                passedChecks++;
+        }
+        else if (symbol != DeferredCheck.END_OF_FILE) {
+            if (symbol >= waiting.length)
+                waiting = Arrays.copyOf(waiting, Math.max(waiting.length * 2, symbol + 1));
+            if (waiting[symbol] == null)
+                waiting[symbol] = new ArrayList<>();
+            waiting[symbol].add(check);
+        }
+    }
+
+    /**
+     * Removes the checks that passed from the lists. Only settled checks are ever run, so the unsettled checks
+     * at the end of the lists stay where they are.
+     */
+    private void dropPassed()
+    {
+        assignmentCalls.removeIf(DeferredCheck::passed);
+        settledAssignmentCalls = assignmentCalls.size();
+        methodCalls.removeIf(DeferredCheck::passed);
+        settledMethodCalls = methodCalls.size();
+        passedChecks = 0;
+    }
+
+    /**
+     * @param capacity the number of symbols.
+     * @return an empty table of the checks waiting for every symbol.
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayList<DeferredCheck>[] newWaitingTable(int capacity)
+    {
+        return (ArrayList<DeferredCheck>[]) new ArrayList<?>[capacity];
+    }
+}
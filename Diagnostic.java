@@ -0,0 +1,139 @@
+package oop.ex6.parser;
+
+import java.util.List;
+
+/**
+ * A single error that was found while validating a file - where it was found, the name of the exception that
+ * reported it and its message. Errors that are found once the whole file has been read, such as calls to
+ * methods that don't exist, are reported at the statement they were deferred from.
+ * Warnings, such as blocks that can never run, are diagnostics too, named by the kind of the warning rather than
+ * by an exception.
+ */
+public class Diagnostic {
+
+    private final static String IN_LINE = " in line ";
+    private final static String COLUMN = ", column ";
+
+    private final int line;
+    private final int column;
+    private final String exception;
+    private final String message;
+
+    /**
+     * The diagnostic constructor.
+     * @param line the line of the error, starting from 1.
+     * @param column the column of the statement the error was found in, starting from 1.
+     * @param exception the simple name of the exception class that reported the error, or the kind of a warning.
+     * @param message the error message.
+     */
+    public Diagnostic(int line, int column, String exception, String message)
+    {
+        this.line = line;
+        this.column = column;
+        this.exception = exception;
+        this.message = message;
+    }
+
+    /**
+     * @param line the line of the error, starting from 1.
+     * @param column the column of the statement the error was found in, starting from 1.
+     * @param exception the exception that reported the error.
+     * @return a diagnostic of the exception.
+     */
+    static Diagnostic of(int line, int column, Exception exception)
+    {
+        return new Diagnostic(line, column, exception.getClass().getSimpleName(), exception.getMessage());
+    }
+
+    /**
+     * @return the line of the error, starting from 1.
+     */
+    public int getLine()
+    {
+        return line;
+    }
+
+    /**
+     * @return the column of the statement the error was found in, starting from 1.
+     */
+    public int getColumn()
+    {
+        return column;
+    }
+
+    /**
+     * @return the simple name of the exception class that reported the error.
+     */
+    public String getException()
+    {
+        return exception;
+    }
+
+    /**
+     * @return the error message.
+     */
+    public String getMessage()
+    {
+        return message;
+    }
+
+    /**
+     * @return the diagnostic as a JSON object.
+     */
+    public String toJson()
+    {
+        return "{\"line\":" + line + ",\"column\":" + column + ",\"exception\":" + quote(exception) +
+                ",\"message\":" + quote(message) + "}";
+    }
+
+    /**
+     * @param diagnostics a list of diagnostics.
+     * @return the diagnostics as a JSON array.
+     */
+    public static String toJson(List<Diagnostic> diagnostics)
+    {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < diagnostics.size(); i++) {
+            if (i > 0)
+                json.append(',');
+            json.append(diagnostics.get(i).toJson());
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * @param text a string, or null.
+     * @return the string as a JSON string literal, or null as a JSON null.
+     */
+    public static String quote(String text)
+    {
+        if (text == null)
+            return "null";
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if (c == '\n')
+                json.append("\\n");
+            else if (c == '\r')
+                json.append("\\r");
+            else if (c == '\t')
+                json.append("\\t");
+            else if (c < ' ')
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * @return the diagnostic in the form the validator prints errors in.
+     */
+    @Override
+    public String toString()
+    {
+        return message + IN_LINE + line + COLUMN + column;
+    }
+}
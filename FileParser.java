@@ -4,7 +4,15 @@ import oop.ex6.codeelements.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Parsers the lines into different types (where code will be sent for further examining)
@@ -12,69 +20,439 @@ import java.util.Scanner;
 public class FileParser {
 
     private final static String IN_LINE = " in line ";
-    private final static int CODE_IS_VALID = 0;
-    private final static int CODE_IS_INVALID = 1;
+    private final static String VOID = "void";
 
     /**
      * Parses the given file, and sends it to the line parser to make the line declaration.
      * @param file the file to parse
+     * @param mode the way the file is validated
      * @throws IOException throws all the possible exceptions
      */
-    public static void parseFile(File file) throws IOException
+    public static void parseFile(File file, ValidationMode mode) throws IOException
+    {
+        print(validateFile(file, mode));
+    }
+
+    /**
+     * Parses the code read from the given stream, such as the standard input, and prints the result as
+     * parseFile does. The code is validated as it is read, without keeping it.
+     * @param input the stream to read, in the default charset. It is read to its end, but not closed.
+     * @throws IOException when the stream could not be read
+     */
+    public static void parseInput(InputStream input) throws IOException
+    {
+        print(validate(input));
+    }
+
+    /**
+     * Prints the result of a validation - the error, if there is one, and the result code.
+     * @param result the result to print
+     */
+    private static void print(ValidationResult result)
+    {
+        if (result.getCode() == ValidationResult.CODE_IS_INVALID)
+            System.err.println(result.getMessage() + IN_LINE + result.getLine());
+        System.out.println(result.getCode());
+    }
+
+    /**
+     * Validates the given file in a compilation of its own, without printing anything.
+     * @param file the file to validate
+     * @param mode the way the file is validated
+     * @return the result of the validation
+     * @throws IOException when the file could not be read
+     */
+    public static ValidationResult validateFile(File file, ValidationMode mode) throws IOException
+    {
+        return mode.validate(file);
+    }
+
+    /**
+     * Validates the given file, and compiles it to a class file if it is valid (see {@link BytecodeGenerator}).
+     * The class is named after the file, and written to the given directory.
+     * @param file the file to compile
+     * @param directory the directory the class file is written to
+     * @return the result of the validation, or an invalid result for valid code that can't be compiled
+     * @throws IOException when the file could not be read, or the class file could not be written
+     */
+    public static ValidationResult compileFile(File file, File directory) throws IOException
+    {
+        ValidationResult result = validateFile(file, ValidationMode.SEQUENTIAL);
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            return result;
+        List<String> lines = readLines(file);
+        String className = BytecodeGenerator.className(file.getName());
+        BytecodeGenerator generator = new BytecodeGenerator(lines, className);
+        try {
+            Files.write(new File(directory, className + ".class").toPath(), generator.generate());
+            return result;
+        }
+        catch (ParserException e) {
+            return ValidationResult.invalid(e.getMessage(), generator.getLineNumber());
+        }
+    }
+
+    /**
+     * Compiles the given file as compileFile does, and prints the result as parseFile does.
+     * @param file the file to compile
+     * @param directory the directory the class file is written to
+     * @throws IOException when the file could not be read, or the class file could not be written
+     */
+    public static void parseAndCompileFile(File file, File directory) throws IOException
+    {
+        print(compileFile(file, directory));
+    }
+
+    /**
+     * Validates the given file, and runs it in the process if it is valid (see {@link Interpreter}) - its global
+     * code, and then the given method. The values of the global variables are printed once it ran, followed by
+     * the result as parseFile prints it.
+     * @param file the file to run
+     * @param methodName the name of a method that takes no parameters, or null to only run the global code
+     * @throws IOException when the file could not be read
+     */
+    public static void parseAndRunFile(File file, String methodName) throws IOException
+    {
+        ValidationResult result = validateFile(file, ValidationMode.SEQUENTIAL);
+        if (result.getCode() == ValidationResult.CODE_IS_VALID) {
+            Interpreter interpreter = new Interpreter(readLines(file));
+            try {
+                interpreter.resolve();
+                interpreter.run(methodName);
+                for (Map.Entry<String, String> global : interpreter.getGlobals().entrySet())
+                    System.out.println(global.getKey() + " = " + global.getValue());
+            }
+            catch (ParserException e) {
+                result = ValidationResult.invalid(e.getMessage(), interpreter.getLineNumber());
+            }
+        }
+        print(result);
+    }
+
+    /**
+     * @param file a file.
+     * @return all the lines of the file.
+     * @throws IOException when the file could not be read
+     */
+    static List<String> readLines(File file) throws IOException
+    {
+        ArrayList<String> lines = new ArrayList<>();
+        try (LineReader reader = new LineReader(file)) {
+            String text;
+            while ((text = reader.readLine()) != null)
+                lines.add(text);
+        }
+        return lines;
+    }
+
+    /**
+     * Validates the code read from the given stream in a compilation of its own, as it is read.
+     * @param input the stream to read, in the default charset. It is read to its end, but not closed.
+     * @return the result of the validation
+     * @throws IOException when the stream could not be read
+     */
+    public static ValidationResult validate(InputStream input) throws IOException
+    {
+        return validate(new LineReader(input, Charset.defaultCharset()));
+    }
+
+    /**
+     * Validates the code read from the given channel in a compilation of its own, as it is read.
+     * @param channel the channel to read, in the default charset. It is read to its end, but not closed.
+     * @return the result of the validation
+     * @throws IOException when the channel could not be read
+     */
+    public static ValidationResult validate(ReadableByteChannel channel) throws IOException
+    {
+        return validate(new LineReader(channel, Charset.defaultCharset()));
+    }
+
+    /**
+     * Validates the code read from the given reader in a compilation of its own, as it is read.
+     * @param input the reader to read. It is read to its end, but not closed.
+     * @return the result of the validation
+     * @throws IOException when the reader could not be read
+     */
+    public static ValidationResult validate(Reader input) throws IOException
+    {
+        return validate(new LineReader(input));
+    }
+
+    /**
+     * Validates the lines of the given reader in a compilation of its own, without printing anything.
+     * The lines are read and parsed one at a time, and checks that depend on code further down the file are
+     * deferred to its end, so the code is never kept in memory - only what it declares.
+     * @param reader the reader of the code to validate
+     * @return the result of the validation
+     * @throws IOException when the code could not be read
+     */
+    public static ValidationResult validate(LineReader reader) throws IOException
+    {
+        return validate(reader, false);
+    }
+
+    /**
+     * Validates the lines of the given reader as {@link #validate(LineReader)} does, optionally skipping the
+     * code that can never run - the bodies of if and while blocks whose conditions are always false, since they
+     * only read literals and final variables declared with them. Only the scopes of that code are followed, so
+     * errors in it are not found, and the file may be valid although it isn't when it is validated in full.
+     * @param reader the reader of the code to validate
+     * @param skipUnreachable true to skip the code that can never run
+     * @return the result of the validation
+     * @throws IOException when the code could not be read
+     */
+    public static ValidationResult validate(LineReader reader, boolean skipUnreachable) throws IOException
     {
         int lineCount = 1;
         try {
-            Scanner scan = new Scanner(file);
-            // declaration of root scope
-            Scope root = new Scope(null,false);
+            CompilationContext context = new CompilationContext();
+            context.setSkipUnreachable(skipUnreachable);
             boolean prevLineIsReturn = false;
-            Scope currentScope = root;
-            while (scan.hasNextLine()) {
-                String line = scan.nextLine().trim();
-                LineType type = LineType.chooseLineType(line);
-                if (type == LineType.CONDITION)
-                    currentScope = new Scope(currentScope,false);
-                else if (type == LineType.METHOD_SIGNATURE)
-                    currentScope = new Scope (currentScope,true);
-                else if (type == LineType.CLOSE_SCOPE) {
-                    if (!prevLineIsReturn && currentScope.isMethodScope())
-                        throw new InvalidMethodException();
-                    currentScope = currentScope.getOuterScope();
-                }
-                if (type == LineType.RETURN)
-                    prevLineIsReturn= true;
-                else
-                    prevLineIsReturn = false;
-                type.parse(line,currentScope);
-                lineCount++;
+            Scope currentScope = context.getRootScope();
+            TokenizedLine line = new TokenizedLine();
+            String text;
+            while ((text = reader.readLine()) != null) {
+                lineCount = reader.getLineNumber();
+                Lexer.tokenize(text, line);
+                context.setPosition(lineCount, statementColumn(line));
+                LineType type = chooseLineType(line);
+                currentScope = parseLine(line, type, currentScope, prevLineIsReturn);
+                prevLineIsReturn = type == LineType.RETURN;
             }
-            AssignmentCall.verifyAll();
-            MethodCall.verifyAll();
-            resetAllMutables();
-            System.out.println(CODE_IS_VALID);
+            lineCount = reader.getLineNumber() + 1;
+            verifyDeferred(context);
+            return ValidationResult.valid();
         }
         catch (ParserException | CodeElementsException e) {
-            System.err.println(e.getMessage() + IN_LINE + lineCount);
-            resetAllMutables();
-            System.out.println(CODE_IS_INVALID);
+            return ValidationResult.invalid(e.getMessage(), lineCount);
         }
     }
 
     /**
-     * resets all the static methods.
+     * Validates the given file in a compilation of its own, collecting all its errors.
+     * @param file the file to validate
+     * @return the errors that were found, by their order in the file - empty for a valid file
+     * @throws IOException when the file could not be read
      */
-    private static void resetAllMutables()
+    public static List<Diagnostic> diagnoseFile(File file) throws IOException
     {
-        Method.resetAllMethods();
-        AssignmentCall.resetAll();
-        MethodCall.resetAll();
-        Scope.resetRoot();
+        try (LineReader reader = new LineReader(file)) {
+            return diagnose(reader);
+        }
     }
 
+    /**
+     * Validates the lines of the given reader in a compilation of its own, collecting all their errors. Rather
+     * than stopping at the first error, the line it was found in is skipped - though the scope it opens or
+     * closes still is - and parsing goes on from the next line. Errors that follow from a skipped line, such as
+     * uses of a variable whose declaration failed, are reported too.
+     * @param reader the reader of the code to validate
+     * @return the errors that were found, by their order in the file - empty for valid code
+     * @throws IOException when the code could not be read
+     */
+    public static List<Diagnostic> diagnose(LineReader reader) throws IOException
+    {
+        return diagnose(reader, null, false);
+    }
 
+    /**
+     * Validates the lines of the given reader as {@link #diagnose(LineReader)} does, and also collects the
+     * warnings of {@link DeadCodeAnalysis} - blocks that can never run, and loops that can never end.
+     * @param reader the reader of the code to validate
+     * @param warnings the list the warnings are added to, by their order in the file, or null
+     * @param skipUnreachable true to skip the code that can never run, rather than collect its errors (see
+     * {@link #validate(LineReader, boolean)})
+     * @return the errors that were found, by their order in the file - empty for valid code
+     * @throws IOException when the code could not be read
+     */
+    public static List<Diagnostic> diagnose(LineReader reader, List<Diagnostic> warnings, boolean skipUnreachable)
+            throws IOException
+    {
+        ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+        CompilationContext context = new CompilationContext();
+        context.setSkipUnreachable(skipUnreachable);
+        boolean prevLineIsReturn = false;
+        Scope currentScope = context.getRootScope();
+        TokenizedLine line = new TokenizedLine();
+        String text;
+        while ((text = reader.readLine()) != null) {
+            Lexer.tokenize(text, line);
+            int column = statementColumn(line);
+            context.setPosition(reader.getLineNumber(), column);
+            LineType type = null;
+            try {
+                type = chooseLineType(line);
+                currentScope = parseLine(line, type, currentScope, prevLineIsReturn);
+            }
+            catch (ParserException | CodeElementsException e) {
+                diagnostics.add(Diagnostic.of(reader.getLineNumber(), column, e));
+                currentScope = recoverScope(line, type, currentScope);
+            }
+            prevLineIsReturn = type == LineType.RETURN;
+        }
+        if (ValidationMetrics.ENABLED)
+            countDeferred(context);
+        long start = ValidationMetrics.ENABLED ? System.nanoTime() : 0;
+        AssignmentCall.verifyAll(context, diagnostics);
+        if (ValidationMetrics.ENABLED) {
+            ValidationMetrics.time(ValidationMetrics.Phase.VERIFY_ASSIGNMENTS, start);
+            start = System.nanoTime();
+        }
+        MethodCall.verifyAll(context, diagnostics);
+        if (ValidationMetrics.ENABLED)
+            ValidationMetrics.time(ValidationMetrics.Phase.VERIFY_METHOD_CALLS, start);
+        diagnostics.sort(Comparator.comparingInt(Diagnostic::getLine));
+        if (warnings != null) {
+            // a loop that never ends is only warned about once it closes
+            context.getWarnings().sort(Comparator.comparingInt(Diagnostic::getLine));
+            warnings.addAll(context.getWarnings());
+        }
+        return diagnostics;
+    }
 
+    /**
+     * Runs the deferred checks of a compilation, up to the first one that fails.
+     * @param context the compilation whose checks are run
+     * @throws ParserException for a call of a method that doesn't exist
+     * @throws CodeElementsException for a check that failed
+     */
+    static void verifyDeferred(CompilationContext context) throws ParserException, CodeElementsException
+    {
+        if (!ValidationMetrics.ENABLED) {
+            AssignmentCall.verifyAll(context);
+            MethodCall.verifyAll(context);
+            return;
+        }
+        countDeferred(context);
+        long start = System.nanoTime();
+        AssignmentCall.verifyAll(context);
+        ValidationMetrics.time(ValidationMetrics.Phase.VERIFY_ASSIGNMENTS, start);
+        start = System.nanoTime();
+        MethodCall.verifyAll(context);
+        ValidationMetrics.time(ValidationMetrics.Phase.VERIFY_METHOD_CALLS, start);
+    }
 
-}
+    /**
+     * Adds the number of deferred checks of a compilation to the metrics.
+     * @param context the compilation whose checks are about to run
+     */
+    private static void countDeferred(CompilationContext context)
+    {
+        ValidationMetrics.size(ValidationMetrics.Size.DEFERRED_CHECKS,
+                context.getAssignmentCalls().size() + context.getMethodCalls().size());
+    }
 
+    /**
+     * Chooses the type of a line, timing it when the metrics are collected.
+     * @param line the tokens of the line
+     * @return the type of the line
+     * @throws InvalidSyntaxException when the line has no type
+     */
+    static LineType chooseLineType(TokenizedLine line) throws InvalidSyntaxException
+    {
+        if (!ValidationMetrics.ENABLED)
+            return LineType.chooseLineType(line);
+        long start = System.nanoTime();
+        try {
+            return LineType.chooseLineType(line);
+        }
+        finally {
+            ValidationMetrics.time(ValidationMetrics.Phase.CLASSIFY, start);
+        }
+    }
+
+    /**
+     * @param line the tokens of a line
+     * @return the column the statement of the line starts at, starting from 1
+     */
+    static int statementColumn(TokenizedLine line)
+    {
+        return line.size() == 0 ? 1 : line.start(0) + 1;
+    }
+
+    /**
+     * Finds the scope of the line after a line that failed, so the scopes stay balanced - a line that should
+     * have opened a scope opens it, and a line that should have closed one closes it.
+     * @param line the tokens of the line that failed
+     * @param type the type of the line, or null if it has none
+     * @param currentScope the scope the line is in
+     * @return the scope of the next line
+     */
+    private static Scope recoverScope(TokenizedLine line, LineType type, Scope currentScope)
+    {
+        if (type == LineType.CLOSE_SCOPE)
+            return currentScope.isRoot() ? currentScope : currentScope.getOuterScope();
+        if (type == LineType.CONDITION || type == LineType.METHOD_SIGNATURE ||
+                (type == null && line.is(line.size() - 1, TokenKind.OPEN_SCOPE)))
+            return new Scope(currentScope, type == LineType.METHOD_SIGNATURE || line.isWord(0, VOID));
+        return currentScope;
+    }
 
+    /**
+     * Parses a single line, opening and closing scopes as the type of the line requires, and
+     * adding it to the metrics when they are collected.
+     * @param line the tokens of the line
+     * @param type the type of the line
+     * @param currentScope the scope the line is in
+     * @param prevLineIsReturn true if the previous line was a return statement
+     * @return the scope of the next line
+     * @throws ParserException for syntax errors in the line
+     * @throws CodeElementsException for errors in the code elements of the line
+     */
+    static Scope parseLine(TokenizedLine line, LineType type, Scope currentScope, boolean prevLineIsReturn)
+            throws ParserException, CodeElementsException
+    {
+        if (!ValidationMetrics.ENABLED)
+            return parseScopedLine(line, type, currentScope, prevLineIsReturn);
+        ValidationMetrics.countLine(type);
+        if (type == LineType.CLOSE_SCOPE)
+            ValidationMetrics.size(ValidationMetrics.Size.SCOPE_VARIABLES, currentScope.getVariableCount());
+        long start = System.nanoTime();
+        try {
+            Scope nextScope = parseScopedLine(line, type, currentScope, prevLineIsReturn);
+            if (type == LineType.CONDITION || type == LineType.METHOD_SIGNATURE)
+                ValidationMetrics.size(ValidationMetrics.Size.SCOPE_DEPTH, nextScope.getDepth());
+            return nextScope;
+        }
+        finally {
+            ValidationMetrics.time(ValidationMetrics.Phase.PARSE, start);
+        }
+    }
 
+    /**
+     * Parses a single line, opening and closing scopes as the type of the line requires.
+     * @param line the tokens of the line
+     * @param type the type of the line
+     * @param currentScope the scope the line is in
+     * @param prevLineIsReturn true if the previous line was a return statement
+     * @return the scope of the next line
+     * @throws ParserException for syntax errors in the line
+     * @throws CodeElementsException for errors in the code elements of the line
+     */
+    private static Scope parseScopedLine(TokenizedLine line, LineType type, Scope currentScope,
+                                         boolean prevLineIsReturn) throws ParserException, CodeElementsException
+    {
+        if (type == LineType.CONDITION)
+            currentScope = new Scope(currentScope,false);
+        else if (type == LineType.METHOD_SIGNATURE)
+            currentScope = new Scope (currentScope,true);
+        else if (type == LineType.CLOSE_SCOPE) {
+            if (currentScope.isRoot())
+                throw new InvalidScopeException();
+            if (!prevLineIsReturn && currentScope.isMethodScope())
+                throw new InvalidMethodException();
+            CompilationContext context = currentScope.getContext();
+            DeadCodeAnalysis.analyzeClose(currentScope);
+            currentScope = currentScope.getOuterScope();
+            if (currentScope.isRoot())
+                context.closeTopLevelScope();
+        }
+        else if (type == LineType.RETURN)
+            DeadCodeAnalysis.analyzeReturn(currentScope);
+        // code that can never run is only followed for its scopes, if the compilation asked for that
+        if (currentScope.isUnreachable() && currentScope.getContext().skipsUnreachable())
+            return currentScope;
+        type.parse(line,currentScope);
+        return currentScope;
+    }
+}
@@ -0,0 +1,117 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Measures how much memory the file parser needs for a large synthetic file - the bytes it allocates per line,
+ * and the most heap that is live at any point of the validation. The live heap is sampled by collecting the
+ * garbage every given number of lines and reading the used heap right after, in a run of its own, since the
+ * collections slow the validation down; the allocated bytes are measured in a run without them.
+ * Usage: HeapBenchmark [lines] [sampled lines]
+ */
+public class HeapBenchmark {
+
+    private final static int DEFAULT_LINES = 1000000;
+    private final static int DEFAULT_SAMPLED_LINES = 100000;
+    private final static long SEED = 1;
+    private final static double BYTES_PER_MEGABYTE = 1 << 20;
+    private final static double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * A reader that samples the live heap whenever a given number of lines has passed through it.
+     */
+    private static class SamplingReader extends FilterReader {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final int sampledLines;
+        private int lines;
+        private long peak;
+
+        /**
+         * @param in the reader of the file.
+         * @param sampledLines the number of lines between samples.
+         */
+        private SamplingReader(Reader in, int sampledLines)
+        {
+            super(in);
+            this.sampledLines = sampledLines;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException
+        {
+            int read = super.read(buffer, offset, length);
+            for (int i = offset; i < offset + read; i++) {
+                if (buffer[i] == '\n' && ++lines % sampledLines == 0)
+                    sample();
+            }
+            return read;
+        }
+
+        /**
+         * Collects the garbage and keeps the used heap if it is the most so far.
+         */
+        private void sample()
+        {
+            System.gc();
+            peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of lines of the synthetic file, and the number of lines between samples
+     * of the live heap.
+     * @throws IOException when the synthetic file could not be written or read.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        int sampledLines = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLED_LINES;
+        File file = File.createTempFile("heap", ".sjava");
+        file.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            lines = CorpusGenerator.valid(SEED, lines).generate(writer);
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // warm up, so the measured run allocates for the validation rather than for class loading
+        validate(new FileReader(file));
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        validate(new FileReader(file));
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        System.gc();
+        long baseline = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        SamplingReader sampler = new SamplingReader(new FileReader(file), sampledLines);
+        validate(sampler);
+        System.out.printf("%d lines in %.2f s: %.1f bytes allocated per line, %.1f MB allocated%n", lines, seconds,
+                (double) allocated / lines, allocated / BYTES_PER_MEGABYTE);
+        System.out.printf("live heap: %.1f MB at most while validating, %.1f MB before%n",
+                sampler.peak / BYTES_PER_MEGABYTE, baseline / BYTES_PER_MEGABYTE);
+    }
+
+    /**
+     * Validates a file, failing the benchmark if the file is not valid.
+     * @param reader the reader of the file.
+     * @throws IOException when the file could not be read.
+     */
+    private static void validate(Reader reader) throws IOException
+    {
+        try (Reader input = reader) {
+            ValidationResult result = FileParser.validate(input);
+            if (result.getCode() != ValidationResult.CODE_IS_VALID)
+                throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.IncrementalValidator;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the time of validating a whole file with the time of validating it again after a single line edit
+ * inside one of its methods.
+ * Usage: IncrementalBenchmark [methods] [edits]
+ */
+public class IncrementalBenchmark {
+
+    private final static int DEFAULT_METHODS = 2800;
+    private final static int DEFAULT_EDITS = 20000;
+    private final static int FULL_RUNS = 10;
+    private final static double NANOS_PER_MICRO = 1e3;
+    private final static String[] EDITS = {"a = 7;", "a = 8;"};
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of methods in the synthetic file, and the number of measured edits.
+     * @throws IOException when the synthetic file could not be written.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_METHODS;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_EDITS;
+        File file = File.createTempFile("incremental", ".sjava");
+        file.deleteOnExit();
+        ParseThroughputBenchmark.writeSyntheticFile(file, methods);
+        List<String> lines = Files.readAllLines(file.toPath());
+        int editedLine = 0;
+        while (!lines.get(editedLine).trim().equals(EDITS[0]))
+            editedLine++;
+        IncrementalValidator validator = null;
+        for (int i = 0; i < FULL_RUNS; i++)
+            validator = new IncrementalValidator(lines);
+        long start = System.nanoTime();
+        for (int i = 0; i < FULL_RUNS; i++)
+            validator = new IncrementalValidator(lines);
+        double fullMicros = (System.nanoTime() - start) / NANOS_PER_MICRO / FULL_RUNS;
+        for (int i = 0; i < edits; i++)
+            edit(validator, editedLine, i);
+        start = System.nanoTime();
+        for (int i = 0; i < edits; i++)
+            edit(validator, editedLine, i);
+        double editMicros = (System.nanoTime() - start) / NANOS_PER_MICRO / edits;
+        System.out.printf("%d lines: full validation %.0f us, single line edit %.1f us%n", lines.size(),
+                fullMicros, editMicros);
+    }
+
+    /**
+     * Replaces a single line of the file, failing the benchmark if the file becomes invalid.
+     * @param validator the validator of the file.
+     * @param line the index of the edited line.
+     * @param edit the number of the edit.
+     */
+    private static void edit(IncrementalValidator validator, int line, int edit)
+    {
+        ValidationResult result = validator.replaceLines(line, 1,
+                Collections.singletonList(EDITS[edit % EDITS.length]));
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+    }
+}
@@ -0,0 +1,377 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a file validated while it is being edited. The file is split into the global code and its top level
+ * methods, and every method is validated against the global scope and the method table in a context of its
+ * own - a method body can only depend on globals and method signatures. When an edit stays inside the body of
+ * a single method and keeps its scopes balanced, only that method and its own deferred checks are validated
+ * again; any other edit validates the whole file.
+ * A method is validated against the global scope as it is where the method is declared, as it is when the file
+ * is validated line by line, so the global code is validated in order and every method when it is reached. Only
+ * the global scope at the end of the file is kept, so an edit inside a method is only validated on its own if
+ * no global code comes after the method.
+ */
+public class IncrementalValidator {
+
+    private final static int NO_LINE = Integer.MAX_VALUE;
+
+    /**
+     * A top level method - the lines from its signature to its closing scope, and what was found when they
+     * were last validated.
+     */
+    private static class MethodSegment {
+        private int start;
+        private int end;
+        private boolean closed;
+        private Scope scope;
+        private CompilationContext context;
+        private String errorMessage;
+        private int errorLine = NO_LINE;
+        private DeferredErrors deferredErrors;
+    }
+
+    /**
+     * The first failed deferred checks of a context, of each kind, or null for a kind whose checks all passed.
+     * When the file is validated line by line, the assignments are checked before the method calls, each by
+     * their order in the file.
+     */
+    private static class DeferredErrors {
+        private Diagnostic assignment;
+        private Diagnostic methodCall;
+    }
+
+    private final ArrayList<String> lines;
+    private final ArrayList<LineType> types = new ArrayList<>();
+    private ArrayList<MethodSegment> methods = new ArrayList<>();
+    private CompilationContext context;
+    private String globalErrorMessage;
+    private int globalErrorLine = NO_LINE;
+    private int lastGlobalLine;
+    private DeferredErrors globalDeferredErrors;
+    private ValidationResult result;
+
+    /**
+     * Validates the given lines.
+     * @param lines the lines of the file.
+     */
+    public IncrementalValidator(List<String> lines)
+    {
+        this.lines = new ArrayList<>(lines);
+        for (String line : this.lines)
+            types.add(classify(line));
+        validateAll();
+    }
+
+    /**
+     * @return the result of validating the current lines.
+     */
+    public ValidationResult getResult()
+    {
+        return result;
+    }
+
+    /**
+     * @return the number of lines in the file.
+     */
+    public int getLineCount()
+    {
+        return lines.size();
+    }
+
+    /**
+     * Replaces a range of lines, and validates again what the edit could have changed.
+     * @param start the index of the first replaced line, starting from 0.
+     * @param count the number of replaced lines.
+     * @param newLines the lines that replace them.
+     * @return the result of validating the edited file.
+     */
+    public ValidationResult replaceLines(int start, int count, List<String> newLines)
+    {
+        if (start < 0 || count < 0 || start + count > lines.size())
+            throw new IndexOutOfBoundsException("Invalid line range " + start + "+" + count);
+        ArrayList<LineType> newTypes = new ArrayList<>();
+        for (String line : newLines)
+            newTypes.add(classify(line));
+        int methodIndex = findEnclosingMethod(start, count);
+        boolean incremental = methodIndex >= 0 && methods.get(methodIndex).start > lastGlobalLine &&
+                isBalanced(types.subList(start, start + count)) &&
+                isBalanced(newTypes);
+        lines.subList(start, start + count).clear();
+        lines.addAll(start, newLines);
+        types.subList(start, start + count).clear();
+        types.addAll(start, newTypes);
+        if (!incremental) {
+            validateAll();
+            return result;
+        }
+        int delta = newLines.size() - count;
+        MethodSegment method = methods.get(methodIndex);
+        method.end += delta;
+        if (delta != 0) {
+            for (int i = methodIndex + 1; i < methods.size(); i++) {
+                MethodSegment other = methods.get(i);
+                other.start += delta;
+                other.end += delta;
+                if (other.errorLine != NO_LINE)
+                    other.errorLine += delta;
+            }
+            if (globalErrorLine != NO_LINE && globalErrorLine > start)
+                globalErrorLine += delta;
+        }
+        validateMethod(method);
+        verifyMethod(method);
+        result = collectResult();
+        return result;
+    }
+
+    /**
+     * @param start the index of the first edited line.
+     * @param count the number of edited lines.
+     * @return the index of the closed method whose body holds all the edited lines, or -1 if there is none.
+     */
+    private int findEnclosingMethod(int start, int count)
+    {
+        int low = 0, high = methods.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            MethodSegment method = methods.get(middle);
+            if (method.start >= start)
+                high = middle - 1;
+            else if (method.end <= start)
+                low = middle + 1;
+            else
+                return method.closed && start + count < method.end ? middle : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * @param lineTypes the types of a range of lines.
+     * @return true if the lines close every scope they open, never close a scope they didn't open, and
+     * declare no methods.
+     */
+    private static boolean isBalanced(List<LineType> lineTypes)
+    {
+        int depth = 0;
+        for (LineType type : lineTypes) {
+            if (type == LineType.METHOD_SIGNATURE)
+                return false;
+            if (type == LineType.CONDITION)
+                depth++;
+            else if (type == LineType.CLOSE_SCOPE && --depth < 0)
+                return false;
+        }
+        return depth == 0;
+    }
+
+    /**
+     * @param line a line of code.
+     * @return the type of the line, or null if it has no type.
+     */
+    private static LineType classify(String line)
+    {
+        try {
+            return LineType.chooseLineType(Lexer.tokenize(line));
+        }
+        catch (InvalidSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits the file into the global code and its top level methods, and validates all of them.
+     */
+    private void validateAll()
+    {
+        findMethods();
+        context = new CompilationContext();
+        validateInOrder();
+        globalDeferredErrors = verifyDeferred(context);
+        for (MethodSegment method : methods)
+            verifyMethod(method);
+        result = collectResult();
+    }
+
+    /**
+     * Finds the top level methods - method signatures outside of any scope, up to the scope that closes them.
+     */
+    private void findMethods()
+    {
+        methods = new ArrayList<>();
+        MethodSegment current = null;
+        int depth = 0;
+        for (int i = 0; i < types.size(); i++) {
+            LineType type = types.get(i);
+            if (current == null && depth == 0 && type == LineType.METHOD_SIGNATURE) {
+                current = new MethodSegment();
+                current.start = i;
+                depth = 1;
+                continue;
+            }
+            if (type == LineType.CONDITION || type == LineType.METHOD_SIGNATURE)
+                depth++;
+            else if (type == LineType.CLOSE_SCOPE && depth > 0)
+                depth--;
+            if (current != null && depth == 0) {
+                current.end = i + 1;
+                current.closed = true;
+                methods.add(current);
+                current = null;
+            }
+        }
+        if (current != null) {
+            current.end = types.size();
+            methods.add(current);
+        }
+    }
+
+    /**
+     * Validates the lines that are outside of the top level methods in order, up to the first error, and every
+     * method once it is reached - with the global scope as it is there.
+     */
+    private void validateInOrder()
+    {
+        globalErrorMessage = null;
+        globalErrorLine = NO_LINE;
+        lastGlobalLine = -1;
+        Scope currentScope = context.getRootScope();
+        boolean prevLineIsReturn = false;
+        int nextMethod = 0;
+        TokenizedLine line = new TokenizedLine();
+        for (int i = 0; i < lines.size(); i++) {
+            if (nextMethod < methods.size() && methods.get(nextMethod).start == i) {
+                validateMethod(methods.get(nextMethod));
+                i = methods.get(nextMethod++).end - 1;
+                continue;
+            }
+            if (types.get(i) != LineType.EMPTY_LINE && types.get(i) != LineType.COMMENT)
+                lastGlobalLine = i;
+            if (globalErrorMessage != null)
+                continue;
+            try {
+                Lexer.tokenize(lines.get(i), line);
+                context.setPosition(i + 1, FileParser.statementColumn(line));
+                LineType type = LineType.chooseLineType(line);
+                currentScope = FileParser.parseLine(line, type, currentScope, prevLineIsReturn);
+                prevLineIsReturn = type == LineType.RETURN;
+            }
+            catch (ParserException | CodeElementsException e) {
+                globalErrorMessage = e.getMessage();
+                globalErrorLine = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Validates the lines of a method, from its signature to its closing scope, up to the first error.
+     * @param method the method to validate.
+     */
+    private void validateMethod(MethodSegment method)
+    {
+        if (method.context != null)
+            method.context.removeDeclaredMethods();
+        method.context = context.fork();
+        method.scope = new Scope(context.getRootScope(), true, method.context);
+        method.errorMessage = null;
+        method.errorLine = NO_LINE;
+        TokenizedLine line = new TokenizedLine();
+        int i = method.start;
+        try {
+            Lexer.tokenize(lines.get(i), line);
+            method.context.setPosition(i + 1, FileParser.statementColumn(line));
+            LineType.chooseLineType(line).parse(line, method.scope);
+            Scope currentScope = method.scope;
+            boolean prevLineIsReturn = false;
+            for (i = method.start + 1; i < method.end; i++) {
+                Lexer.tokenize(lines.get(i), line);
+                method.context.setPosition(i + 1, FileParser.statementColumn(line));
+                LineType type = LineType.chooseLineType(line);
+                currentScope = FileParser.parseLine(line, type, currentScope, prevLineIsReturn);
+                prevLineIsReturn = type == LineType.RETURN;
+            }
+        }
+        catch (ParserException | CodeElementsException e) {
+            method.errorMessage = e.getMessage();
+            method.errorLine = i + 1;
+        }
+    }
+
+    /**
+     * Runs the deferred checks of a method.
+     * @param method the method whose checks are run.
+     */
+    private void verifyMethod(MethodSegment method)
+    {
+        method.deferredErrors = verifyDeferred(method.context);
+    }
+
+    /**
+     * Runs the deferred checks of a context.
+     * @param deferred the context whose checks are run.
+     * @return the first failed checks of the context.
+     */
+    private static DeferredErrors verifyDeferred(CompilationContext deferred)
+    {
+        DeferredErrors errors = new DeferredErrors();
+        ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+        AssignmentCall.verifyAll(deferred, diagnostics);
+        if (!diagnostics.isEmpty())
+            errors.assignment = diagnostics.get(0);
+        diagnostics.clear();
+        MethodCall.verifyAll(deferred, diagnostics);
+        if (!diagnostics.isEmpty())
+            errors.methodCall = diagnostics.get(0);
+        return errors;
+    }
+
+    /**
+     * @param global a failed check of the global code, or null.
+     * @param method the first failed check of the same kind in the methods, or null.
+     * @return the check that comes first in the file, or null if both are null. The lines of the checks of the
+     * methods after an edited one are not moved, but all of them come after the global code.
+     */
+    private static Diagnostic earliest(Diagnostic global, Diagnostic method)
+    {
+        if (global == null || (method != null && method.getLine() < global.getLine()))
+            return method;
+        return global;
+    }
+
+    /**
+     * Combines the errors of the global code and of the methods into the result of the file - the error in the
+     * earliest line, or if there is none, the first failed deferred check - of an assignment if any failed, and
+     * of a method call otherwise, as when the file is validated line by line.
+     * @return the result of the file.
+     */
+    private ValidationResult collectResult()
+    {
+        String message = globalErrorMessage;
+        int line = globalErrorLine;
+        for (MethodSegment method : methods) {
+            if (method.errorLine < line) {
+                message = method.errorMessage;
+                line = method.errorLine;
+            }
+        }
+        if (message != null)
+            return ValidationResult.invalid(message, line);
+        Diagnostic assignment = null, methodCall = null;
+        for (MethodSegment method : methods) {
+            if (assignment == null)
+                assignment = method.deferredErrors.assignment;
+            if (methodCall == null)
+                methodCall = method.deferredErrors.methodCall;
+        }
+        assignment = earliest(globalDeferredErrors.assignment, assignment);
+        methodCall = earliest(globalDeferredErrors.methodCall, methodCall);
+        Diagnostic deferred = assignment != null ? assignment : methodCall;
+        if (deferred != null)
+            return ValidationResult.invalid(deferred.getMessage(), lines.size() + 1);
+        return ValidationResult.valid();
+    }
+}
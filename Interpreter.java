@@ -0,0 +1,821 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.VariableType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a valid s-java file in the process, as an alternative to compiling it to a class file. The file is
+ * resolved once into a tree of statements, in which every variable is a (depth, slot) pair rather than a name -
+ * depth 0 is the frame of the global variables, and depth 1 the frame of the method that runs, which also holds
+ * the variables of its if and while blocks, since methods are not nested. Frames are arrays of primitives: an
+ * int, a boolean and a char are kept as a long, and a double as the raw bits of one, with a parallel array for
+ * strings. The frames of calls are taken from a single stack that only grows, so loops and calls run without
+ * allocating anything.
+ * Values are converted the way {@link BytecodeGenerator} converts them, so a file runs the same way in both.
+ * Since s-java has no operators, a loop only ends when a variable its condition reads is assigned, or when its
+ * method returns; a loop that runs for more iterations than the limit, or calls that nest too deep, stop the
+ * program.
+ * A final variable that is declared with a literal is read as that literal, and conditions are folded as they
+ * are resolved - operands that always hold are dropped, and so are groups that never do - so a block that can
+ * never run is left out, an if block that always runs is run without its condition, and a while loop whose
+ * condition always holds doesn't check it again.
+ */
+public class Interpreter {
+
+    /** The number of loop iterations a program runs for before it is stopped, unless it is given another. */
+    public final static long DEFAULT_ITERATION_LIMIT = 1000000000L;
+
+    private final static int GLOBAL = 0;
+    private final static int LOCAL = 1;
+    private final static int MAX_CALL_DEPTH = 1024;
+    private final static int INITIAL_STACK_SIZE = 256;
+
+    private final static int SAME = 0;
+    private final static int INT_TO_DOUBLE = 1;
+    private final static int INT_TO_BOOLEAN = 2;
+    private final static int DOUBLE_TO_BOOLEAN = 3;
+
+    /**
+     * A resolved variable - the frame it is in, and its slot in the frame - and the value of a final variable
+     * that is known once the file is resolved, which is read instead of the slot.
+     */
+    private static class Slot {
+        private final int depth;
+        private final int index;
+        private final VariableType type;
+        private Constant value;
+
+        /**
+         * @param depth GLOBAL or LOCAL.
+         * @param index the slot of the variable in its frame.
+         * @param type the type of the variable.
+         */
+        private Slot(int depth, int index, VariableType type)
+        {
+            this.depth = depth;
+            this.index = index;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A value that is read - a literal or a variable - already converted to the type it is read as.
+     */
+    private static abstract class Operand {
+
+        /**
+         * @param machine the interpreter that runs.
+         * @return the value of an int, a boolean or a char, or the raw bits of a double.
+         */
+        abstract long bits(Interpreter machine);
+
+        /**
+         * @param machine the interpreter that runs.
+         * @return the value of a string.
+         */
+        abstract String string(Interpreter machine);
+    }
+
+    /**
+     * A literal, whose value is known once the file is resolved.
+     */
+    private static class Constant extends Operand {
+        private final long bits;
+        private final String string;
+
+        /**
+         * @param bits the value of an int, a boolean or a char, or the raw bits of a double.
+         */
+        private Constant(long bits)
+        {
+            this.bits = bits;
+            this.string = null;
+        }
+
+        /**
+         * @param string the value of a string.
+         */
+        private Constant(String string)
+        {
+            this.bits = 0;
+            this.string = string;
+        }
+
+        @Override
+        long bits(Interpreter machine)
+        {
+            return bits;
+        }
+
+        @Override
+        String string(Interpreter machine)
+        {
+            return string;
+        }
+    }
+
+    /**
+     * A read of a variable, and the conversion of its value to the type it is read as.
+     */
+    private static class Load extends Operand {
+        private final Slot slot;
+        private final int conversion;
+
+        /**
+         * @param slot the variable.
+         * @param conversion SAME, or the conversion of the value.
+         */
+        private Load(Slot slot, int conversion)
+        {
+            this.slot = slot;
+            this.conversion = conversion;
+        }
+
+        @Override
+        long bits(Interpreter machine)
+        {
+            return convert(slot.depth == GLOBAL ? machine.globals[slot.index] :
+                    machine.stack[machine.base + slot.index], conversion);
+        }
+
+        @Override
+        String string(Interpreter machine)
+        {
+            return slot.depth == GLOBAL ? machine.globalStrings[slot.index] :
+                    machine.strings[machine.base + slot.index];
+        }
+    }
+
+    /**
+     * A statement of a method, or of the global code.
+     */
+    private static abstract class Statement {
+
+        /**
+         * @param machine the interpreter that runs.
+         * @return true if the statement returned from its method.
+         * @throws RunLimitException when the program went over a limit.
+         */
+        abstract boolean execute(Interpreter machine) throws RunLimitException;
+    }
+
+    /**
+     * An assignment of a value to a variable, or its declaration.
+     */
+    private static class Assignment extends Statement {
+        private final Slot target;
+        private final Operand value;
+
+        /**
+         * @param target the variable that is assigned.
+         * @param value the value, converted to the type of the variable.
+         */
+        private Assignment(Slot target, Operand value)
+        {
+            this.target = target;
+            this.value = value;
+        }
+
+        @Override
+        boolean execute(Interpreter machine)
+        {
+            int index = target.depth == GLOBAL ? target.index : machine.base + target.index;
+            if (target.type == VariableType.STRING) {
+                String[] strings = target.depth == GLOBAL ? machine.globalStrings : machine.strings;
+                strings[index] = value.string(machine);
+            }
+            else {
+                long[] values = target.depth == GLOBAL ? machine.globals : machine.stack;
+                values[index] = value.bits(machine);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A method, whose body is filled in once its lines are resolved.
+     */
+    private static class MethodBody {
+        private final VariableType[] parameters;
+        private Statement[] body;
+        private int frameSize;
+
+        /**
+         * @param parameters the types of the parameters, which take the first slots of the frame.
+         */
+        private MethodBody(VariableType[] parameters)
+        {
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * A call of a method, with its arguments converted to the types of its parameters.
+     */
+    private static class Call extends Statement {
+        private final MethodBody method;
+        private final Operand[] arguments;
+        private final int line;
+
+        /**
+         * @param method the method that is called.
+         * @param arguments the arguments.
+         * @param line the line of the call.
+         */
+        private Call(MethodBody method, Operand[] arguments, int line)
+        {
+            this.method = method;
+            this.arguments = arguments;
+            this.line = line;
+        }
+
+        @Override
+        boolean execute(Interpreter machine) throws RunLimitException
+        {
+            if (machine.callDepth == MAX_CALL_DEPTH) {
+                machine.lineNumber = line;
+                throw new RunLimitException("Calls are nested deeper than " + MAX_CALL_DEPTH);
+            }
+            int frame = machine.top;
+            machine.reserve(frame + method.frameSize);
+            for (int i = 0; i < arguments.length; i++) {
+                if (method.parameters[i] == VariableType.STRING)
+                    machine.strings[frame + i] = arguments[i].string(machine);
+                else
+                    machine.stack[frame + i] = arguments[i].bits(machine);
+            }
+            int callerBase = machine.base;
+            machine.base = frame;
+            machine.top = frame + method.frameSize;
+            machine.callDepth++;
+            run(method.body, machine);
+            machine.callDepth--;
+            machine.top = frame;
+            machine.base = callerBase;
+            return false;
+        }
+    }
+
+    /**
+     * An if or a while block. Its condition is in groups joined by ||, every one a run of operands joined by &&,
+     * each operand converted to a boolean.
+     */
+    private static class Block extends Statement {
+        private final Operand[][] condition;
+        private final boolean isLoop;
+        private final int line;
+        private Statement[] body;
+
+        /**
+         * @param condition the groups of the condition.
+         * @param isLoop true for a while block.
+         * @param line the line of the condition.
+         */
+        private Block(Operand[][] condition, boolean isLoop, int line)
+        {
+            this.condition = condition;
+            this.isLoop = isLoop;
+            this.line = line;
+        }
+
+        @Override
+        boolean execute(Interpreter machine) throws RunLimitException
+        {
+            if (!isLoop)
+                return holds(machine) && run(body, machine);
+            while (holds(machine)) {
+                if (++machine.iterations > machine.iterationLimit) {
+                    machine.lineNumber = line;
+                    throw new RunLimitException("A loop ran for more than " + machine.iterationLimit + " iterations");
+                }
+                if (run(body, machine))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * @param machine the interpreter that runs.
+         * @return true if the condition holds.
+         */
+        private boolean holds(Interpreter machine)
+        {
+            for (Operand[] group : condition) {
+                boolean holds = true;
+                for (int i = 0; holds && i < group.length; i++)
+                    holds = group[i].bits(machine) != 0;
+                if (holds)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A return from the method.
+     */
+    private static class Return extends Statement {
+        @Override
+        boolean execute(Interpreter machine)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * A scope that is open while the file is resolved - the body of a method, or an if or a while block - with
+     * the statements and the variables it has so far.
+     */
+    private static class OpenScope {
+        private final ArrayList<Statement> statements = new ArrayList<>();
+        private final HashMap<String, Slot> variables = new HashMap<>();
+        private final Block block;
+        private final int firstSlot;
+
+        /**
+         * @param block the if or the while block, or null for the body of a method.
+         * @param firstSlot the first slot of the variables of the scope, which are free again once it closes.
+         */
+        private OpenScope(Block block, int firstSlot)
+        {
+            this.block = block;
+            this.firstSlot = firstSlot;
+        }
+    }
+
+    private final List<String> lines;
+    private final LinkedHashMap<String, Slot> globalSlots = new LinkedHashMap<>();
+    private final HashMap<String, MethodBody> methods = new HashMap<>();
+    private final ArrayList<Statement> initializer = new ArrayList<>();
+    private final ArrayDeque<OpenScope> scopes = new ArrayDeque<>();
+    private final TokenizedLine line = new TokenizedLine();
+    private Statement[] globalCode;
+    private MethodBody method;
+    private int nextSlot;
+    private int lineNumber;
+
+    private long[] globals;
+    private String[] globalStrings;
+    private long[] stack = new long[INITIAL_STACK_SIZE];
+    private String[] strings = new String[INITIAL_STACK_SIZE];
+    private int base;
+    private int top;
+    private int callDepth;
+    private long iterations;
+    private long iterationLimit = DEFAULT_ITERATION_LIMIT;
+
+    /**
+     * @param lines the lines of a valid file.
+     */
+    public Interpreter(List<String> lines)
+    {
+        this.lines = lines;
+    }
+
+    /**
+     * @param limit the number of loop iterations a run may take, in all its loops together.
+     */
+    public void setIterationLimit(long limit)
+    {
+        this.iterationLimit = limit;
+    }
+
+    /**
+     * Resolves the file into statements, which is done once however many times it runs. The lines are read
+     * twice, as {@link BytecodeGenerator} reads them: first for the global variables and the method signatures,
+     * and then for the code.
+     * @throws ParserException when the file has code that can't be run.
+     */
+    public void resolve() throws ParserException
+    {
+        declare();
+        for (lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            Lexer.tokenize(lines.get(lineNumber - 1), line);
+            resolveLine(LineType.chooseLineType(line));
+        }
+        globalCode = initializer.toArray(new Statement[0]);
+        globals = new long[globalSlots.size()];
+        globalStrings = new String[globalSlots.size()];
+    }
+
+    /**
+     * Runs the global code of the resolved file from the start, and then a method of it, if one is given.
+     * @param methodName the name of a method that takes no parameters, or null to only run the global code.
+     * @throws ParserException when there is no such method, or the program went over a limit.
+     */
+    public void run(String methodName) throws ParserException
+    {
+        Arrays.fill(globals, 0);
+        Arrays.fill(globalStrings, null);
+        base = 0;
+        top = 0;
+        callDepth = 0;
+        iterations = 0;
+        lineNumber = 0;
+        run(globalCode, this);
+        if (methodName == null)
+            return;
+        MethodBody called = methods.get(methodName);
+        if (called == null || called.parameters.length > 0)
+            throw new UnsupportedCodeException("There is no method " + methodName + " without parameters");
+        new Call(called, new Operand[0], 0).execute(this);
+    }
+
+    /**
+     * @return the number of loop iterations the last run took.
+     */
+    public long getIterations()
+    {
+        return iterations;
+    }
+
+    /**
+     * @return the line that was being resolved when resolving the file failed, or the line of the loop or the
+     * call that went over a limit when running it, starting from 1 - 0 for a method that can't be called.
+     */
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    /**
+     * @return the values of the global variables after the last run, by their order in the file, written as
+     * s-java literals.
+     */
+    public Map<String, String> getGlobals()
+    {
+        LinkedHashMap<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Slot> global : globalSlots.entrySet()) {
+            Slot slot = global.getValue();
+            long value = globals[slot.index];
+            switch (slot.type) {
+                case INT:
+                    values.put(global.getKey(), String.valueOf((int) value));
+                    break;
+                case DOUBLE:
+                    values.put(global.getKey(), String.valueOf(Double.longBitsToDouble(value)));
+                    break;
+                case BOOLEAN:
+                    values.put(global.getKey(), String.valueOf(value != 0));
+                    break;
+                case CHAR:
+                    values.put(global.getKey(), "'" + (char) value + "'");
+                    break;
+                default:
+                    String string = globalStrings[slot.index];
+                    values.put(global.getKey(), string == null ? null : "\"" + string + "\"");
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Runs statements in order, up to a return.
+     * @param statements the statements.
+     * @param machine the interpreter that runs.
+     * @return true if a statement returned from its method.
+     * @throws RunLimitException when the program went over a limit.
+     */
+    private static boolean run(Statement[] statements, Interpreter machine) throws RunLimitException
+    {
+        for (Statement statement : statements) {
+            if (statement.execute(machine))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param value the value of an int, a boolean or a char, or the raw bits of a double.
+     * @param conversion SAME, or the conversion of the value.
+     * @return the converted value.
+     */
+    private static long convert(long value, int conversion)
+    {
+        switch (conversion) {
+            case INT_TO_DOUBLE:
+                return Double.doubleToRawLongBits((int) value);
+            case INT_TO_BOOLEAN:
+                return value != 0 ? 1 : 0;
+            case DOUBLE_TO_BOOLEAN:
+                return Double.longBitsToDouble(value) != 0 ? 1 : 0;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Makes sure the stack has the given number of slots, growing it if it doesn't.
+     * @param size the number of slots.
+     */
+    private void reserve(int size)
+    {
+        if (size <= stack.length)
+            return;
+        int capacity = Math.max(stack.length * 2, size);
+        stack = Arrays.copyOf(stack, capacity);
+        strings = Arrays.copyOf(strings, capacity);
+    }
+
+    /**
+     * The first pass - gives every global variable a slot, and keeps the parameter types of every method.
+     * @throws ParserException when a method is declared inside a block.
+     */
+    private void declare() throws ParserException
+    {
+        ProgramScanner scanner = new ProgramScanner(line, "A method declared inside a block can't be run");
+        for (lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            LineType type = scanner.scan(lines.get(lineNumber - 1));
+            if (type == LineType.METHOD_SIGNATURE)
+                methods.put(line.text(ProgramScanner.SIGNATURE_NAME_INDEX),
+                        new MethodBody(ProgramScanner.parameterTypes(line)));
+            else if (type == LineType.DECLARATION)
+                declareGlobals();
+        }
+    }
+
+    /**
+     * Gives the global variables of a declaration their slots, and a final one the value it is declared with.
+     * @throws UnsupportedCodeException when a value can't be run.
+     */
+    private void declareGlobals() throws UnsupportedCodeException
+    {
+        boolean isFinal = line.isWord(0, ProgramScanner.FINAL);
+        int index = isFinal ? 1 : 0;
+        VariableType type = LineParser.typeAt(line, index);
+        for (index++; ; index = ProgramScanner.declaratorEnd(line, index) + 2) {
+            Slot slot = new Slot(GLOBAL, globalSlots.size(), type);
+            if (isFinal && line.is(index + 1, TokenKind.ASSIGN))
+                slot.value = known(operand(index + 2, type));
+            globalSlots.put(line.text(index), slot);
+            if (line.is(ProgramScanner.declaratorEnd(line, index) + 1, TokenKind.SEMICOLON))
+                return;
+        }
+    }
+
+    /**
+     * The second pass - resolves a single line into the scope it is in, or into the global code.
+     * @param type the type of the line.
+     * @throws UnsupportedCodeException when the line can't be run.
+     */
+    private void resolveLine(LineType type) throws UnsupportedCodeException
+    {
+        switch (type) {
+            case DECLARATION:
+                resolveDeclaration();
+                break;
+            case ASSIGNMENT:
+                Slot target = find(line.text(0));
+                add(new Assignment(target, operand(ProgramScanner.ASSIGNED_VALUE_INDEX, target.type)));
+                break;
+            case METHOD_CALL:
+                MethodBody called = methods.get(line.text(0));
+                Operand[] arguments = new Operand[called.parameters.length];
+                for (int i = 0; i < arguments.length; i++)
+                    arguments[i] = operand(ProgramScanner.CALL_OPEN_INDEX + 1 + 2 * i, called.parameters[i]);
+                add(new Call(called, arguments, lineNumber));
+                break;
+            case CONDITION:
+                Block block = new Block(condition(), line.isWord(0, ProgramScanner.WHILE), lineNumber);
+                scopes.push(new OpenScope(block, nextSlot));
+                break;
+            case METHOD_SIGNATURE:
+                openMethod();
+                break;
+            case CLOSE_SCOPE:
+                closeScope();
+                break;
+            case RETURN:
+                if (scopes.isEmpty())
+                    throw new UnsupportedCodeException("A return outside of a method can't be run");
+                add(new Return());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Resolves a declaration - a global variable is assigned its value, if it has one, and a local variable is
+     * given a slot and assigned its value, or the default value of its type, so it is always assigned before it
+     * is read.
+     * @throws UnsupportedCodeException when a value can't be run.
+     */
+    private void resolveDeclaration() throws UnsupportedCodeException
+    {
+        boolean isFinal = line.isWord(0, ProgramScanner.FINAL);
+        int index = isFinal ? 1 : 0;
+        VariableType type = LineParser.typeAt(line, index);
+        for (index++; ; index = ProgramScanner.declaratorEnd(line, index) + 2) {
+            String name = line.text(index);
+            boolean hasValue = line.is(index + 1, TokenKind.ASSIGN);
+            if (scopes.isEmpty()) {
+                if (hasValue)
+                    add(new Assignment(globalSlots.get(name), operand(index + 2, type)));
+            }
+            else {
+                Operand value = hasValue ? operand(index + 2, type) :
+                        type == VariableType.STRING ? new Constant(null) : new Constant(0);
+                Slot slot = new Slot(LOCAL, nextSlot++, type);
+                if (isFinal)
+                    slot.value = known(value);
+                method.frameSize = Math.max(method.frameSize, nextSlot);
+                scopes.peek().variables.put(name, slot);
+                add(new Assignment(slot, value));
+            }
+            if (line.is(ProgramScanner.declaratorEnd(line, index) + 1, TokenKind.SEMICOLON))
+                return;
+        }
+    }
+
+    /**
+     * Resolves the condition of the line, folding the operands that are known - one that always holds is left
+     * out of its group, and a group with one that never does is left out of the condition.
+     * @return the groups of the condition of the line, every operand converted to a boolean - no groups for a
+     * condition that never holds, or a single empty group for one that always does.
+     * @throws UnsupportedCodeException when an operand can't be run.
+     */
+    private Operand[][] condition() throws UnsupportedCodeException
+    {
+        ArrayList<Operand[]> groups = new ArrayList<>();
+        ArrayList<Operand> group = new ArrayList<>();
+        int close = line.size() - 2;
+        for (int index = ProgramScanner.CONDITION_OPEN_INDEX + 1; index < close; ) {
+            boolean holds = true;
+            group.clear();
+            for (; ; index += 2) {
+                Operand operand = operand(index, VariableType.BOOLEAN);
+                if (!(operand instanceof Constant))
+                    group.add(operand);
+                else if (((Constant) operand).bits == 0)
+                    holds = false;
+                if (index + 1 == close || !line.is(index + 1, TokenKind.AND))
+                    break;
+            }
+            index += 2;
+            if (!holds)
+                continue;
+            if (group.isEmpty())
+                return new Operand[][] {new Operand[0]};
+            groups.add(group.toArray(new Operand[0]));
+        }
+        return groups.toArray(new Operand[0][]);
+    }
+
+    /**
+     * Opens the body of a method, with its parameters in the first slots of its frame.
+     */
+    private void openMethod()
+    {
+        method = methods.get(line.text(ProgramScanner.SIGNATURE_NAME_INDEX));
+        OpenScope body = new OpenScope(null, 0);
+        nextSlot = 0;
+        int end = line.size() - 2;
+        for (int index = ProgramScanner.SIGNATURE_OPEN_INDEX + 1; index < end;
+             index = ProgramScanner.parameterEnd(line, index) + 1) {
+            int typeIndex = ProgramScanner.parameterTypeIndex(line, index);
+            body.variables.put(line.text(typeIndex + 1),
+                    new Slot(LOCAL, nextSlot++, LineParser.typeAt(line, typeIndex)));
+        }
+        method.frameSize = nextSlot;
+        scopes.push(body);
+    }
+
+    /**
+     * Closes the innermost scope - the statements of a block become its body, and the block a statement of the
+     * scope around it - or fills in the body of the method it ends. A block that never runs is left out, and the
+     * statements of an if block that always runs become statements of the scope around it.
+     */
+    private void closeScope()
+    {
+        OpenScope scope = scopes.pop();
+        Statement[] body = scope.statements.toArray(new Statement[0]);
+        if (scope.block == null) {
+            method.body = body;
+            method = null;
+            return;
+        }
+        nextSlot = scope.firstSlot;
+        if (scope.block.condition.length == 0)
+            return;
+        if (!scope.block.isLoop && scope.block.condition[0].length == 0) {
+            for (Statement statement : body)
+                add(statement);
+            return;
+        }
+        scope.block.body = body;
+        add(scope.block);
+    }
+
+    /**
+     * @param statement a statement to add to the innermost scope, or to the global code.
+     */
+    private void add(Statement statement)
+    {
+        if (scopes.isEmpty())
+            initializer.add(statement);
+        else
+            scopes.peek().statements.add(statement);
+    }
+
+    /**
+     * Resolves a value - a literal or a variable - converted to the given type.
+     * @param index the index of the value.
+     * @param type the type the value is read as.
+     * @return the operand of the value.
+     * @throws UnsupportedCodeException when the value can't be run.
+     */
+    private Operand operand(int index, VariableType type) throws UnsupportedCodeException
+    {
+        Constant literal = literal(index, type);
+        if (literal != null)
+            return literal;
+        Slot slot = find(line.text(index));
+        int conversion = conversion(slot.type, type);
+        if (slot.value == null)
+            return new Load(slot, conversion);
+        return conversion == SAME ? slot.value : new Constant(convert(slot.value.bits, conversion));
+    }
+
+    /**
+     * @param operand the value a final variable is declared with.
+     * @return the operand if it is known once the file is resolved - a literal, or another such final
+     * variable - or null.
+     */
+    private static Constant known(Operand operand)
+    {
+        return operand instanceof Constant ? (Constant) operand : null;
+    }
+
+    /**
+     * @param index the index of a value.
+     * @param type the type the value is read as.
+     * @return the constant of a literal, converted to the given type, or null for a variable.
+     * @throws UnsupportedCodeException when the literal can't be run.
+     */
+    private Constant literal(int index, VariableType type) throws UnsupportedCodeException
+    {
+        String text = line.text(index);
+        switch (line.kind(index)) {
+            case NUMBER:
+                if (type == VariableType.DOUBLE)
+                    return new Constant(Double.doubleToRawLongBits(ProgramScanner.parseDouble(text)));
+                if (type == VariableType.BOOLEAN)
+                    return new Constant(ProgramScanner.parseDouble(text) != 0 ? 1 : 0);
+                return new Constant(ProgramScanner.parseInt(text));
+            case STRING:
+                return new Constant(text.substring(1, text.length() - 1));
+            case CHAR:
+                return new Constant(text.charAt(1));
+            default:
+                if (ProgramScanner.isBooleanLiteral(text))
+                    return new Constant(text.equals(ProgramScanner.TRUE) ? 1 : 0);
+                return null;
+        }
+    }
+
+    /**
+     * @param from the type of a variable.
+     * @param to the type it is read as.
+     * @return the conversion of its value.
+     * @throws UnsupportedCodeException when s-java has no such conversion.
+     */
+    private static int conversion(VariableType from, VariableType to) throws UnsupportedCodeException
+    {
+        if (from == to)
+            return SAME;
+        if (from == VariableType.INT && to == VariableType.DOUBLE)
+            return INT_TO_DOUBLE;
+        if (from == VariableType.INT && to == VariableType.BOOLEAN)
+            return INT_TO_BOOLEAN;
+        if (from == VariableType.DOUBLE && to == VariableType.BOOLEAN)
+            return DOUBLE_TO_BOOLEAN;
+        throw new UnsupportedCodeException("A " + from.getName() + " can't be converted to a " + to.getName());
+    }
+
+    /**
+     * @param name the name of a variable.
+     * @return the innermost local variable with that name, or else the global one.
+     * @throws UnsupportedCodeException when there is no such variable.
+     */
+    private Slot find(String name) throws UnsupportedCodeException
+    {
+        for (OpenScope scope : scopes) {
+            Slot slot = scope.variables.get(name);
+            if (slot != null)
+                return slot;
+        }
+        Slot slot = globalSlots.get(name);
+        if (slot == null)
+            throw new UnsupportedCodeException("The variable " + name + " can't be resolved");
+        return slot;
+    }
+
+}
@@ -0,0 +1,421 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.Interpreter;
+import oop.ex6.parser.Lexer;
+import oop.ex6.parser.LineType;
+import oop.ex6.parser.ParserException;
+import oop.ex6.parser.RunLimitException;
+import oop.ex6.parser.TokenKind;
+import oop.ex6.parser.TokenizedLine;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the {@link Interpreter} against a naive evaluator, which runs the tokenized lines themselves and keeps
+ * its variables boxed in a map per scope, looked up by name on every read. Both run the same loop - it swaps two
+ * variables, declares locals and calls a method that declares and converts some more - until it reaches the
+ * iteration limit, since s-java has no operators to end a loop with; the time and the bytes allocated per
+ * iteration are compared, and the global variables both leave are checked to be the same.
+ * Usage: InterpreterBenchmark [iterations]
+ */
+public class InterpreterBenchmark {
+
+    private final static int DEFAULT_ITERATIONS = 2000000;
+    private final static int RUNS = 5;
+    private final static String METHOD = "spin";
+    private final static String[] PROGRAM = {
+            "int count = 0;",
+            "int other = 1;",
+            "double ratio = 0.5;",
+            "boolean going = true;",
+            "char mark = 'x';",
+            "String name = \"loop\";",
+            "",
+            "void swap(int first, double second, boolean flag) {",
+            "    int kept = first;",
+            "    double widened = kept;",
+            "    if (going && ratio || count) {",
+            "        ratio = widened;",
+            "    }",
+            "    return;",
+            "}",
+            "",
+            "void spin() {",
+            "    boolean again = going;",
+            "    while (again) {",
+            "        int temporary = count;",
+            "        count = other;",
+            "        other = temporary;",
+            "        String text = name;",
+            "        char letter = mark;",
+            "        swap(count, ratio, again);",
+            "        again = going;",
+            "    }",
+            "    return;",
+            "}"
+    };
+
+    /**
+     * A run of one of the measured programs.
+     */
+    private interface Program {
+        /**
+         * Runs the global code and the measured method, up to the iteration limit.
+         * @throws ParserException when the program failed for another reason.
+         */
+        void run() throws ParserException;
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of loop iterations of every run.
+     * @throws Exception when the program is not valid, or running it failed.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        ValidationResult result = FileParser.validate(new StringReader(String.join("\n", PROGRAM)));
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+        List<String> lines = Arrays.asList(PROGRAM);
+        Interpreter interpreter = new Interpreter(lines);
+        interpreter.resolve();
+        interpreter.setIterationLimit(iterations);
+        MapEvaluator evaluator = new MapEvaluator(lines, iterations);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int run = 0; run < RUNS; run++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            runToLimit(() -> interpreter.run(METHOD));
+            long slotNanos = System.nanoTime() - start;
+            long slotBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            runToLimit(evaluator::run);
+            long mapNanos = System.nanoTime() - start;
+            long mapBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+            if (!interpreter.getGlobals().equals(evaluator.getGlobals()))
+                throw new IllegalStateException("The runs differ: " + interpreter.getGlobals() + " and " +
+                        evaluator.getGlobals());
+            System.out.printf("%d iterations: slots %.1f ns/iteration %.1f B/iteration, " +
+                            "maps %.1f ns/iteration %.1f B/iteration%n", iterations,
+                    (double) slotNanos / iterations, (double) slotBytes / iterations,
+                    (double) mapNanos / iterations, (double) mapBytes / iterations);
+        }
+    }
+
+    /**
+     * Runs a program that loops forever, until it reaches the iteration limit.
+     * @param program the program.
+     * @throws ParserException when the program stopped for another reason.
+     */
+    private static void runToLimit(Program program) throws ParserException
+    {
+        try {
+            program.run();
+        }
+        catch (RunLimitException e) {
+            return;
+        }
+        throw new IllegalStateException("The loop ended before the limit");
+    }
+
+    /**
+     * Runs tokenized lines one by one, the way an interpreter without a resolution pass would: every value is
+     * parsed from its literal or looked up by name, every scope is a new map, and every value is boxed.
+     */
+    private static class MapEvaluator {
+        private final static String FINAL = "final";
+        private final static String WHILE = "while";
+        private final static String TRUE = "true";
+        private final static String FALSE = "false";
+
+        private final TokenizedLine[] lines;
+        private final LineType[] types;
+        private final int[] ends;
+        private final HashMap<String, Integer> methods = new HashMap<>();
+        private final LinkedHashMap<String, Object> globals = new LinkedHashMap<>();
+        private ArrayDeque<HashMap<String, Object>> scopes = new ArrayDeque<>();
+        private final long limit;
+        private long iterations;
+
+        /**
+         * @param lines the lines of a valid file.
+         * @param limit the number of loop iterations a run may take.
+         * @throws ParserException when a line has no type.
+         */
+        private MapEvaluator(List<String> lines, long limit) throws ParserException
+        {
+            this.lines = new TokenizedLine[lines.size()];
+            this.types = new LineType[lines.size()];
+            this.ends = new int[lines.size()];
+            this.limit = limit;
+            ArrayDeque<Integer> open = new ArrayDeque<>();
+            for (int i = 0; i < lines.size(); i++) {
+                this.lines[i] = Lexer.tokenize(lines.get(i));
+                types[i] = LineType.chooseLineType(this.lines[i]);
+                if (types[i] == LineType.METHOD_SIGNATURE)
+                    methods.put(this.lines[i].text(1), i);
+                if (types[i] == LineType.METHOD_SIGNATURE || types[i] == LineType.CONDITION)
+                    open.push(i);
+                else if (types[i] == LineType.CLOSE_SCOPE)
+                    ends[open.pop()] = i;
+            }
+        }
+
+        /**
+         * Runs the global code, and then the measured method.
+         * @throws RunLimitException when the loop reached the iteration limit.
+         */
+        private void run() throws RunLimitException
+        {
+            globals.clear();
+            scopes = new ArrayDeque<>();
+            iterations = 0;
+            execute(0, lines.length);
+            call(methods.get(METHOD), new Object[0]);
+        }
+
+        /**
+         * @return the values of the global variables after the last run, written as the interpreter writes them.
+         */
+        private Map<String, String> getGlobals()
+        {
+            LinkedHashMap<String, String> values = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> global : globals.entrySet()) {
+                Object value = global.getValue();
+                if (value instanceof Character)
+                    values.put(global.getKey(), "'" + value + "'");
+                else if (value instanceof String)
+                    values.put(global.getKey(), "\"" + value + "\"");
+                else
+                    values.put(global.getKey(), String.valueOf(value));
+            }
+            return values;
+        }
+
+        /**
+         * @param from the first line to run.
+         * @param to the line after the last one to run.
+         * @return true if a line returned from its method.
+         * @throws RunLimitException when a loop reached the iteration limit.
+         */
+        private boolean execute(int from, int to) throws RunLimitException
+        {
+            for (int i = from; i < to; i++) {
+                TokenizedLine line = lines[i];
+                switch (types[i]) {
+                    case DECLARATION:
+                        declare(line);
+                        break;
+                    case ASSIGNMENT:
+                        assign(line.text(0), value(line, 2, classOf(lookup(line.text(0)))));
+                        break;
+                    case METHOD_CALL:
+                        TokenizedLine signature = lines[methods.get(line.text(0))];
+                        int parameters = (signature.size() - 4) / 3;
+                        Object[] arguments = new Object[parameters];
+                        for (int j = 0; j < parameters; j++)
+                            arguments[j] = value(line, 2 + 2 * j, typeOf(signature.text(3 + 3 * j)));
+                        call(methods.get(line.text(0)), arguments);
+                        break;
+                    case CONDITION:
+                        boolean isLoop = line.isWord(0, WHILE);
+                        while (holds(line)) {
+                            if (isLoop && ++iterations > limit)
+                                throw new RunLimitException("The loop reached the limit");
+                            scopes.push(new HashMap<>());
+                            boolean returned = execute(i + 1, ends[i]);
+                            scopes.pop();
+                            if (returned)
+                                return true;
+                            if (!isLoop)
+                                break;
+                        }
+                        i = ends[i];
+                        break;
+                    case METHOD_SIGNATURE:
+                        i = ends[i];
+                        break;
+                    case RETURN:
+                        return true;
+                    default:
+                        break;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Runs a method with a scope chain of its own, which starts with its parameters.
+         * @param signature the line of the signature of the method.
+         * @param arguments the arguments, converted to the types of the parameters.
+         * @throws RunLimitException when a loop reached the iteration limit.
+         */
+        private void call(int signature, Object[] arguments) throws RunLimitException
+        {
+            ArrayDeque<HashMap<String, Object>> callerScopes = scopes;
+            HashMap<String, Object> parameters = new HashMap<>();
+            for (int i = 0; i < arguments.length; i++)
+                parameters.put(lines[signature].text(4 + 3 * i), arguments[i]);
+            scopes = new ArrayDeque<>();
+            scopes.push(parameters);
+            execute(signature + 1, ends[signature]);
+            scopes = callerScopes;
+        }
+
+        /**
+         * @param line a declaration, whose variables are put in the innermost scope or with the globals.
+         */
+        private void declare(TokenizedLine line)
+        {
+            int index = line.isWord(0, FINAL) ? 1 : 0;
+            Class<?> type = typeOf(line.text(index));
+            Map<String, Object> scope = scopes.isEmpty() ? globals : scopes.peek();
+            for (index++; ; index += 2) {
+                String name = line.text(index);
+                if (line.is(index + 1, TokenKind.ASSIGN)) {
+                    scope.put(name, value(line, index + 2, type));
+                    index += 2;
+                }
+                else
+                    scope.put(name, defaultValue(type));
+                if (line.is(index + 1, TokenKind.SEMICOLON))
+                    return;
+            }
+        }
+
+        /**
+         * @param line a condition line.
+         * @return true if its condition holds.
+         */
+        private boolean holds(TokenizedLine line)
+        {
+            int close = line.size() - 2;
+            boolean group = true;
+            for (int index = 2; ; index += 2) {
+                group = group && (Boolean) value(line, index, Boolean.class);
+                if (index + 1 == close)
+                    return group;
+                if (line.is(index + 1, TokenKind.OR)) {
+                    if (group)
+                        return true;
+                    group = true;
+                }
+            }
+        }
+
+        /**
+         * @param line a line.
+         * @param index the index of a value in the line - a literal or a variable.
+         * @param type the type the value is converted to.
+         * @return the value.
+         */
+        private Object value(TokenizedLine line, int index, Class<?> type)
+        {
+            String text = line.text(index);
+            switch (line.kind(index)) {
+                case NUMBER:
+                    double number = Double.parseDouble(text.replaceAll("\\.+", "."));
+                    if (type == Double.class)
+                        return number;
+                    return type == Boolean.class ? (Object) (number != 0) : (Object) Integer.parseInt(text);
+                case STRING:
+                    return text.substring(1, text.length() - 1);
+                case CHAR:
+                    return text.charAt(1);
+                default:
+                    if (text.equals(TRUE) || text.equals(FALSE))
+                        return Boolean.valueOf(text);
+                    Object value = lookup(text);
+                    if (type == Double.class && value instanceof Integer)
+                        return ((Integer) value).doubleValue();
+                    if (type == Boolean.class && value instanceof Number)
+                        return ((Number) value).doubleValue() != 0;
+                    return value;
+            }
+        }
+
+        /**
+         * @param name the name of a variable.
+         * @return its value, from the innermost scope that has it, or else from the globals.
+         */
+        private Object lookup(String name)
+        {
+            for (HashMap<String, Object> scope : scopes) {
+                if (scope.containsKey(name))
+                    return scope.get(name);
+            }
+            return globals.get(name);
+        }
+
+        /**
+         * @param name the name of a variable.
+         * @param value the value to put in the innermost scope that has it, or else with the globals.
+         */
+        private void assign(String name, Object value)
+        {
+            for (HashMap<String, Object> scope : scopes) {
+                if (scope.containsKey(name)) {
+                    scope.put(name, value);
+                    return;
+                }
+            }
+            globals.put(name, value);
+        }
+
+        /**
+         * @param value the value of a variable.
+         * @return the class of its values - a string for a string that was not assigned.
+         */
+        private static Class<?> classOf(Object value)
+        {
+            return value == null ? String.class : value.getClass();
+        }
+
+        /**
+         * @param name the name of a type.
+         * @return the class of its values.
+         */
+        private static Class<?> typeOf(String name)
+        {
+            switch (name) {
+                case "int":
+                    return Integer.class;
+                case "double":
+                    return Double.class;
+                case "boolean":
+                    return Boolean.class;
+                case "char":
+                    return Character.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        /**
+         * @param type the class of the values of a type.
+         * @return the value of a variable of the type that is declared without one.
+         */
+        private static Object defaultValue(Class<?> type)
+        {
+            if (type == Integer.class)
+                return 0;
+            if (type == Double.class)
+                return 0.0;
+            if (type == Boolean.class)
+                return false;
+            return type == Character.class ? (Object) '\0' : null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.LiteralClassifier;
+
+/**
+ * Splits a line of s-java into tokens, in a single pass over its characters.
+ */
+public class Lexer {
+
+    private final static char QUOTATION_MARK = '"';
+    private final static char APOSTROPHE = '\'';
+    private final static char SLASH = '/';
+    private final static char MINUS = '-';
+    private final static char DOT = '.';
+    private final static char UNDERSCORE = '_';
+    private final static char PIPE = '|';
+    private final static char AMPERSAND = '&';
+
+    /**
+     * Splits the line into new tokens.
+     * @param line the line to split.
+     * @return the tokens of the line.
+     */
+    public static TokenizedLine tokenize(String line)
+    {
+        return tokenize(line, new TokenizedLine());
+    }
+
+    /**
+     * Splits the line into tokens. Words and numbers are runs of letters, digits, underscores and dots (a
+     * number may start with a minus), string and char literals run up to their closing mark, and a line
+     * that starts with two slashes is a single comment token. Whitespace only separates tokens.
+     * Every literal is also classified into the variable types it is a value of, so values can later be checked
+     * against types without matching them again.
+     * @param line the line to split.
+     * @param tokens the tokenized line to reuse for the tokens of the line.
+     * @return the given tokenized line, holding the tokens of the line.
+     */
+    public static TokenizedLine tokenize(String line, TokenizedLine tokens)
+    {
+        tokens.reset(line);
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            TokenKind kind;
+            int typeMask = 0;
+            if (c == SLASH && tokens.size() == 0 && i + 1 < length && line.charAt(i + 1) == SLASH) {
+                kind = TokenKind.COMMENT;
+                i = length;
+            }
+            else if (c == QUOTATION_MARK || c == APOSTROPHE) {
+                int close = line.indexOf(c, i + 1);
+                if (close < 0) {
+                    kind = TokenKind.OTHER;
+                    i = length;
+                }
+                else {
+                    kind = c == QUOTATION_MARK ? TokenKind.STRING : TokenKind.CHAR;
+                    i = close + 1;
+                    typeMask = LiteralClassifier.classify(line, start, i);
+                }
+            }
+            else if (isWordCharacter(c) || (c == MINUS && i + 1 < length && isDigit(line.charAt(i + 1)))) {
+                kind = isDigit(c) || c == MINUS ? TokenKind.NUMBER : TokenKind.WORD;
+                i++;
+                while (i < length && (isWordCharacter(line.charAt(i)) || line.charAt(i) == DOT))
+                    i++;
+                typeMask = LiteralClassifier.classify(line, start, i);
+            }
+            else if (c == PIPE && i + 1 < length && line.charAt(i + 1) == PIPE) {
+                kind = TokenKind.OR;
+                i += 2;
+            }
+            else if (c == AMPERSAND && i + 1 < length && line.charAt(i + 1) == AMPERSAND) {
+                kind = TokenKind.AND;
+                i += 2;
+            }
+            else {
+                kind = symbolKind(c);
+                i++;
+            }
+            tokens.add(kind, start, i, typeMask);
+        }
+        return tokens;
+    }
+
+    /**
+     * @param c a character that starts neither a word, a literal nor an operator.
+     * @return the kind of the single character token.
+     */
+    private static TokenKind symbolKind(char c)
+    {
+        switch (c) {
+            case '(':
+                return TokenKind.OPEN_PAREN;
+            case ')':
+                return TokenKind.CLOSE_PAREN;
+            case '{':
+                return TokenKind.OPEN_SCOPE;
+            case '}':
+                return TokenKind.CLOSE_SCOPE;
+            case ';':
+                return TokenKind.SEMICOLON;
+            case ',':
+                return TokenKind.COMMA;
+            case '=':
+                return TokenKind.ASSIGN;
+            default:
+                return TokenKind.OTHER;
+        }
+    }
+
+    /**
+     * @param c the character to check.
+     * @return true if the character is an ascii digit.
+     */
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @param c the character to check.
+     * @return true if the character is an ascii letter, digit or underscore.
+     */
+    private static boolean isWordCharacter(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == UNDERSCORE;
+    }
+}
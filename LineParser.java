@@ -4,30 +4,20 @@ import oop.ex6.codeelements.*;
 import oop.ex6.codeelements.IncompatibleValueTypeException;
 
 import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * Parses the lines of our method.
+ * Parses the lines of our method, given as the tokens of each line.
  */
 class LineParser
 {
     private final static String FINAL = "final";
-    private final static String VARIABLE_DELIMITER = ",";
-    private final static String ASSIGNMENT_SIGN = "=";
     private final static String EMPTY_STRING = "";
-    private final static String SEMICOLON = ";";
-    private final static String OPEN_CONDITION = "(";
-    private final static String CLOSE_CONDITION = ")";
-    private final static String OPEN_SCOPE = "{";
-    private final static String WORD = "\\w+";
-    private final static String LETTERSTARTER = "[a-z]+";
-    private final static String CONDITIONSPLITER = "\\|{2}|&{2}";
-    private final static String VOID = "void";
-    private final static String METHODCALLWORD = "[a-zA-Z]+\\w*";
-    private final static String METHODPARAMETERS = "\\w{1,}|\"\\w{1,}\"|'\\w{1}'";
-    private final static String METHODNAMESEARCH = "[^(]{1,}";
-    private final static String WHITESPACE = "\\s";
+    private final static int CONDITION_OPEN_INDEX = 1;
+    private final static int SIGNATURE_NAME_INDEX = 1;
+    private final static int SIGNATURE_OPEN_INDEX = 2;
+    private final static int CALL_OPEN_INDEX = 1;
+    private final static int ASSIGNMENT_LENGTH = 4;
+    private final static VariableType[] TYPES = VariableType.values();
 
 
     /**
@@ -40,95 +30,111 @@ class LineParser
      * @throws UndeclaredVariableException for undeclared variables
      * @throws IncompatibleValueTypeException for unmatched type and values
      */
-    static void parseDeclaration(String line, Scope scope) throws InvalidTypeException, InvalidSyntaxException,
+    static void parseDeclaration(TokenizedLine line, Scope scope) throws InvalidTypeException, InvalidSyntaxException,
             InvalidVariableNameException, UndeclaredVariableException, IncompatibleValueTypeException,
             DuplicateVariableException, FinalAssigmentException
     {
-            verifyTypeAppearsOnce(line);
-            boolean isFinal = false;
+            int index = 0;
             //check whether variable is final
-            if (line.startsWith(FINAL)) {
-                isFinal = true;
-                line = removeUsedPart(line, FINAL);
-            }
+            boolean isFinal = line.isWord(index, FINAL);
+            if (isFinal)
+                index++;
             //get variableType of variable
-            VariableType variableType = getDeclarationVariableType(line);
-            line = removeUsedPart(line, variableType.getName());
-            Variable variable;
-            String variableData = "";
-            for (int i = 0; i < line.length(); i++) {
-                if (!line.substring(i, i+1).equals(VARIABLE_DELIMITER) && !(line.substring(i, i+1).equals(SEMICOLON)))
-                    variableData += line.substring(i, i+1);
-                else {
-                        variable = createNewVariable(variableData, variableType, isFinal, scope);
-                        scope.addVariable(variable);
-                        variableData = "";
-                    }
+            VariableType variableType = getDeclarationVariableType(line, index);
+            index++;
+            verifyTypeAppearsOnce(line, index);
+            while (true) {
+                index = createNewVariable(line, index, variableType, isFinal, scope);
+                if (line.is(index, TokenKind.SEMICOLON) && index == line.size() - 1)
+                    return;
+                if (!line.is(index, TokenKind.COMMA))
+                    throw new InvalidSyntaxException();
+                index++;
             }
         }
 
     /**
      * A getter function - gets the "VariableType" of our line
      * @param line the line we're checking
+     * @param index the index of the type token
      * @return returns the type of the line.
      * @throws InvalidSyntaxException for invalid syntax
      * @throws InvalidTypeException for invalid types
      */
-    private static VariableType getDeclarationVariableType(String line) throws InvalidSyntaxException, InvalidTypeException
+    private static VariableType getDeclarationVariableType(TokenizedLine line, int index)
+            throws InvalidSyntaxException, InvalidTypeException
     {
-        Pattern pattern = Pattern.compile(WORD);
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find())
-            return VariableType.chooseTypeByName(line.substring(matcher.start(), matcher.end()));
-        else
+        if (!line.isValue(index))
             throw new InvalidSyntaxException();
+        VariableType variableType = typeAt(line, index);
+        if (variableType == null)
+            throw new InvalidTypeException();
+        return variableType;
     }
 
     /**
-     * Removes the part of the line that is unneeded.
-     * @param line the line we'd like to re-define
-     * @param removed - the part we'd like to remove
-     * @return the new line.
+     * Finds the type whose name is the given token, without creating the text of the token.
+     * @param line the line we're checking
+     * @param index the index of the token
+     * @return the type named by the token, or null if the token is not a type name.
      */
-    private static String removeUsedPart(String line, String removed)
+    static VariableType typeAt(TokenizedLine line, int index)
     {
-        String returnLine =  line.replace(removed,EMPTY_STRING);
-        return returnLine.trim();
+        for (VariableType variableType : TYPES) {
+            if (line.isWord(index, variableType.getName()))
+                return variableType;
+        }
+        return null;
     }
 
     /**
-     * Creates a new variable.
-     * @param variableData the variable name
+     * Creates a new variable from a declarator - a name, optionally followed by an assignment of a value - and
+     * adds it to the scope.
+     * @param line the declaration line
+     * @param index the index of the name of the variable
      * @param variableType variableType of variable
      * @param isFinal boolean variable indicating whether the variable is final
      * @param scope the scope in which the variable should be placed.
-     * @return the new variable we've created.
+     * @return the index of the token after the declarator.
+     * @throws InvalidSyntaxException for a malformed declarator
      * @throws InvalidTypeException for invalid types
      * @throws InvalidVariableNameException - for an invalid variable name
      * @throws UndeclaredVariableException for an undeclared variable
      * @throws IncompatibleValueTypeException for unmatched value and type
      * @throws FinalAssigmentException for a final variable that has been reassigned
+     * @throws DuplicateVariableException for a variable that is already declared in the scope
      */
-    private static Variable createNewVariable (String variableData, VariableType variableType, boolean isFinal, Scope scope) throws
-            InvalidTypeException, InvalidVariableNameException, UndeclaredVariableException,
-            IncompatibleValueTypeException, FinalAssigmentException
+    private static int createNewVariable (TokenizedLine line, int index, VariableType variableType, boolean isFinal,
+                                          Scope scope) throws InvalidSyntaxException, InvalidTypeException,
+            InvalidVariableNameException, UndeclaredVariableException, IncompatibleValueTypeException,
+            FinalAssigmentException, DuplicateVariableException
     {
-        String [] arrayVariable;
+        if (!line.isValue(index))
+            throw new InvalidSyntaxException();
+        String name = line.text(index);
+        String value = null;
+        Constant literal = null;
+        index++;
         //handle assignment
-        if (variableData.contains(ASSIGNMENT_SIGN))
+        if (line.is(index, TokenKind.ASSIGN))
         {
-            arrayVariable = variableData.split(ASSIGNMENT_SIGN);
-            return new Variable (variableType,arrayVariable[0].trim(),arrayVariable[1].trim(),isFinal,scope);
+            if (!line.isValue(index + 1))
+                throw new InvalidSyntaxException();
+            literal = line.constant(index + 1);
+            if (literal == null)
+                value = line.text(index + 1);
+            index += 2;
         }
-        // create unassigned variable
-        else
-             return new Variable(variableType,variableData.trim(),null,isFinal,scope);
+        scope.addVariable(literal != null ? new Variable(variableType, name, literal, isFinal, scope) :
+                new Variable(variableType, name, value, isFinal, scope));
+        return index;
     }
 
     /**
      * A function that knows to parse deal with assignments.
      * @param line the line to be parsed for assignment
      * @param scope the scope in which the line appears
+     * @throws InvalidSyntaxException for a line that is not a single assignment
      * @throws UndeclaredVariableException for undeclared variable
      * @throws FinalAssigmentException for a final variable reassignment
      * @throws IncompatibleValueTypeException for unmatched values and types
@@ -138,79 +144,103 @@ class LineParser
      * @throws UninitializedVariableException for uninitialized variables.
      */
 
-    static void parseAssignment(String line, Scope scope) throws UndeclaredVariableException,
-            FinalAssigmentException, IncompatibleValueTypeException, InvalidTypeException, InvalidVariableNameException,
-            DuplicateVariableException, UninitializedVariableException
+    static void parseAssignment(TokenizedLine line, Scope scope) throws InvalidSyntaxException,
+            UndeclaredVariableException, FinalAssigmentException, IncompatibleValueTypeException, InvalidTypeException,
+            InvalidVariableNameException, DuplicateVariableException, UninitializedVariableException
     {
-        line = line.trim();
-        String [] arrayVariable = line.split(ASSIGNMENT_SIGN);
-        String variableName = arrayVariable[0].trim(),
-                variableValue = arrayVariable[1].replace(SEMICOLON,EMPTY_STRING).trim();
-        Scope variableScope = Scope.searchScopeOfVariable(variableName,scope);
-        if (variableScope == null)
+        if (line.size() != ASSIGNMENT_LENGTH || !line.isValue(0) || !line.is(1, TokenKind.ASSIGN) ||
+                !line.isValue(2))
+            throw new InvalidSyntaxException();
+        String variableName = line.text(0);
+        Constant literal = line.constant(2);
+        String variableValue = literal == null ? line.text(2) : null;
+        Variable variable = Variable.getVariable(variableName, scope);
+        if (variable == null)
             throw new UninitializedVariableException();
-        Variable variable = variableScope.getVariable(variableName);
         if (variable.isFinal())
             throw new FinalAssigmentException();
-        if (variableScope!=scope) {
-            Variable newVariable = new Variable(variable.getVariableType(), variable.getName(), variableValue,
-                    false, scope);
-            scope.addVariable(newVariable);
-        }
+        if (variable.getScope() != scope)
+            scope.addVariable(literal != null ? new Variable(variable, literal, scope) :
+                    new Variable(variable, variableValue, scope));
+        else if (literal != null)
+            variable.setValue(literal);
         else
             variable.setValue(variableValue);
     }
 
 
     /**
-     * Parses the condition line to ensure that conditions are valid and a new scope is created.
+     * Parses the condition line to ensure that conditions are valid and a new scope is created. The condition is
+     * folded as well, for the warnings of {@link DeadCodeAnalysis}.
      * @param line the condition line needed to be parsed
+     * @param scope the scope the condition opens
      * @throws InvalidConditionException for invalid conditions
      * @throws UninitializedVariableException for uninitialized variables
      * @throws UndeclaredVariableException for undeclared variables
      * @throws IncompatibleValueTypeException for unmatched value and type
      */
-    static void parseCondition(String line, Scope scope) throws InvalidConditionException, UninitializedVariableException,
-    UndeclaredVariableException, IncompatibleValueTypeException{
-        Pattern pattern = Pattern.compile(LETTERSTARTER);
-        Matcher matcher = pattern.matcher(line);
-        matcher.find();
-        String conditionWord = line.substring(matcher.start(),matcher.end());
-        line = line.replace(conditionWord,"").replace(OPEN_CONDITION,EMPTY_STRING).replace
-                (CLOSE_CONDITION,EMPTY_STRING).replace(OPEN_SCOPE,EMPTY_STRING).trim();
-        String [] conditions = line.split(CONDITIONSPLITER);
-        if (conditions[0].equals(""))
+    static void parseCondition(TokenizedLine line, Scope scope) throws InvalidConditionException,
+            UninitializedVariableException, UndeclaredVariableException, IncompatibleValueTypeException{
+        // the line is: condition word, open bracket, operands joined by || and &&, close bracket, open scope
+        int end = line.size() - 2;
+        if (!line.is(CONDITION_OPEN_INDEX, TokenKind.OPEN_PAREN) || !line.is(end, TokenKind.CLOSE_PAREN))
             throw new InvalidConditionException();
-        pattern = Pattern.compile(VariableType.BOOLEAN.getValuePattern());
-        Variable variable;
-        String trimmedCondition;
-        for (String condition: conditions)
+        int index = CONDITION_OPEN_INDEX + 1;
+        // the condition is folded as it is verified: && takes the lesser value, and || the greater
+        int condition = DeadCodeAnalysis.NEVER;
+        int group = DeadCodeAnalysis.ALWAYS;
+        while (true)
         {
-            trimmedCondition =   condition.trim();
-            matcher = pattern.matcher(trimmedCondition);
-            if (!matcher.matches()) {
-                if (!Variable.checkValueIsVariable(trimmedCondition))
-                    throw new InvalidConditionException();
-                else
-                {
-                    variable = Variable.getVariable(trimmedCondition, scope);
-                    if (variable == null)
-                        throw new UninitializedVariableException();
-                    else {
-                        if (variable.getValue()!=null) {
-                            if (!VariableType.BOOLEAN.checkValue(variable.getValue()))
-                                throw new IncompatibleValueTypeException();
-                        }
-                        else
-                            throw new UndeclaredVariableException();
-                    }
-
-                }
-
+            if (!line.isValue(index))
+                throw new InvalidConditionException();
+            group = Math.min(group, DeadCodeAnalysis.valueOf(verifyConditionOperand(line, index, scope)));
+            index++;
+            if (index == end) {
+                DeadCodeAnalysis.analyzeCondition(line, scope, Math.max(condition, group));
+                return;
             }
+            if (line.is(index, TokenKind.OR)) {
+                condition = Math.max(condition, group);
+                group = DeadCodeAnalysis.ALWAYS;
+            }
+            else if (!line.is(index, TokenKind.AND))
+                throw new InvalidConditionException();
+            index++;
         }
     }
 
+    /**
+     * Verifies that a single operand of a condition is a boolean value, or an initialized variable that holds
+     * one.
+     * @param line the condition line
+     * @param index the index of the operand
+     * @param scope the scope of the condition
+     * @return the value of the operand, if it is a literal or a variable whose value is known once the file is
+     * parsed (see {@link Variable#isKnown()}), or null if it is only known when the code runs.
+     * @throws InvalidConditionException for an operand that is neither a boolean value nor a variable
+     * @throws UninitializedVariableException for uninitialized variables
+     * @throws UndeclaredVariableException for undeclared variables
+     * @throws IncompatibleValueTypeException for a variable that doesn't hold a boolean value
+     */
+    private static Constant verifyConditionOperand(TokenizedLine line, int index, Scope scope)
+            throws InvalidConditionException, UninitializedVariableException, UndeclaredVariableException,
+            IncompatibleValueTypeException
+    {
+        if (VariableType.BOOLEAN.accepts(line.typeMask(index)))
+            return line.constant(index);
+        String condition = line.text(index);
+        if (!Variable.checkValueIsVariable(condition))
+            throw new InvalidConditionException();
+        Variable variable = Variable.getVariable(condition, scope);
+        if (variable == null)
+            throw new UninitializedVariableException();
+        if (variable.getValue() == null)
+            throw new UndeclaredVariableException();
+        if (!VariableType.BOOLEAN.accepts(variable.getValue()))
+            throw new IncompatibleValueTypeException();
+        return variable.isKnown() ? variable.getValue() : null;
+    }
+
     /**
      *
      * @param line the line we'd like to parse
@@ -224,47 +254,66 @@ class LineParser
      * @throws DuplicateVariableException for duplicate variables
      * @throws InvalidMethodException for invalid methods
      */
-    static void parseMethodSignature(String line, Scope scope) throws InvalidSyntaxException,InvalidTypeException,
-            InvalidVariableNameException, UndeclaredVariableException, FinalAssigmentException,
+    static void parseMethodSignature(TokenizedLine line, Scope scope) throws InvalidSyntaxException,
+            InvalidTypeException, InvalidVariableNameException, UndeclaredVariableException, FinalAssigmentException,
             IncompatibleValueTypeException, DuplicateVariableException, InvalidMethodException
     {
-        ArrayList<VariableType> parameters = new ArrayList<>();
-        line = line.trim();
-        if (!line.startsWith(VOID))
-            throw new InvalidSyntaxException();
-        line = line.replace(VOID, EMPTY_STRING).trim();
-        // searching for the method name
-        String methodName = getMethodNameInLine(line);
+        // the line is: void, method name, open bracket, parameters, close bracket, open scope
+        if (!line.isValue(SIGNATURE_NAME_INDEX))
+            throw new InvalidMethodException();
+        String methodName = line.text(SIGNATURE_NAME_INDEX);
         //checking method parameters.
-        verifyParenthesisValidity(line);
-        line = line.substring(line.indexOf(OPEN_CONDITION)+1, line.indexOf(CLOSE_CONDITION)).trim();
-        String [] parameterStrings = line.split(VARIABLE_DELIMITER);
-        Variable variable;
-        VariableType type;
-        String variableName;
-        boolean isFinal;
-        ArrayList<String> parametersData;
-        if (line.equals(EMPTY_STRING)) {
-            new Method(methodName, null);
+        int end = line.size() - 2;
+        if (!line.is(SIGNATURE_OPEN_INDEX, TokenKind.OPEN_PAREN) || !line.is(end, TokenKind.CLOSE_PAREN))
+            throw new InvalidSyntaxException();
+        int index = SIGNATURE_OPEN_INDEX + 1;
+        if (index == end) {
+            scope.getContext().addMethod(new Method(methodName, null));
             return;
         }
-        else {
-        for (String parameter : parameterStrings) {
-            parametersData = processParameterString(parameter);
-            isFinal = parametersData.get(0).equals(FINAL);
-            int indexVariableName;
-            if (isFinal)
-                indexVariableName = 1;
-            else
-                indexVariableName = 0;
-            type = VariableType.chooseTypeByName(parametersData.get(indexVariableName));
-            parameters.add(type);
-            variableName = parametersData.get(indexVariableName + 1);
-            Variable.checkValidName(variableName);
-            variable = new Variable(type, variableName, EMPTY_STRING, isFinal, scope);
-            scope.addVariable(variable);
-        }new Method(methodName, parameters);
+        ArrayList<VariableType> parameters = new ArrayList<>();
+        while (true) {
+            index = createParameter(line, index, parameters, scope);
+            if (index == end)
+                break;
+            if (!line.is(index, TokenKind.COMMA))
+                throw new InvalidMethodException();
+            index++;
+        }
+        scope.getContext().addMethod(new Method(methodName, parameters.toArray(new VariableType[0])));
     }
+
+    /**
+     * Creates a method parameter - an optional final, a type and a name - as a variable of the method scope.
+     * @param line the method signature line
+     * @param index the index of the first token of the parameter
+     * @param parameters the types of the parameters so far, where the type of this parameter is added
+     * @param scope the method scope
+     * @return the index of the token after the parameter
+     * @throws InvalidMethodException for a malformed parameter
+     * @throws InvalidTypeException for invalid type
+     * @throws InvalidVariableNameException for invalid variable name
+     * @throws UndeclaredVariableException for undeclared variable
+     * @throws FinalAssigmentException for final variable reassignments
+     * @throws IncompatibleValueTypeException for unmatched values and types
+     * @throws DuplicateVariableException for duplicate parameters
+     */
+    private static int createParameter(TokenizedLine line, int index, ArrayList<VariableType> parameters,
+                                       Scope scope) throws InvalidMethodException, InvalidTypeException,
+            InvalidVariableNameException, UndeclaredVariableException, FinalAssigmentException,
+            IncompatibleValueTypeException, DuplicateVariableException
+    {
+        boolean isFinal = line.isWord(index, FINAL);
+        if (isFinal)
+            index++;
+        if (!line.isValue(index) || !line.isValue(index + 1))
+            throw new InvalidMethodException();
+        VariableType type = VariableType.chooseTypeByName(line.text(index));
+        parameters.add(type);
+        String variableName = line.text(index + 1);
+        Variable.checkValidName(variableName);
+        scope.addVariable(new Variable(type, variableName, EMPTY_STRING, isFinal, scope));
+        return index + 2;
     }
 
     /**
@@ -274,99 +323,45 @@ class LineParser
      * @throws InvalidSyntaxException throws invalid syntax
      * @throws UndeclaredVariableException throws undeclared variables.
      */
-    static void parseMethodCall(String line, Scope scope) throws InvalidSyntaxException, UndeclaredVariableException {
-        String methodName;
-        Pattern pattern = Pattern.compile(METHODCALLWORD);
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find())
-            methodName = line.substring(matcher.start(), matcher.end());
-        else
+    static void parseMethodCall(TokenizedLine line, Scope scope) throws InvalidSyntaxException,
+            UndeclaredVariableException {
+        // the line is: method name, open bracket, arguments, close bracket, semicolon
+        int end = line.size() - 2;
+        if (!line.is(0, TokenKind.WORD) || !line.is(CALL_OPEN_INDEX, TokenKind.OPEN_PAREN) ||
+                !line.is(end, TokenKind.CLOSE_PAREN))
             throw new InvalidSyntaxException();
-        verifyParenthesisValidity(line);
-        line = line.substring(line.indexOf("(")+1, line.indexOf(")")).trim();
-        pattern = Pattern.compile(METHODPARAMETERS);
-        matcher = pattern.matcher(line);
-        ArrayList<String> variableValues = new ArrayList<>();
-        int countMatch = 0;
-        while (matcher.find()) {
-            variableValues.add(line.substring(matcher.start(), matcher.end()));
-            countMatch ++;
+        String methodName = line.text(0);
+        int index = CALL_OPEN_INDEX + 1;
+        if (index == end) {
+            new MethodCall(methodName,null,null,scope);
+            return;
         }
-        if (countMatch > 0)
-            new MethodCall(methodName,variableValues,scope);
-        else
-            new MethodCall(methodName,null,scope);
-    }
-
-    /**
-     * A getter function - to retrieve the method name in the line
-     * @param line the line we'd like to get from
-     * @return the method name
-     * @throws InvalidSyntaxException throws invalid syntax.
-     */
-    private static String getMethodNameInLine(String line) throws InvalidSyntaxException
-    {
-        Pattern pattern = Pattern.compile(METHODNAMESEARCH);
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find())
-            return line.substring(matcher.start(), matcher.end()).trim();
-        else
-            throw new InvalidSyntaxException();
-    }
-
-    /**
-     * Verifies the parenthesis are valid
-     * @param line we are checking
-     * @throws InvalidSyntaxException for invalid syntax
-     */
-    private static void verifyParenthesisValidity(String line) throws InvalidSyntaxException
-    {
-        if (!line.contains(OPEN_CONDITION) || !line.contains(CLOSE_CONDITION))
-            throw new InvalidSyntaxException();
-        if (line.indexOf(CLOSE_CONDITION)<line.indexOf(OPEN_CONDITION))
+        // the arguments are values separated by commas, so there is an argument for every two tokens
+        int count = (end - index + 1) / 2;
+        String[] arguments = new String[count];
+        int[] argumentTypeMasks = new int[count];
+        for (int i = 0; i < count; i++, index += 2) {
+            if (!line.isValue(index) || (i + 1 < count && !line.is(index + 1, TokenKind.COMMA)))
+                throw new InvalidSyntaxException();
+            arguments[i] = line.text(index);
+            argumentTypeMasks[i] = line.typeMask(index);
+        }
+        if (index - 1 != end)
             throw new InvalidSyntaxException();
+        new MethodCall(methodName,arguments,argumentTypeMasks,scope);
     }
 
     /**
-     * Verifies that the type of a declaration appears once.
+     * Verifies that no type name appears in a declaration after its type.
      * @param line the line we are checking
+     * @param index the index of the token after the type
      * @throws InvalidSyntaxException is thrown for invalid syntax
      */
-    private static void verifyTypeAppearsOnce(String line) throws InvalidSyntaxException
-    {
-        Pattern pattern = Pattern.compile(VariableType.getAllTypesRegex());
-        Matcher matcher = pattern.matcher(line);
-        int count = 0;
-        while (matcher.find())
-            count++;
-        if (count!=1)
-            throw new InvalidSyntaxException();
-
-    }
-
-    /**
-     * "Cleans" the parameter string to make use easier
-     * @param parametersString the "unclean" parameter string
-     * @return the "clean" parameter string
-     * @throws InvalidMethodException throws invalid method.
-     */
-    private static ArrayList<String> processParameterString(String parametersString) throws InvalidMethodException
+    private static void verifyTypeAppearsOnce(TokenizedLine line, int index) throws InvalidSyntaxException
     {
-        String[] parameterData = parametersString.trim().split(WHITESPACE);
-        ArrayList<String> cleanParameters = new ArrayList<>();
-        for (String parameter : parameterData)
-        {
-            if (!parameter.equals(EMPTY_STRING))
-                cleanParameters.add(parameter);
+        for (int i = index; i < line.size(); i++) {
+            if (typeAt(line, i) != null)
+                throw new InvalidSyntaxException();
         }
-        if (cleanParameters.size()!=2)
-        {
-            if (!(cleanParameters.size()==3 && cleanParameters.get(0).equals(FINAL)))
-                throw new InvalidMethodException();
-        }
-        return cleanParameters;
     }
-
-
-
-}
\ No newline at end of file
+}
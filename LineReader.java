@@ -0,0 +1,183 @@
+package oop.ex6.parser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a source from a channel, decoding it through a large buffer, and counts the lines it has
+ * read. Lines end with a line feed, a carriage return, or both.
+ * The source is read as it is needed and only the current line is kept, so a source of any length - a pipe or
+ * the standard input as well as a file - is read in the same bounded memory. A source of chars, such as a
+ * reader, is read through the same buffer without decoding.
+ */
+public class LineReader implements Closeable {
+
+    private final static int BUFFER_SIZE = 1 << 16;
+    private final static char LINE_FEED = '\n';
+    private final static char CARRIAGE_RETURN = '\r';
+
+    private final ReadableByteChannel channel;
+    private final Reader reader;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder pending = new StringBuilder();
+    private boolean endOfInput;
+    private boolean flushed;
+    private boolean skipLineFeed;
+    private int lineNumber;
+
+    /**
+     * Creates a reader of the given file, in the default charset.
+     * @param file the file to read.
+     * @throws IOException when the file could not be opened.
+     */
+    public LineReader(File file) throws IOException
+    {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ), Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a reader of the given channel.
+     * @param channel the channel to read. It is closed when the reader is closed.
+     * @param charset the charset of the source.
+     */
+    public LineReader(ReadableByteChannel channel, Charset charset)
+    {
+        this.channel = channel;
+        this.reader = null;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        chars.flip();
+    }
+
+    /**
+     * Creates a reader of the given stream.
+     * @param stream the stream to read. It is closed when the reader is closed.
+     * @param charset the charset of the source.
+     */
+    public LineReader(InputStream stream, Charset charset)
+    {
+        this(Channels.newChannel(stream), charset);
+    }
+
+    /**
+     * Creates a reader of the given source of chars.
+     * @param reader the source to read. It is closed when the line reader is closed.
+     */
+    public LineReader(Reader reader)
+    {
+        this.channel = null;
+        this.reader = reader;
+        this.decoder = null;
+        this.bytes = null;
+        chars.flip();
+    }
+
+    /**
+     * @return the next line, without its line terminator, or null if the source has ended.
+     * @throws IOException when the source could not be read.
+     */
+    public String readLine() throws IOException
+    {
+        while (true) {
+            char[] array = chars.array();
+            int start = chars.position();
+            int limit = chars.limit();
+            if (skipLineFeed && start < limit) {
+                skipLineFeed = false;
+                if (array[start] == LINE_FEED)
+                    start++;
+            }
+            for (int i = start; i < limit; i++) {
+                char c = array[i];
+                if (c == LINE_FEED || c == CARRIAGE_RETURN) {
+                    skipLineFeed = c == CARRIAGE_RETURN;
+                    chars.position(i + 1);
+                    lineNumber++;
+                    if (pending.length() == 0)
+                        return new String(array, start, i - start);
+                    pending.append(array, start, i - start);
+                    String line = pending.toString();
+                    pending.setLength(0);
+                    return line;
+                }
+            }
+            pending.append(array, start, limit - start);
+            chars.position(limit);
+            if (!fill()) {
+                if (pending.length() == 0)
+                    return null;
+                lineNumber++;
+                String line = pending.toString();
+                pending.setLength(0);
+                return line;
+            }
+        }
+    }
+
+    /**
+     * @return the number of lines read so far.
+     */
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    /**
+     * Decodes more of the source into the char buffer.
+     * @return true if there are new chars to read, false if the source has ended.
+     * @throws IOException when the source could not be read.
+     */
+    private boolean fill() throws IOException
+    {
+        chars.clear();
+        if (reader != null) {
+            int read = 0;
+            while (read == 0)
+                read = reader.read(chars);
+            chars.flip();
+            return read > 0;
+        }
+        while (chars.position() == 0 && !flushed) {
+            if (!endOfInput && channel.read(bytes) < 0)
+                endOfInput = true;
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (endOfInput && result.isUnderflow()) {
+                decoder.flush(chars);
+                flushed = true;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    /**
+     * Closes the source of the reader.
+     * @throws IOException when the source could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (reader != null)
+            reader.close();
+        else
+            channel.close();
+    }
+}
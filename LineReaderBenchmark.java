@@ -0,0 +1,92 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.LineReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Scanner;
+
+/**
+ * Compares how fast the lines of a large file are read with a Scanner and with a LineReader.
+ * Usage: LineReaderBenchmark [megabytes] [iterations]
+ */
+public class LineReaderBenchmark {
+
+    private final static int DEFAULT_MEGABYTES = 100;
+    private final static int DEFAULT_ITERATIONS = 3;
+    private final static long BYTES_PER_MEGABYTE = 1 << 20;
+    private final static double NANOS_PER_SECOND = 1e9;
+    private final static String LINE = "    int variable = 5, other = variable; // some padding for the line";
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the size of the file in megabytes, and the number of measured runs.
+     * @throws IOException when the file could not be written or read.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MEGABYTES;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        File file = File.createTempFile("lines", ".sjava");
+        file.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (long written = 0; written < megabytes * BYTES_PER_MEGABYTE; written += LINE.length() + 1)
+                writer.println(LINE);
+        }
+        // warm up both readers before measuring
+        readWithScanner(file);
+        readWithLineReader(file);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            readWithScanner(file);
+        report("Scanner", megabytes, iterations, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            readWithLineReader(file);
+        report("LineReader", megabytes, iterations, System.nanoTime() - start);
+    }
+
+    /**
+     * @param file the file to read.
+     * @return the number of characters in the lines of the file.
+     * @throws IOException when the file could not be read.
+     */
+    private static long readWithScanner(File file) throws IOException
+    {
+        long characters = 0;
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNextLine())
+                characters += scanner.nextLine().length();
+        }
+        return characters;
+    }
+
+    /**
+     * @param file the file to read.
+     * @return the number of characters in the lines of the file.
+     * @throws IOException when the file could not be read.
+     */
+    private static long readWithLineReader(File file) throws IOException
+    {
+        long characters = 0;
+        try (LineReader reader = new LineReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                characters += line.length();
+        }
+        return characters;
+    }
+
+    /**
+     * Prints the throughput of a reader.
+     * @param name the name of the reader.
+     * @param megabytes the size of the file.
+     * @param iterations the number of times the file was read.
+     * @param nanos the time it took to read the file all these times.
+     */
+    private static void report(String name, int megabytes, int iterations, long nanos)
+    {
+        System.out.printf("%s: %.1f MB/s%n", name, megabytes * iterations / (nanos / NANOS_PER_SECOND));
+    }
+}
@@ -4,7 +4,6 @@ package oop.ex6.parser;
 import oop.ex6.codeelements.*;
 
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
 
 /**
  *A class to define the line type in our hands
@@ -21,7 +20,7 @@ public enum LineType {
                  * @throws ParserException throws all the exception that parser exception inherits
                  * @throws CodeElementsException throws all the exceptions that code elements exception inherits
                  */
-                void parse(String line, Scope scope) throws ParserException, CodeElementsException
+                public void parse(TokenizedLine line, Scope scope) throws ParserException, CodeElementsException
                 {
                     LineParser.parseDeclaration(line,scope);
                 }
@@ -35,7 +34,7 @@ public enum LineType {
                  * @throws ParserException throws all the exception that parser exception inherits
                  * @throws CodeElementsException throws all the exceptions that code elements exception inherits
                  */
-                void parse(String line, Scope scope) throws ParserException, CodeElementsException
+                public void parse(TokenizedLine line, Scope scope) throws ParserException, CodeElementsException
                 {
                     LineParser.parseAssignment(line,scope);
                 }
@@ -49,7 +48,7 @@ public enum LineType {
                  * @throws ParserException throws all the exception that parser exception inherits
                  * @throws CodeElementsException throws all the exceptions that code elements exception inherits
                  */
-                void parse (String line, Scope scope) throws CodeElementsException, ParserException
+                public void parse (TokenizedLine line, Scope scope) throws CodeElementsException, ParserException
                 {
                     LineParser.parseMethodSignature(line,scope);
                 }
@@ -63,7 +62,7 @@ public enum LineType {
                  * @throws ParserException throws all the exception that parser exception inherits
                  * @throws CodeElementsException throws all the exceptions that code elements exception inherits
                  */
-                void parse (String line, Scope scope) throws CodeElementsException, ParserException
+                public void parse (TokenizedLine line, Scope scope) throws CodeElementsException, ParserException
                 {
                     LineParser.parseMethodCall(line,scope);
                 }
@@ -77,7 +76,7 @@ public enum LineType {
                  * @throws ParserException throws all the exception that parser exception inherits
                  * @throws CodeElementsException throws all the exceptions that code elements exception inherits
                  */
-                void parse(String line, Scope scope) throws CodeElementsException, ParserException
+                public void parse(TokenizedLine line, Scope scope) throws CodeElementsException, ParserException
                 {
                     LineParser.parseCondition(line,scope);
                 }
@@ -89,7 +88,7 @@ public enum LineType {
                  * @param line the line we'd like to parse
                  * @param scope the scope the line is in
                  */
-                void parse(String line, Scope scope)
+                public void parse(TokenizedLine line, Scope scope)
                 {
                     return;
                 }
@@ -101,7 +100,7 @@ public enum LineType {
                  * @param line the line we'd like to parse
                  * @param scope the scope the line is in
                  */
-                void parse(String line, Scope scope)
+                public void parse(TokenizedLine line, Scope scope)
                 {
                     return;
                 }
@@ -114,7 +113,7 @@ public enum LineType {
                  * @param scope the scope the line is in
                  * @throws InvalidScopeException throws for an invalid scope
                  */
-              void parse (String line, Scope scope) throws InvalidScopeException
+              public void parse (TokenizedLine line, Scope scope) throws InvalidScopeException
               {
                   return;
               }
@@ -126,7 +125,7 @@ public enum LineType {
                  * @param line the line we'd like to parse
                  * @param scope the scope the line is in
                  */
-                void parse (String line, Scope scope) {
+                public void parse (TokenizedLine line, Scope scope) {
                     return;
                 }
             };
@@ -134,13 +133,13 @@ public enum LineType {
 
     /**
      * Chooses a line type according to the identifier.
-     * @param line the line we are choosing the type for
+     * @param line the tokens of the line we are choosing the type for
      * @return returns the type of line in our hands
      * @throws InvalidSyntaxException throws an invalid syntax
      */
-    static LineType chooseLineType(String line) throws InvalidSyntaxException
+    public static LineType chooseLineType(TokenizedLine line) throws InvalidSyntaxException
     {
-        for (LineType type: LineType.values())
+        for (LineType type: TYPES)
         {
             if (type.identify(line))
                 return type;
@@ -149,13 +148,15 @@ public enum LineType {
 
     }
 
-    private Predicate<String> identifier;
+    private final static LineType[] TYPES = LineType.values();
+
+    private Predicate<TokenizedLine> identifier;
 
     /**
      * Line type constructor
      * @param stringPredicate the identifier for the line type.
      */
-    LineType(Predicate<String> stringPredicate) {
+    LineType(Predicate<TokenizedLine> stringPredicate) {
         identifier = stringPredicate;
     }
 
@@ -164,7 +165,7 @@ public enum LineType {
      * @param line the line we'd like to identify
      * @return true if the line has been identified, false otherwise
      */
-    private boolean identify(String line)
+    private boolean identify(TokenizedLine line)
     {
         return identifier.test(line);
     }
@@ -176,7 +177,7 @@ public enum LineType {
      * @throws ParserException throws the abstract parse exception containing all the exceptions
      * @throws CodeElementsException throws the code elements exception containing all its inherited exceptions.
      */
-    void parse(String line, Scope scope) throws ParserException, CodeElementsException
+    public void parse(TokenizedLine line, Scope scope) throws ParserException, CodeElementsException
     {}
 
 
@@ -186,26 +187,18 @@ public enum LineType {
         private final static String IF = "if";
         private final static String WHILE = "while";
         private final static String FINAL = "final";
-        private final static String ASSIGNMENT_SIGN = "=";
-        private final static String SEMICOLON = ";";
-        private final static String OPEN_BRACKET = "(";
-        private final static String CLOSE_BRACLET = ")";
-        private final static String OPEN_SCOPE = "{";
-        private final static String CLOSE_SCOPE = "}";
-        private final static String SLASH = "/";
         private final static String VOID = "void";
-        private final static String COMMENT_ANNOTATION = "//";
-        private final static String RETURN = "return;";
+        private final static String RETURN = "return";
 
 
         /**
          * Using a Predicate function, checks if the line identifies with a declaration line.
          * @return returns true if the line matches declaration criteria, false otherwise.
          */
-        private static Predicate<String> declerationLineIdentifier()
+        private static Predicate<TokenizedLine> declerationLineIdentifier()
         {
-            return ((line -> line.startsWith(FINAL) || VariableType.startsWithVariableTypeName(line)
-            && !line.contains(OPEN_BRACKET) && !line.contains(CLOSE_BRACLET))
+            return ((line -> line.isWord(0, FINAL) || LineParser.typeAt(line, 0) != null
+            && !line.contains(TokenKind.OPEN_PAREN) && !line.contains(TokenKind.CLOSE_PAREN))
             );
         }
 
@@ -213,75 +206,79 @@ public enum LineType {
          * Using a Predicate function, checks if the line identifies with a condition line.
          * @return returns true if the line matches condition criteria, false otherwise.
          */
-        private static Predicate<String> conditionLineIdentifier()
+        private static Predicate<TokenizedLine> conditionLineIdentifier()
         {
-            return (line -> (line.startsWith(IF) || line.startsWith(WHILE)) && line.endsWith(OPEN_SCOPE))  ;
+            return (line -> (line.isWord(0, IF) || line.isWord(0, WHILE)) &&
+                    line.is(line.size() - 1, TokenKind.OPEN_SCOPE))  ;
         }
 
         /**
          * Using a Predicate function, checks if the line identifies with a assignment line.
          * @return returns true if the line matches assignment criteria, false otherwise.
          */
-        private static Predicate<String> assignmentLineIdentifier()
+        private static Predicate<TokenizedLine> assignmentLineIdentifier()
         {
-            return (line -> line.contains(ASSIGNMENT_SIGN) && !line.contains(IF) && !line.contains(WHILE) &&
-                    line.endsWith(SEMICOLON) && !line.startsWith(SLASH) && !line.contains(VOID));
+            return (line -> line.contains(TokenKind.ASSIGN) && !line.containsWord(IF) && !line.containsWord(WHILE)
+                    && line.is(line.size() - 1, TokenKind.SEMICOLON) && !line.containsWord(VOID));
         }
 
         /**
          * Using a Predicate function, checks if the line identifies with a method call line.
          * @return returns true if the line matches method call criteria, false otherwise.
          */
-        private static Predicate<String> methodCallIdentifier()
+        private static Predicate<TokenizedLine> methodCallIdentifier()
         {
-            return (line ->  line.contains(OPEN_BRACKET) && line.contains(CLOSE_BRACLET) && line.endsWith(SEMICOLON) ) ;
+            return (line ->  line.contains(TokenKind.OPEN_PAREN) && line.contains(TokenKind.CLOSE_PAREN) &&
+                    line.is(line.size() - 1, TokenKind.SEMICOLON) ) ;
         }
 
         /**
          * Using a Predicate function, checks if the line identifies with a method signature line.
          * @return returns true if the line matches method signature criteria, false otherwise.
          */
-        private static Predicate<String> methodSignatureIdentifier()
+        private static Predicate<TokenizedLine> methodSignatureIdentifier()
         {
-            return (line -> line.startsWith(VOID) && line.contains(OPEN_BRACKET) && line.contains(CLOSE_BRACLET) &&
-                    !line.contains(SEMICOLON) && line.endsWith(OPEN_SCOPE));
+            return (line -> line.isWord(0, VOID) && line.contains(TokenKind.OPEN_PAREN) &&
+                    line.contains(TokenKind.CLOSE_PAREN) && !line.contains(TokenKind.SEMICOLON) &&
+                    line.is(line.size() - 1, TokenKind.OPEN_SCOPE));
         }
 
         /**
          * Using a Predicate function, checks if the line identifies with a empty line.
          * @return returns true if the line matches empty line criteria, false otherwise.
          */
-        private static Predicate<String> emptyLineIdentifier()
+        private static Predicate<TokenizedLine> emptyLineIdentifier()
         {
-            Pattern pattern = Pattern.compile("\\s*");
-            return (line -> pattern.matcher(line).matches());
+            return (line -> line.size() == 0);
         }
 
         /**
          * Using a Predicate function, checks if the line identifies with a comment line.
          * @return returns true if the line matches comment criteria, false otherwise.
          */
-        private static Predicate<String> commentIdentifier()
+        private static Predicate<TokenizedLine> commentIdentifier()
         {
-            return (line -> line.startsWith(COMMENT_ANNOTATION));
+            return (line -> line.is(0, TokenKind.COMMENT));
         }
 
         /**
          * Using a Predicate function, checks if the line identifies with a close scope line.
          * @return returns true if the line matches close scope criteria, false otherwise.
          */
-        private static Predicate<String> closeScopeIdentifier()
+        private static Predicate<TokenizedLine> closeScopeIdentifier()
         {
-            return (line -> line.equals(CLOSE_SCOPE));
+            return (line -> line.size() == 1 && line.is(0, TokenKind.CLOSE_SCOPE));
         }
 
         /**
-         * Using a Predicate function, checks if the line identifies with a return line.
+         * Using a Predicate function, checks if the line identifies with a return line - return followed right
+         * away by the semicolon, so "return ;" is not a return line.
          * @return returns true if the line matches return criteria, false otherwise.
          */
-        private static Predicate<String> returnIdentifier()
+        private static Predicate<TokenizedLine> returnIdentifier()
         {
-            return (line -> line.equals(RETURN));
+            return (line -> line.size() == 2 && line.isWord(0, RETURN) && line.is(1, TokenKind.SEMICOLON) &&
+                    line.start(1) == line.start(0) + RETURN.length());
         }
 
     }
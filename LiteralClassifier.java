@@ -0,0 +1,143 @@
+package oop.ex6.codeelements;
+
+import java.util.EnumSet;
+
+/**
+ * Classifies a literal into the variable types it is a value of, in a single scan of its characters - rather
+ * than matching it against a regular expression of every type. The types are returned as a bitmask of
+ * {@link VariableType#getMask()}:
+ * an integer (-?\d+) is an int, a double and a boolean, a decimal (-?\d+\.+\d+) is a double and a boolean, true
+ * and false are booleans, anything in double quotes without a '>' is a string, and a single character other
+ * than '>' in single quotes is a char.
+ */
+public class LiteralClassifier {
+
+    private final static char QUOTATION_MARK = '"';
+    private final static char APOSTROPHE = '\'';
+    private final static char MINUS = '-';
+    private final static char DOT = '.';
+    private final static char GREATER_THAN = '>';
+    private final static int CHAR_LITERAL_LENGTH = 3;
+    private final static String TRUE = "true";
+    private final static String FALSE = "false";
+
+    /**
+     * @param literal a literal, or null.
+     * @return the types the literal is a value of, as a bitmask - 0 for null, or for anything that is not a
+     * literal of any type.
+     */
+    public static int classify(String literal)
+    {
+        return literal == null ? 0 : classify(literal, 0, literal.length());
+    }
+
+    /**
+     * @param literal a literal.
+     * @return the set of types the literal is a value of.
+     */
+    public static EnumSet<VariableType> typesOf(String literal)
+    {
+        int typeMask = classify(literal);
+        EnumSet<VariableType> types = EnumSet.noneOf(VariableType.class);
+        for (VariableType type : VariableType.values()) {
+            if (type.accepts(typeMask))
+                types.add(type);
+        }
+        return types;
+    }
+
+    /**
+     * Classifies a part of a text as a literal, without creating a string of it.
+     * @param text the text the literal is in.
+     * @param start the offset of the first character of the literal.
+     * @param end the offset after the last character of the literal.
+     * @return the types the literal is a value of, as a bitmask.
+     */
+    public static int classify(CharSequence text, int start, int end)
+    {
+        if (start >= end)
+            return 0;
+        char first = text.charAt(start);
+        if (first == QUOTATION_MARK)
+            return end - start > 1 && text.charAt(end - 1) == QUOTATION_MARK &&
+                    !contains(text, start + 1, end - 1, GREATER_THAN) ? VariableType.STRING_LITERAL : 0;
+        if (first == APOSTROPHE)
+            return end - start == CHAR_LITERAL_LENGTH && text.charAt(end - 1) == APOSTROPHE &&
+                    text.charAt(start + 1) != GREATER_THAN ? VariableType.CHAR_LITERAL : 0;
+        if (first == MINUS || isDigit(first))
+            return classifyNumber(text, start, end);
+        if (regionEquals(text, start, end, TRUE) || regionEquals(text, start, end, FALSE))
+            return VariableType.BOOLEAN_LITERAL;
+        return 0;
+    }
+
+    /**
+     * @param text the text the number is in.
+     * @param start the offset of the number.
+     * @param end the offset after the number.
+     * @return the types the number is a value of - integers and decimals, where the digits may be separated
+     * by any number of dots.
+     */
+    private static int classifyNumber(CharSequence text, int start, int end)
+    {
+        int i = text.charAt(start) == MINUS ? start + 1 : start;
+        int digits = i;
+        while (i < end && isDigit(text.charAt(i)))
+            i++;
+        if (i == digits)
+            return 0;
+        if (i == end)
+            return VariableType.INTEGER_LITERAL;
+        int dots = i;
+        while (i < end && text.charAt(i) == DOT)
+            i++;
+        if (i == dots || i == end)
+            return 0;
+        while (i < end && isDigit(text.charAt(i)))
+            i++;
+        return i == end ? VariableType.DECIMAL_LITERAL : 0;
+    }
+
+    /**
+     * @param text a text.
+     * @param start the offset of a part of the text.
+     * @param end the offset after the part.
+     * @param c a character.
+     * @return true if the part holds the character.
+     */
+    private static boolean contains(CharSequence text, int start, int end, char c)
+    {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == c)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param text a text.
+     * @param start the offset of a part of the text.
+     * @param end the offset after the part.
+     * @param word a word.
+     * @return true if the part is the word.
+     */
+    private static boolean regionEquals(CharSequence text, int start, int end, String word)
+    {
+        if (end - start != word.length())
+            return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(start + i) != word.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param c the character to check.
+     * @return true if the character is an ascii digit.
+     */
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,117 @@
+package oop.ex6.bench;
+
+import oop.ex6.codeelements.LiteralClassifier;
+import oop.ex6.codeelements.VariableType;
+import oop.ex6.parser.Lexer;
+import oop.ex6.parser.TokenizedLine;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Compares two ways of finding the variable types a literal is a value of: matching it against a regular
+ * expression of every type, as the validator once did, and scanning it once with the literal classifier. The
+ * literals are the values of a generated program, so they repeat as in real code.
+ * Usage: LiteralClassifierBenchmark [lines] [iterations]
+ */
+public class LiteralClassifierBenchmark {
+
+    private final static int DEFAULT_LINES = 20000;
+    private final static int DEFAULT_ITERATIONS = 200;
+    private final static long SEED = 1;
+    private final static String INTEGER = "-?[\\d]+";
+    private final static String DOUBLE = INTEGER + "|-?[\\d]+\\.+[\\d]+";
+    /** The regular expressions of the types, in the order of {@link VariableType}. */
+    private final static String[] TYPE_PATTERNS = {INTEGER, DOUBLE, "\"[^>]*\"", DOUBLE + "|true|false", "'[^>]{1}'"};
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of lines in the generated program, and the number of measured runs.
+     */
+    public static void main(String[] args)
+    {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        String[] literals = collectLiterals(lines);
+        Pattern[] patterns = new Pattern[TYPE_PATTERNS.length];
+        for (int i = 0; i < patterns.length; i++)
+            patterns[i] = Pattern.compile(TYPE_PATTERNS[i]);
+        if (scan(literals) != regex(literals, patterns))
+            throw new IllegalStateException("The classifier disagrees with the regular expressions");
+        for (int run = 0; run < 2; run++) {
+            boolean measured = run == 1;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                regex(literals, patterns);
+            report(measured, "regex", start, literals.length * (long) iterations);
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                scan(literals);
+            report(measured, "scan", start, literals.length * (long) iterations);
+        }
+    }
+
+    /**
+     * @param lines the number of lines of the program.
+     * @return the literal values in a generated program.
+     */
+    private static String[] collectLiterals(int lines)
+    {
+        StringWriter source = new StringWriter();
+        CorpusGenerator.valid(SEED, lines).generate(new PrintWriter(source));
+        ArrayList<String> literals = new ArrayList<>();
+        TokenizedLine tokens = new TokenizedLine();
+        for (String line : source.toString().split("\n")) {
+            Lexer.tokenize(line, tokens);
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.typeMask(i) != 0)
+                    literals.add(tokens.text(i));
+            }
+        }
+        return literals.toArray(new String[0]);
+    }
+
+    /**
+     * @param literals the literals to classify.
+     * @param patterns the regular expression of every type.
+     * @return the sum of the type masks of the literals.
+     */
+    private static long regex(String[] literals, Pattern[] patterns)
+    {
+        long sum = 0;
+        for (String literal : literals) {
+            for (int i = 0; i < patterns.length; i++) {
+                if (patterns[i].matcher(literal).matches())
+                    sum += 1 << i;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @param literals the literals to classify.
+     * @return the sum of the type masks of the literals.
+     */
+    private static long scan(String[] literals)
+    {
+        long sum = 0;
+        for (String literal : literals)
+            sum += LiteralClassifier.classify(literal, 0, literal.length());
+        return sum;
+    }
+
+    /**
+     * Prints the time per literal of a measured run.
+     * @param measured false for a warmup run, which is not printed.
+     * @param name the name of the way.
+     * @param start the time the run started at.
+     * @param literals the number of literals classified in the run.
+     */
+    private static void report(boolean measured, String name, long start, long literals)
+    {
+        if (measured)
+            System.out.printf("%-12s %6.1f ns/literal%n", name, (double) (System.nanoTime() - start) / literals);
+    }
+}
@@ -1,53 +1,30 @@
 package oop.ex6.codeelements;
 
-import oop.ex6.parser.InvalidMethodCallException;
 import oop.ex6.parser.InvalidMethodException;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * A class that represents a method.
+ * A class that represents a method - its name and the types of its parameters, which calls are checked
+ * against.
  */
 public class Method {
-    private String name;
-    private ArrayList<VariableType> parameterVariableTypes;
-    private static HashMap<String, Method> allMethods = new HashMap<>();
-    private String METHODNAME = "[a-zA-Z]{1}\\w{0,}";
-
-    /**
-     * @param name method name for which we're searching.
-     * @return the method name if it exists in our hash map of all methods.
-     * @throws InvalidMethodCallException is thrown when the method we're searching for doesn't exist in our
-     * hash map.
-     */
-    public static Method getMethod(String name) throws InvalidMethodCallException {
-        if (!allMethods.containsKey(name))
-            throw new InvalidMethodCallException();
-        return allMethods.get(name);
-    }
+    private final static VariableType[] NO_PARAMETERS = new VariableType[0];
 
-    /**
-     * Resets the method list.
-     */
-    public static void resetAllMethods()
-    {
-        allMethods = new HashMap<>();
-    }
+    private String name;
+    private VariableType[] parameterTypes;
+    private final static Pattern METHODNAME = Pattern.compile("[a-zA-Z]{1}\\w{0,}");
 
     /**
      * A constructor for a program method.
      * @param name method name (it's "signature")
-     * @param parameterVariableTypes an Array of the parameter types.
+     * @param parameterTypes an Array of the parameter types, null for a method without parameters.
      * @throws InvalidMethodException thrown when the method was called in our scope.
      */
-    public Method(String name, ArrayList<VariableType> parameterVariableTypes) throws InvalidMethodException {
+    public Method(String name, VariableType[] parameterTypes) throws InvalidMethodException {
         this.name = name;
         verifyMethodName();
-        this.parameterVariableTypes = parameterVariableTypes;
-        allMethods.put(this.name, this);
+        this.parameterTypes = parameterTypes == null ? NO_PARAMETERS : parameterTypes;
     }
 
     /**
@@ -56,21 +33,32 @@ public class Method {
      */
     private void verifyMethodName() throws InvalidMethodException
     {
-        Pattern pattern = Pattern.compile(METHODNAME);
-        Matcher matcher = pattern.matcher(this.name);
-        if (!matcher.matches())
+        if (!METHODNAME.matcher(this.name).matches())
             throw new InvalidMethodException();
     }
 
     /**
-     * @return A getter function - returns the variable types.
+     * @return the method name.
      */
-    public ArrayList<VariableType> getParameterVariableTypes()
+    public String getName()
     {
-        return this.parameterVariableTypes;
+        return this.name;
     }
 
+    /**
+     * @return the number of parameters of the method.
+     */
+    public int getArity()
+    {
+        return this.parameterTypes.length;
+    }
 
-
-
+    /**
+     * @param index the index of a parameter.
+     * @return the type of the parameter.
+     */
+    public VariableType getParameterType(int index)
+    {
+        return this.parameterTypes[index];
+    }
 }
@@ -2,69 +2,155 @@ package oop.ex6.parser;
 
 import oop.ex6.codeelements.*;
 
-import java.util.ArrayList;
+import java.util.List;
 
 /**
- *
+ * A call of a method, which is checked once the whole file has been read, since the method may be declared
+ * after it. The call is bound to the symbol id of the method name, and the literal arguments are classified
+ * into the types they are values of when the call is parsed, so checking the call compares bitmasks.
+ * Once the top level scope of the call has closed, the local variables it can see can't change any more, so
+ * the call is settled: the arguments that are local variables are replaced by the types of their values, and
+ * the call only keeps the root scope - so a long file doesn't keep the scopes of all its calls until its end.
+ * From then on the call is checked as soon as the method is declared and the global variables it passes are
+ * declared final.
  */
-public class MethodCall {
-    String name;
-    ArrayList<String> parameterVariableValues;
+public class MethodCall extends DeferredCheck {
+    private final static int UNRESOLVED = -1;
+
+    int methodSymbol;
+    String[] arguments;
+    int[] argumentTypeMasks;
+    int[] valueTypeMasks;
     Scope scope;
-    static ArrayList<MethodCall> allMethodCalls = new ArrayList<>();
 
     /**
-     * Resets all the method calls
+     * Verifies all the method calls
+     * @param context the compilation whose method calls are verified
+     * @throws ParserException throws an invalid method call
+     * @throws CodeElementsException throws for an unmatched value and type, or an uninitialized variable.
      */
-    static void resetAll()
-    {
-        allMethodCalls = new ArrayList<>();
+    static void verifyAll(CompilationContext context) throws ParserException, CodeElementsException {
+        for (MethodCall call : context.getMethodCalls())
+            call.run();
     }
 
     /**
-     * Verifies all the method calls
+     * Verifies all the method calls, collecting a diagnostic for every one that fails.
+     * @param context the compilation whose method calls are verified
+     * @param diagnostics the list the diagnostics are added to
+     */
+    static void verifyAll(CompilationContext context, List<Diagnostic> diagnostics) {
+        for (MethodCall call : context.getMethodCalls()) {
+            try {
+                call.run();
+            }
+            catch (ParserException | CodeElementsException e) {
+                diagnostics.add(Diagnostic.of(call.line, call.column, e));
+            }
+        }
+    }
+
+    /**
+     * Verifies the call against the signature of the called method.
      * @throws InvalidMethodCallException throws an invalid method call
      * @throws IncompatibleValueTypeException throws for an unmatched value and type
      * @throws UndeclaredVariableException throws for undeclared variable
      * @throws UninitializedVariableException throws for an uninitialized variable.
      */
-    static void verifyAll() throws InvalidMethodCallException, IncompatibleValueTypeException,
-            UndeclaredVariableException, UninitializedVariableException {
-        Method method;
+    @Override
+    void verify() throws InvalidMethodCallException,
+            IncompatibleValueTypeException, UndeclaredVariableException, UninitializedVariableException {
+        Method method = scope.getContext().getMethod(methodSymbol);
         Variable variable;
-        for (MethodCall call : allMethodCalls) {
-            method = Method.getMethod(call.name);
-            // iterate over all variables of a method call
-            if (method.getParameterVariableTypes()!=null && call.parameterVariableValues !=null) {
-                if (method.getParameterVariableTypes().size() != call.parameterVariableValues.size())
-                    throw new InvalidMethodCallException();
-                for (int i = 0; i < call.parameterVariableValues.size(); i++) {
-                    if (!method.getParameterVariableTypes().get(i).checkValue(call.parameterVariableValues.get(i)))
-                    {
-                        variable = Variable.getVariable(call.parameterVariableValues.get(i),call.scope);
-                        if (variable == null)
-                            throw new UninitializedVariableException();
-                        if (!method.getParameterVariableTypes().get(i).checkValue(variable.getValue()))
-                            throw new IncompatibleValueTypeException();
-                    }
+        // iterate over all variables of a method call
+        if (method.getArity() != 0 && arguments != null) {
+            if (method.getArity() != arguments.length)
+                throw new InvalidMethodCallException();
+            for (int i = 0; i < arguments.length; i++) {
+                VariableType type = method.getParameterType(i);
+                if (type.accepts(argumentTypeMasks[i]))
+                    continue;
+                int valueTypeMask = valueTypeMasks == null ? UNRESOLVED : valueTypeMasks[i];
+                if (valueTypeMask == UNRESOLVED) {
+                    variable = Variable.getVariable(arguments[i],scope);
+                    if (variable == null)
+                        throw new UninitializedVariableException();
+                    if (!type.accepts(variable.getValue()))
+                        throw new IncompatibleValueTypeException();
                 }
+                else if (!type.accepts(valueTypeMask))
+                    throw new IncompatibleValueTypeException();
+            }
+        }
+    }
+
+    /**
+     * Settles the call once its top level scope has closed - arguments that are local variables are resolved
+     * to the types of their values, and only global variables are left to be found when the call is verified.
+     */
+    @Override
+    void settle() {
+        if (arguments != null) {
+            valueTypeMasks = new int[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                Variable variable = Scope.findLocalVariable(arguments[i], scope);
+                valueTypeMasks[i] = variable == null ? UNRESOLVED : variable.getValueTypeMask();
+                if (variable != null)
+                    arguments[i] = null;
             }
+        }
+        scope = scope.getContext().getRootScope();
+    }
 
+    /**
+     * Resolves the arguments that verifying the call would look up, as long as they are final global variables,
+     * whose values are known for good.
+     * @return the symbol id of the method if it wasn't declared yet, or of an argument that wasn't declared yet,
+     * END_OF_FILE if an argument is a global variable that may still be assigned, or else READY.
+     */
+    @Override
+    int dependency() {
+        CompilationContext context = scope.getContext();
+        Method method;
+        try {
+            method = context.getMethod(methodSymbol);
+        }
+        catch (InvalidMethodCallException e) {
+            return methodSymbol;
+        }
+        if (arguments == null || method.getArity() == 0 || method.getArity() != arguments.length)
+            return READY;
+        for (int i = 0; i < arguments.length; i++) {
+            if (method.getParameterType(i).accepts(argumentTypeMasks[i]) || valueTypeMasks[i] != UNRESOLVED)
+                continue;
+            Variable variable = scope.getVariable(arguments[i]);
+            if (variable == null)
+                return context.getSymbols().intern(arguments[i]);
+            if (!variable.isFinal())
+                return END_OF_FILE;
+            valueTypeMasks[i] = variable.getValueTypeMask();
+            arguments[i] = null;
         }
+        return READY;
     }
 
     /**
      * Method call constructor
      * @param name name of method call
-     * @param variableValues the variable values from the method call
+     * @param arguments the values given to the method, null for a call without arguments
+     * @param argumentTypeMasks the types every argument is a literal value of, 0 for variables
      * @param scope the scope where the method lies
      * @throws UndeclaredVariableException throws for an undeclared variable.
      */
-    MethodCall(String name, ArrayList<String> variableValues, Scope scope) throws UndeclaredVariableException {
-        this.name = name;
-        this.parameterVariableValues = variableValues;
+    MethodCall(String name, String[] arguments, int[] argumentTypeMasks, Scope scope)
+            throws UndeclaredVariableException {
+        super(scope.getContext());
+        this.arguments = arguments;
+        this.argumentTypeMasks = argumentTypeMasks;
         this.scope = scope;
-        allMethodCalls.add(this);
+        CompilationContext context = scope.getContext();
+        this.methodSymbol = context.getSymbols().intern(name);
+        context.addMethodCall(this);
     }
 
 }
@@ -0,0 +1,197 @@
+package oop.ex6.parser;
+
+import java.util.ArrayList;
+
+/**
+ * The bytecode of a single method as it is written, with the depth of the operand stack and the number of local
+ * variable slots it needs. Instructions are given with the change they make to the depth of the stack, which is
+ * followed along the instructions in the order they are written - a branch that leaves a different depth than
+ * the instruction after it has to tell so with {@link #adjustStack(int)}.
+ */
+class MethodCode {
+
+    final static int ACONST_NULL = 1;
+    final static int ICONST_0 = 3;
+    final static int DCONST_0 = 14;
+    final static int BIPUSH = 16;
+    final static int SIPUSH = 17;
+    final static int LDC = 18;
+    final static int LDC_W = 19;
+    final static int LDC2_W = 20;
+    final static int ILOAD = 21;
+    final static int DLOAD = 24;
+    final static int ALOAD = 25;
+    final static int ISTORE = 54;
+    final static int DSTORE = 57;
+    final static int ASTORE = 58;
+    final static int I2D = 135;
+    final static int DCMPL = 151;
+    final static int IFEQ = 153;
+    final static int IFNE = 154;
+    final static int GOTO = 167;
+    final static int RETURN = 177;
+    final static int GETSTATIC = 178;
+    final static int PUTSTATIC = 179;
+    final static int INVOKESTATIC = 184;
+    private final static int WIDE = 196;
+
+    private final static int MAX_U1 = 0xFF;
+    private final static int NOT_PLACED = -1;
+
+    /**
+     * A position in the code that branches jump to. A branch to a label that is not placed yet is patched once
+     * the label is placed.
+     */
+    static class Label {
+        private int offset = NOT_PLACED;
+        private final ArrayList<Integer> branches = new ArrayList<>();
+    }
+
+    private final ClassFileWriter.Bytes code = new ClassFileWriter.Bytes();
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+
+    /**
+     * Adds an instruction without operands.
+     * @param opcode the opcode of the instruction.
+     * @param stackChange the change the instruction makes to the depth of the stack.
+     */
+    void op(int opcode, int stackChange)
+    {
+        code.u1(opcode);
+        adjustStack(stackChange);
+    }
+
+    /**
+     * Adds an instruction with a single byte operand.
+     * @param opcode the opcode of the instruction.
+     * @param operand the operand.
+     * @param stackChange the change the instruction makes to the depth of the stack.
+     */
+    void op1(int opcode, int operand, int stackChange)
+    {
+        code.u1(opcode);
+        code.u1(operand);
+        adjustStack(stackChange);
+    }
+
+    /**
+     * Adds an instruction with a two byte operand, such as an index into the constant pool.
+     * @param opcode the opcode of the instruction.
+     * @param operand the operand.
+     * @param stackChange the change the instruction makes to the depth of the stack.
+     */
+    void op2(int opcode, int operand, int stackChange)
+    {
+        code.u1(opcode);
+        code.u2(operand);
+        adjustStack(stackChange);
+    }
+
+    /**
+     * Adds a load or a store of a local variable, in its wide form if its slot needs it.
+     * @param opcode the opcode of the load or the store.
+     * @param slot the slot of the variable.
+     * @param size the number of slots the variable takes.
+     * @param stackChange the change the instruction makes to the depth of the stack.
+     */
+    void local(int opcode, int slot, int size, int stackChange)
+    {
+        if (slot > MAX_U1) {
+            code.u1(WIDE);
+            op2(opcode, slot, stackChange);
+        }
+        else
+            op1(opcode, slot, stackChange);
+        maxLocals = Math.max(maxLocals, slot + size);
+    }
+
+    /**
+     * Adds a branch to a label.
+     * @param opcode the opcode of the branch.
+     * @param target the label to jump to.
+     * @param stackChange the change the branch makes to the depth of the stack.
+     * @throws UnsupportedCodeException when the label is too far for a branch.
+     */
+    void jump(int opcode, Label target, int stackChange) throws UnsupportedCodeException
+    {
+        int offset = code.length();
+        code.u1(opcode);
+        code.u2(0);
+        adjustStack(stackChange);
+        if (target.offset == NOT_PLACED)
+            target.branches.add(offset);
+        else
+            patch(offset, target.offset);
+    }
+
+    /**
+     * Places a label at the next instruction, and patches the branches that were waiting for it.
+     * @param label the label.
+     * @throws UnsupportedCodeException when a branch is too far from the label.
+     */
+    void place(Label label) throws UnsupportedCodeException
+    {
+        label.offset = code.length();
+        for (int branch : label.branches)
+            patch(branch, label.offset);
+        label.branches.clear();
+    }
+
+    /**
+     * Changes the depth of the stack, as the last instruction left it.
+     * @param change the change.
+     */
+    void adjustStack(int change)
+    {
+        stack += change;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    /**
+     * Reserves slots for local variables that are not written by an instruction, such as parameters.
+     * @param slots the number of slots.
+     */
+    void reserveLocals(int slots)
+    {
+        maxLocals = Math.max(maxLocals, slots);
+    }
+
+    /**
+     * @return the bytes of the code.
+     */
+    ClassFileWriter.Bytes bytes()
+    {
+        return code;
+    }
+
+    /**
+     * @return the deepest the stack gets.
+     */
+    int getMaxStack()
+    {
+        return maxStack;
+    }
+
+    /**
+     * @return the number of local variable slots the code uses.
+     */
+    int getMaxLocals()
+    {
+        return maxLocals;
+    }
+
+    /**
+     * @param branch the offset of a branch.
+     * @param target the offset it jumps to.
+     * @throws UnsupportedCodeException when the target is too far for a branch.
+     */
+    private void patch(int branch, int target) throws UnsupportedCodeException
+    {
+        int distance = target - branch;
+        if (distance != (short) distance)
+            throw new UnsupportedCodeException("A block is too long to branch over");
+        code.setU2(branch + 1, distance);
+    }
+}
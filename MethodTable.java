@@ -0,0 +1,37 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.Method;
+
+import java.util.Arrays;
+
+/**
+ * The methods of a compilation, by the symbol id of their names, so a call that was bound to the id of the
+ * called method when it was parsed finds the method with an array access.
+ */
+class MethodTable {
+
+    private final static int INITIAL_CAPACITY = 64;
+
+    private Method[] methods = new Method[INITIAL_CAPACITY];
+
+    /**
+     * Adds a method, replacing a method of the same name.
+     * @param symbol the symbol id of the name of the method.
+     * @param method the method to add.
+     */
+    void put(int symbol, Method method)
+    {
+        if (symbol >= methods.length)
+            methods = Arrays.copyOf(methods, Math.max(methods.length * 2, symbol + 1));
+        methods[symbol] = method;
+    }
+
+    /**
+     * @param symbol the symbol id of a name.
+     * @return the method with that name, or null if there is none.
+     */
+    Method get(int symbol)
+    {
+        return symbol >= 0 && symbol < methods.length ? methods[symbol] : null;
+    }
+}
@@ -0,0 +1,321 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validates a single file on several threads, with the same result as validating it line by line. A method
+ * body only depends on the global scope as it was when the method was declared and on the method table, and
+ * adds nothing to either, so the file is validated in two phases: the global code and the method signatures
+ * are parsed in order on the calling thread, and the method bodies are collected and validated in parallel,
+ * every one in a context of its own. The global scope only changes in global lines, so the collected bodies
+ * are validated whenever a global line that may change it is reached, before it is parsed - for the usual file,
+ * whose globals are all declared before its methods, all the bodies are validated at once.
+ * A body that declares a method of its own is validated in order with the global code, since it changes the
+ * method table.
+ */
+public class ParallelValidator {
+
+    private final static int NO_LINE = Integer.MAX_VALUE;
+    private final static int SPLIT_LINES = 4096;
+
+    /**
+     * The body of a top level method - the lines after its signature up to its closing scope, the scope its
+     * signature opened, and the first error that was found in it.
+     */
+    private static class MethodBody {
+        private final int start;
+        private int end;
+        private final Scope scope;
+        private boolean nested;
+        private String errorMessage;
+        private int errorLine = NO_LINE;
+
+        /**
+         * @param start the index of the first line of the body.
+         * @param scope the scope of the method, holding its parameters.
+         */
+        private MethodBody(int start, Scope scope)
+        {
+            this.start = start;
+            this.scope = scope;
+        }
+    }
+
+    /**
+     * Validates a range of the collected bodies, splitting it between threads while it is long enough. A task is
+     * never serialized, since it only lives within a validation.
+     */
+    @SuppressWarnings("serial")
+    private class BodyTask extends RecursiveAction {
+        private final int low;
+        private final int high;
+
+        /**
+         * @param low the index of the first body of the range.
+         * @param high the index after the last body of the range.
+         */
+        private BodyTask(int low, int high)
+        {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int lineCount = pending.get(high - 1).end - pending.get(low).start;
+            if (high - low == 1 || lineCount <= SPLIT_LINES) {
+                TokenizedLine line = new TokenizedLine();
+                for (int i = low; i < high; i++)
+                    validateBody(pending.get(i), line);
+                return;
+            }
+            int middle = (low + high) >>> 1;
+            invokeAll(new BodyTask(low, middle), new BodyTask(middle, high));
+        }
+    }
+
+    private final List<String> lines;
+    private final ForkJoinPool pool;
+    private final CompilationContext context = new CompilationContext();
+    private final ArrayList<CompilationContext> methodContexts = new ArrayList<>();
+    private final ArrayList<MethodBody> pending = new ArrayList<>();
+    private String errorMessage;
+    private int errorLine = NO_LINE;
+
+    /**
+     * @param lines the lines of the file.
+     * @param pool the pool the bodies are validated on.
+     */
+    private ParallelValidator(List<String> lines, ForkJoinPool pool)
+    {
+        this.lines = lines;
+        this.pool = pool;
+    }
+
+    /**
+     * Validates the given lines in a compilation of their own.
+     * @param lines the lines of the file.
+     * @param pool the pool the method bodies are validated on.
+     * @return the result of the validation - the same as that of validating the lines one by one.
+     */
+    public static ValidationResult validate(List<String> lines, ForkJoinPool pool)
+    {
+        return new ParallelValidator(lines, pool).validate();
+    }
+
+    /**
+     * @return the result of the validation.
+     */
+    private ValidationResult validate()
+    {
+        parseGlobals();
+        flush();
+        if (errorMessage != null)
+            return ValidationResult.invalid(errorMessage, errorLine);
+        try {
+            verifyDeferred();
+            return ValidationResult.valid();
+        }
+        catch (ParserException | CodeElementsException e) {
+            return ValidationResult.invalid(e.getMessage(), lines.size() + 1);
+        }
+    }
+
+    /**
+     * Runs the deferred checks of all the contexts, in the order they would have been made in had the file been
+     * validated line by line - every line belongs to a single context, whose checks are in the order of their
+     * lines, so a stable sort by line restores that order.
+     * @throws ParserException for a call of a method that doesn't exist
+     * @throws CodeElementsException for a check that failed
+     */
+    private void verifyDeferred() throws ParserException, CodeElementsException
+    {
+        ArrayList<AssignmentCall> assignmentCalls = new ArrayList<>(context.getAssignmentCalls());
+        ArrayList<MethodCall> methodCalls = new ArrayList<>(context.getMethodCalls());
+        for (CompilationContext methodContext : methodContexts) {
+            assignmentCalls.addAll(methodContext.getAssignmentCalls());
+            methodCalls.addAll(methodContext.getMethodCalls());
+        }
+        assignmentCalls.sort(Comparator.comparingInt(check -> check.line));
+        methodCalls.sort(Comparator.comparingInt(check -> check.line));
+        for (AssignmentCall assignmentCall : assignmentCalls)
+            assignmentCall.run();
+        for (MethodCall methodCall : methodCalls)
+            methodCall.run();
+    }
+
+    /**
+     * The first phase - parses the lines outside of the top level methods in order, parses the signatures of
+     * the methods and collects their bodies, up to the first error. Blocks of global code are parsed in order
+     * too, along with any method declared in them.
+     */
+    private void parseGlobals()
+    {
+        Scope rootScope = context.getRootScope();
+        Scope currentScope = rootScope;
+        boolean prevLineIsReturn = false;
+        TokenizedLine line = new TokenizedLine();
+        for (int i = 0; i < lines.size(); i++) {
+            LineType type = null;
+            try {
+                Lexer.tokenize(lines.get(i), line);
+                context.setPosition(i + 1, FileParser.statementColumn(line));
+                type = FileParser.chooseLineType(line);
+                if (type == LineType.METHOD_SIGNATURE && currentScope.isRoot()) {
+                    CompilationContext methodContext = context.fork();
+                    Scope scope = new Scope(rootScope, true, methodContext);
+                    methodContext.setPosition(i + 1, FileParser.statementColumn(line));
+                    type.parse(line, scope);
+                    methodContexts.add(methodContext);
+                    MethodBody body = collectBody(i + 1, scope, line);
+                    i = body.end - 1;
+                    if (body.nested) {
+                        flush();
+                        validateBody(body, line);
+                        recordError(body);
+                        if (errorMessage != null)
+                            return;
+                    }
+                    else
+                        pending.add(body);
+                    prevLineIsReturn = false;
+                    continue;
+                }
+            }
+            catch (ParserException | CodeElementsException e) {
+                flush();
+                recordError(e.getMessage(), i + 1);
+                return;
+            }
+            try {
+                if (type != LineType.EMPTY_LINE && type != LineType.COMMENT) {
+                    flush();
+                    if (errorMessage != null)
+                        return;
+                }
+                currentScope = FileParser.parseLine(line, type, currentScope, prevLineIsReturn);
+                prevLineIsReturn = type == LineType.RETURN;
+            }
+            catch (ParserException | CodeElementsException e) {
+                recordError(e.getMessage(), i + 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of a method body by the scopes its lines open and close. Only lines that end with a scope
+     * bracket can open or close a scope, so only they are tokenized.
+     * @param start the index of the first line of the body.
+     * @param scope the scope of the method.
+     * @param line a line to tokenize into.
+     * @return the body, ending after the line that closes the method, or at the end of the file.
+     */
+    private MethodBody collectBody(int start, Scope scope, TokenizedLine line)
+    {
+        MethodBody body = new MethodBody(start, scope);
+        int depth = 1;
+        for (int i = start; i < lines.size(); i++) {
+            if (!mayChangeScope(lines.get(i)))
+                continue;
+            LineType type;
+            try {
+                Lexer.tokenize(lines.get(i), line);
+                type = LineType.chooseLineType(line);
+            }
+            catch (InvalidSyntaxException e) {
+                continue;
+            }
+            if (type == LineType.METHOD_SIGNATURE)
+                body.nested = true;
+            if (type == LineType.CONDITION || type == LineType.METHOD_SIGNATURE)
+                depth++;
+            else if (type == LineType.CLOSE_SCOPE && --depth == 0) {
+                body.end = i + 1;
+                return body;
+            }
+        }
+        body.end = lines.size();
+        return body;
+    }
+
+    /**
+     * @param text a line of code.
+     * @return false if the line surely neither opens nor closes a scope - it doesn't end with a scope bracket.
+     */
+    private static boolean mayChangeScope(String text)
+    {
+        int i = text.length() - 1;
+        while (i >= 0 && text.charAt(i) <= ' ')
+            i--;
+        return i >= 0 && (text.charAt(i) == '{' || text.charAt(i) == '}');
+    }
+
+    /**
+     * The second phase - validates the collected bodies in parallel, and keeps the earliest error among them.
+     */
+    private void flush()
+    {
+        if (pending.isEmpty())
+            return;
+        pool.invoke(new BodyTask(0, pending.size()));
+        for (MethodBody body : pending)
+            recordError(body);
+        pending.clear();
+    }
+
+    /**
+     * Validates the lines of a method body from the scope of its method, up to the first error.
+     * @param body the body to validate.
+     * @param line a line to tokenize into.
+     */
+    private void validateBody(MethodBody body, TokenizedLine line)
+    {
+        CompilationContext methodContext = body.scope.getContext();
+        Scope currentScope = body.scope;
+        boolean prevLineIsReturn = false;
+        int i = body.start;
+        try {
+            for (; i < body.end; i++) {
+                Lexer.tokenize(lines.get(i), line);
+                methodContext.setPosition(i + 1, FileParser.statementColumn(line));
+                LineType type = FileParser.chooseLineType(line);
+                currentScope = FileParser.parseLine(line, type, currentScope, prevLineIsReturn);
+                prevLineIsReturn = type == LineType.RETURN;
+            }
+        }
+        catch (ParserException | CodeElementsException e) {
+            body.errorMessage = e.getMessage();
+            body.errorLine = i + 1;
+        }
+    }
+
+    /**
+     * @param body a validated body, whose error is kept if it is the earliest one.
+     */
+    private void recordError(MethodBody body)
+    {
+        if (body.errorMessage != null)
+            recordError(body.errorMessage, body.errorLine);
+    }
+
+    /**
+     * Keeps an error if it is the earliest one.
+     * @param message the message of the error.
+     * @param line the line of the error, starting from 1.
+     */
+    private void recordError(String message, int line)
+    {
+        if (line < errorLine) {
+            errorMessage = message;
+            errorLine = line;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.ValidationMode;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Measures how many lines per second the file parser validates, on a large synthetic file made of globals and
+ * methods that use declarations, assignments, conditions and method calls.
+ * Usage: ParseThroughputBenchmark [methods] [iterations]
+ */
+public class ParseThroughputBenchmark {
+
+    private final static int DEFAULT_METHODS = 20000;
+    private final static int DEFAULT_ITERATIONS = 10;
+    private final static int WARMUP_ITERATIONS = 5;
+    private final static double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of methods in the synthetic file, and the number of measured runs.
+     * @throws IOException when the synthetic file could not be written.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_METHODS;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        File file = File.createTempFile("throughput", ".sjava");
+        file.deleteOnExit();
+        int lines = writeSyntheticFile(file, methods);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            validate(file);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            validate(file);
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        System.out.printf("%d lines x %d runs: %.0f lines/s%n", lines, iterations, lines * iterations / seconds);
+    }
+
+    /**
+     * Validates the file, failing the benchmark if the file is not valid.
+     * @param file the file to validate.
+     * @throws IOException when the file could not be read.
+     */
+    private static void validate(File file) throws IOException
+    {
+        ValidationResult result = FileParser.validateFile(file, ValidationMode.SEQUENTIAL);
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+    }
+
+    /**
+     * Writes a valid s-java file with the given number of methods.
+     * @param file the file to write.
+     * @param methods the number of methods to write.
+     * @return the number of lines written.
+     * @throws IOException when the file could not be written.
+     */
+    static int writeSyntheticFile(File file, int methods) throws IOException
+    {
+        String[] body = {
+                "int a = 5, b = 6, c;",
+                "final double d = 3.5;",
+                "String s = \"text\";",
+                "char ch = 'x';",
+                "boolean flag = true;",
+                "c = a;",
+                "// a comment",
+                "",
+                "if (flag || flag && true) {",
+                "    double e = d;",
+                "    while (flag && 1.5) {",
+                "        a = 7;",
+                "    }",
+                "}",
+                "bar(a, \"text\");",
+                "return;",
+        };
+        int lines = 0;
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("int global = 1;");
+            writer.println("void bar(int x, String y) {");
+            writer.println("return;");
+            writer.println("}");
+            lines += 4;
+            for (int i = 0; i < methods; i++) {
+                writer.println("void method" + i + "(int p, final String q) {");
+                for (String line : body)
+                    writer.println(line);
+                writer.println("}");
+                lines += body.length + 2;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,73 @@
+package oop.ex6.bench;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.PipelinedValidator;
+import oop.ex6.parser.ValidationMode;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Measures the {@link PipelinedValidator} against validating a file line by line, on a generated valid file of
+ * over a million lines, with the lines lexed on 1, 2, 4 and so on threads up to one less than the number of
+ * available processors - the parser runs on the calling thread. The speedup can't be more than the time of
+ * the whole validation over the time of parsing alone, so it is only seen on a machine with several cores.
+ * Usage: PipelineBenchmark [lines] [runs]
+ */
+public class PipelineBenchmark {
+
+    private final static int DEFAULT_LINES = 1500000;
+    private final static int DEFAULT_RUNS = 3;
+    private final static long SEED = 7;
+    private final static double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the number of lines of the file, and the number of measured runs.
+     * @throws IOException when the file could not be written or read.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        File file = File.createTempFile("pipeline", ".sjava");
+        file.deleteOnExit();
+        int written;
+        try (PrintWriter writer = new PrintWriter(file)) {
+            written = CorpusGenerator.valid(SEED, lines).generate(writer);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d lines, %d processors%n", written, processors);
+        // warm up both validators before measuring
+        check(FileParser.validateFile(file, ValidationMode.SEQUENTIAL));
+        check(PipelinedValidator.validateFile(file, 1));
+        long sequential = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            check(FileParser.validateFile(file, ValidationMode.SEQUENTIAL));
+            sequential = Math.min(sequential, System.nanoTime() - start);
+        }
+        System.out.printf("line by line: %.1f ms%n", sequential / NANOS_PER_MILLI);
+        for (int lexers = 1; lexers == 1 || lexers < processors; lexers *= 2) {
+            long pipelined = Long.MAX_VALUE;
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                check(PipelinedValidator.validateFile(file, lexers));
+                pipelined = Math.min(pipelined, System.nanoTime() - start);
+            }
+            System.out.printf("pipelined, %d lexers: %.1f ms, speedup %.2f%n", lexers,
+                    pipelined / NANOS_PER_MILLI, (double) sequential / pipelined);
+        }
+    }
+
+    /**
+     * @param result the result of validating the generated file, which must be valid.
+     */
+    private static void check(ValidationResult result)
+    {
+        if (result.getCode() != ValidationResult.CODE_IS_VALID)
+            throw new IllegalStateException(result.getMessage() + " in line " + result.getLine());
+    }
+}
@@ -0,0 +1,356 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Validates a single file with a pipelined front end, with the same result as validating it line by line.
+ * Tokenizing a line and choosing its type only depend on the line itself, while the scopes and the variables
+ * have to be parsed in order, so the file is mapped and split into chunks of whole lines, which lexer threads
+ * decode, tokenize and classify in parallel into a ring of slots, and the calling thread parses the lines of
+ * the chunks in order as they become ready. Every lexer takes every n-th chunk, and a slot is only lexed into
+ * again once its chunk was parsed, so the lexers run at most a ring ahead of the parser, and the tokenized lines
+ * of a slot are reused from chunk to chunk.
+ * Chunks are split at line terminators in the bytes of the file, which is only safe for charsets in which a
+ * line terminator is never part of another character - for any other charset, and for files too large to map,
+ * the file is validated line by line instead.
+ */
+public class PipelinedValidator {
+
+    private final static int CHUNK_BYTES = 1 << 18;
+    private final static int SLOTS_PER_LEXER = 4;
+    private final static byte LINE_FEED = '\n';
+    private final static byte CARRIAGE_RETURN = '\r';
+    private final static String LEXER_NAME = "sjavac-lexer-";
+
+    /**
+     * A slot of the ring - the tokenized lines of a chunk and their types, which are null for a line that has
+     * no type, so the parser reports it.
+     */
+    private static class Slot {
+        private TokenizedLine[] lines = new TokenizedLine[0];
+        private LineType[] types = new LineType[0];
+        private int count;
+        private int ready = -1;
+        private int next;
+
+        /**
+         * @param next the first chunk to lex into the slot.
+         */
+        private Slot(int next)
+        {
+            this.next = next;
+        }
+
+        /**
+         * Makes room for another line in the slot.
+         */
+        private void reserve()
+        {
+            if (count < lines.length)
+                return;
+            int capacity = Math.max(lines.length * 2, 1);
+            lines = Arrays.copyOf(lines, capacity);
+            types = Arrays.copyOf(types, capacity);
+            for (int i = count; i < capacity; i++)
+                lines[i] = new TokenizedLine();
+        }
+    }
+
+    private final ByteBuffer bytes;
+    private final Charset charset;
+    private final int[] starts;
+    private final Slot[] ring;
+    private final Thread[] lexers;
+    private volatile boolean cancelled;
+    private volatile RuntimeException failure;
+
+    /**
+     * @param bytes the bytes of the file.
+     * @param charset the charset of the file.
+     * @param lexers the number of lexer threads.
+     */
+    private PipelinedValidator(ByteBuffer bytes, Charset charset, int lexers)
+    {
+        this.bytes = bytes;
+        this.charset = charset;
+        this.starts = split(bytes);
+        this.ring = new Slot[lexers * SLOTS_PER_LEXER];
+        for (int i = 0; i < ring.length; i++)
+            ring[i] = new Slot(i);
+        this.lexers = new Thread[lexers];
+        for (int i = 0; i < lexers; i++) {
+            int first = i;
+            this.lexers[i] = new Thread(() -> lex(first, lexers), LEXER_NAME + i);
+            this.lexers[i].setDaemon(true);
+        }
+    }
+
+    /**
+     * Validates the given file in a compilation of its own, with its lines lexed on the given number of
+     * threads.
+     * @param file the file to validate
+     * @param lexers the number of threads the lines are lexed on, besides the calling thread, which parses them
+     * @return the result of the validation
+     * @throws IOException when the file could not be read
+     */
+    public static ValidationResult validateFile(File file, int lexers) throws IOException
+    {
+        Charset charset = Charset.defaultCharset();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || !splitsAtLineTerminators(charset))
+                return FileParser.validateFile(file, ValidationMode.SEQUENTIAL);
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PipelinedValidator(bytes, charset, Math.max(lexers, 1)).validate();
+        }
+    }
+
+    /**
+     * @param charset a charset.
+     * @return true if a line terminator is a single byte of its own in the charset, so a text can be split at it
+     * before it is decoded.
+     */
+    private static boolean splitsAtLineTerminators(Charset charset)
+    {
+        return (charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1) &&
+                Arrays.equals("\r\n".getBytes(charset), new byte[] {CARRIAGE_RETURN, LINE_FEED});
+    }
+
+    /**
+     * Splits the bytes into chunks of about CHUNK_BYTES, every one ending after a line terminator - a line
+     * feed, a carriage return, or both - except the last one.
+     * @param bytes the bytes of the file.
+     * @return the offsets the chunks start at, followed by the end of the bytes.
+     */
+    private static int[] split(ByteBuffer bytes)
+    {
+        int size = bytes.limit();
+        int[] starts = new int[size / CHUNK_BYTES + 2];
+        int count = 1;
+        for (int start = 0; size - start > CHUNK_BYTES; ) {
+            start = lineEnd(bytes, start + CHUNK_BYTES);
+            if (start == size)
+                break;
+            starts[count++] = start;
+        }
+        starts[count++] = size;
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * @param bytes the bytes of the file.
+     * @param from an offset in the bytes.
+     * @return the offset after the first line terminator from the given offset, or the end of the bytes.
+     */
+    private static int lineEnd(ByteBuffer bytes, int from)
+    {
+        int size = bytes.limit();
+        for (int i = from; i < size; i++) {
+            byte b = bytes.get(i);
+            if (b == LINE_FEED)
+                return i + 1;
+            if (b == CARRIAGE_RETURN)
+                return i + 1 < size && bytes.get(i + 1) == LINE_FEED ? i + 2 : i + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Parses the lines of the chunks in order, as the lexers make them ready, and runs the deferred checks at
+     * the end of the file, as {@link FileParser#validate(LineReader)} does.
+     * @return the result of the validation
+     * @throws IOException when the validation was interrupted
+     */
+    private ValidationResult validate() throws IOException
+    {
+        for (Thread lexer : lexers)
+            lexer.start();
+        int lineCount = 1;
+        try {
+            CompilationContext context = new CompilationContext();
+            boolean prevLineIsReturn = false;
+            Scope currentScope = context.getRootScope();
+            int lineNumber = 0;
+            for (int index = 0; index < starts.length - 1; index++) {
+                Slot slot = take(index);
+                for (int i = 0; i < slot.count; i++) {
+                    TokenizedLine line = slot.lines[i];
+                    lineCount = ++lineNumber;
+                    context.setPosition(lineCount, FileParser.statementColumn(line));
+                    LineType type = slot.types[i] != null ? slot.types[i] : FileParser.chooseLineType(line);
+                    currentScope = FileParser.parseLine(line, type, currentScope, prevLineIsReturn);
+                    prevLineIsReturn = type == LineType.RETURN;
+                }
+                release(index, slot);
+            }
+            lineCount = lineNumber + 1;
+            FileParser.verifyDeferred(context);
+            return ValidationResult.valid();
+        }
+        catch (ParserException | CodeElementsException e) {
+            return ValidationResult.invalid(e.getMessage(), lineCount);
+        }
+        finally {
+            stop();
+        }
+    }
+
+    /**
+     * Waits until a chunk was lexed.
+     * @param index the index of the chunk.
+     * @return the slot the chunk is in.
+     * @throws IOException when the thread was interrupted while it waited, or a lexer failed on the chunk, with
+     * the failure of the lexer as its cause.
+     */
+    private Slot take(int index) throws IOException
+    {
+        Slot slot = ring[index % ring.length];
+        synchronized (slot) {
+            while (slot.ready != index) {
+                if (failure != null)
+                    throw new IOException("A lexer failed: " + failure, failure);
+                try {
+                    slot.wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Frees the slot of a chunk that was parsed, for the chunk a ring after it.
+     * @param index the index of the chunk.
+     * @param slot the slot the chunk is in.
+     */
+    private void release(int index, Slot slot)
+    {
+        synchronized (slot) {
+            slot.next = index + ring.length;
+            slot.notifyAll();
+        }
+    }
+
+    /**
+     * Stops the lexers that are still running, once the file was parsed or an error was found, and waits for
+     * them to end.
+     */
+    private void stop()
+    {
+        cancelled = true;
+        for (Slot slot : ring) {
+            synchronized (slot) {
+                slot.notifyAll();
+            }
+        }
+        for (Thread lexer : lexers) {
+            try {
+                lexer.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * The loop of a lexer thread - lexes every step-th chunk from the given one, each once its slot is free.
+     * @param first the index of the first chunk of the lexer.
+     * @param step the number of lexers.
+     */
+    private void lex(int first, int step)
+    {
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        int longest = 0;
+        for (int index = first; index < starts.length - 1; index += step)
+            longest = Math.max(longest, starts[index + 1] - starts[index]);
+        CharBuffer chars = CharBuffer.allocate((int) Math.ceil(longest * (double) decoder.maxCharsPerByte()));
+        try {
+            for (int index = first; index < starts.length - 1; index += step) {
+                Slot slot = ring[index % ring.length];
+                synchronized (slot) {
+                    while (slot.next != index && !cancelled)
+                        slot.wait();
+                }
+                if (cancelled)
+                    return;
+                lexChunk(index, slot, decoder, chars);
+                synchronized (slot) {
+                    slot.ready = index;
+                    slot.notifyAll();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // the validation is over
+        }
+        catch (RuntimeException e) {
+            failure = e;
+            for (Slot slot : ring) {
+                synchronized (slot) {
+                    slot.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes a chunk and splits it into lines, as {@link LineReader} does, tokenizing and classifying every
+     * line into the slot.
+     * @param index the index of the chunk.
+     * @param slot the slot of the chunk.
+     * @param decoder the decoder of the lexer.
+     * @param chars the buffer of the lexer, which is large enough for any of its chunks.
+     */
+    private void lexChunk(int index, Slot slot, CharsetDecoder decoder, CharBuffer chars)
+    {
+        ByteBuffer chunk = bytes.duplicate();
+        chunk.limit(starts[index + 1]);
+        chunk.position(starts[index]);
+        decoder.reset();
+        chars.clear();
+        decoder.decode(chunk, chars, true);
+        decoder.flush(chars);
+        char[] array = chars.array();
+        int end = chars.position();
+        slot.count = 0;
+        int start = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i < end && array[i] != LINE_FEED && array[i] != CARRIAGE_RETURN)
+                continue;
+            // the text after the last line terminator is a line of its own, unless it is empty
+            if (i < end || i > start) {
+                slot.reserve();
+                TokenizedLine line = slot.lines[slot.count];
+                Lexer.tokenize(new String(array, start, i - start), line);
+                try {
+                    slot.types[slot.count] = FileParser.chooseLineType(line);
+                }
+                catch (InvalidSyntaxException e) {
+                    slot.types[slot.count] = null;
+                }
+                slot.count++;
+            }
+            if (i + 1 < end && array[i] == CARRIAGE_RETURN && array[i + 1] == LINE_FEED)
+                i++;
+            start = i + 1;
+        }
+    }
+}
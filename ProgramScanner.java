@@ -0,0 +1,143 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.VariableType;
+
+import java.util.ArrayList;
+
+/**
+ * What the backends that take a valid file further - {@link BytecodeGenerator} and {@link Interpreter} - read
+ * the same way. Both read the lines twice: first for the global variables and the method signatures, since a
+ * method may use a global variable or call a method that is declared further down, and then for the code. A
+ * scanner follows the scopes of the first pass, and the helpers read the declarations, the parameters and the
+ * literals of a line in both passes.
+ */
+class ProgramScanner {
+
+    final static String FINAL = "final";
+    final static String WHILE = "while";
+    final static String TRUE = "true";
+    final static String FALSE = "false";
+    final static int CONDITION_OPEN_INDEX = 1;
+    final static int SIGNATURE_NAME_INDEX = 1;
+    final static int SIGNATURE_OPEN_INDEX = 2;
+    final static int CALL_OPEN_INDEX = 1;
+    final static int ASSIGNED_VALUE_INDEX = 2;
+    private final static String DECIMAL_POINTS = "\\.+";
+    private final static String DECIMAL_POINT = ".";
+
+    private final TokenizedLine line;
+    private final String nestedMethodMessage;
+    private int depth;
+
+    /**
+     * @param line the line every scanned line is tokenized into.
+     * @param nestedMethodMessage the message of the error of a method that is declared inside a block, which
+     * the backend has no place for.
+     */
+    ProgramScanner(TokenizedLine line, String nestedMethodMessage)
+    {
+        this.line = line;
+        this.nestedMethodMessage = nestedMethodMessage;
+    }
+
+    /**
+     * Scans the next line of the first pass, tokenizing it into the line of the scanner.
+     * @param text the text of the line.
+     * @return METHOD_SIGNATURE for the signature of a method, DECLARATION for a declaration of global variables,
+     * or null for any other line.
+     * @throws ParserException when a method is declared inside a block.
+     */
+    LineType scan(String text) throws ParserException
+    {
+        Lexer.tokenize(text, line);
+        LineType type = LineType.chooseLineType(line);
+        if (type == LineType.METHOD_SIGNATURE) {
+            if (depth++ > 0)
+                throw new UnsupportedCodeException(nestedMethodMessage);
+            return type;
+        }
+        if (type == LineType.CONDITION)
+            depth++;
+        else if (type == LineType.CLOSE_SCOPE)
+            depth--;
+        else if (type == LineType.DECLARATION && depth == 0)
+            return type;
+        return null;
+    }
+
+    /**
+     * @param line a method signature.
+     * @return the types of the parameters of the method.
+     */
+    static VariableType[] parameterTypes(TokenizedLine line)
+    {
+        ArrayList<VariableType> types = new ArrayList<>();
+        int end = line.size() - 2;
+        for (int index = SIGNATURE_OPEN_INDEX + 1; index < end; index = parameterEnd(line, index) + 1)
+            types.add(LineParser.typeAt(line, parameterTypeIndex(line, index)));
+        return types.toArray(new VariableType[0]);
+    }
+
+    /**
+     * @param line a method signature.
+     * @param index the index of the first token of a parameter.
+     * @return the index of the type of the parameter, which its name follows.
+     */
+    static int parameterTypeIndex(TokenizedLine line, int index)
+    {
+        return line.isWord(index, FINAL) ? index + 1 : index;
+    }
+
+    /**
+     * @param line a method signature.
+     * @param index the index of the first token of a parameter.
+     * @return the index of the token after the parameter - a comma or the closing bracket.
+     */
+    static int parameterEnd(TokenizedLine line, int index)
+    {
+        return parameterTypeIndex(line, index) + 2;
+    }
+
+    /**
+     * @param line a declaration.
+     * @param index the index of the name of a declared variable.
+     * @return the index of the last token of its declarator - the name, or the value assigned to it.
+     */
+    static int declaratorEnd(TokenizedLine line, int index)
+    {
+        return line.is(index + 1, TokenKind.ASSIGN) ? index + 2 : index;
+    }
+
+    /**
+     * @param text a word.
+     * @return true if the word is a boolean literal.
+     */
+    static boolean isBooleanLiteral(String text)
+    {
+        return text.equals(TRUE) || text.equals(FALSE);
+    }
+
+    /**
+     * @param text an integer literal.
+     * @return its value.
+     * @throws UnsupportedCodeException when the literal doesn't fit in an int.
+     */
+    static int parseInt(String text) throws UnsupportedCodeException
+    {
+        try {
+            return Integer.parseInt(text);
+        }
+        catch (NumberFormatException e) {
+            throw new UnsupportedCodeException("The number " + text + " is too large for an int");
+        }
+    }
+
+    /**
+     * @param text a number literal - s-java allows several decimal points in a row, which mean a single one.
+     * @return its value.
+     */
+    static double parseDouble(String text)
+    {
+        return Double.parseDouble(text.replaceAll(DECIMAL_POINTS, DECIMAL_POINT));
+    }
+}
@@ -0,0 +1,28 @@
+package oop.ex6.parser;
+
+/**
+ * An exception class for a program that is stopped while it runs - a loop that goes on for more iterations than
+ * it is allowed, or calls that are nested deeper than the interpreter can run them.
+ */
+public class RunLimitException extends ParserException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String message;
+
+    /**
+     * The exception constructor
+     * @param message a message that describes the limit the program went over.
+     */
+    public RunLimitException(String message) {
+        this.message = message;
+    }
+
+    /**
+     * @return returns a message the describes the error.
+     */
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
@@ -1,73 +1,114 @@
 package oop.ex6.codeelements;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import oop.ex6.parser.CompilationContext;
+import oop.ex6.parser.Diagnostic;
 
 /**
- * A class to define the scopes within the code.
+ * A class to define the scopes within the code. A scope knows its outer scope but not its inner ones, so a
+ * scope is dropped once it has closed and nothing refers to it any more.
+ * The variables of a scope are kept in a table in a {@link VariableArena} - the root scope has an arena of its
+ * own, since the global variables live as long as the compilation, while the local scopes share the arena of
+ * their compilation, which is reset whenever a top level scope closes.
  */
 public class Scope {
 
+    private final static int INITIAL_CAPACITY = 8;
 
-    private HashMap<String,Variable> variables = new HashMap<>();
+    private final VariableArena arena;
+    private int tableOffset;
+    private int tableCapacity;
+    private int variableCount;
     private Scope outerScope;
     private boolean isMethodScope;
-    private ArrayList<Scope> innerScopes;
     private boolean isRoot;
-    private static Scope root;
+    private int depth;
+    private CompilationContext context;
+    private boolean unreachable;
+    private boolean hasReturn;
+    private Diagnostic endlessLoop;
 
     /**
-     * A class that finds the scope of a variable.
-     * @param variableName  - the variable for the scope we're searching
+     * Finds a variable in a scope or in its outer scopes. The name is looked up in the symbol table once, and
+     * the scopes are then searched by its id; a name that was never declared is not searched for at all.
+     * @param variableName the name of the variable we're searching.
      * @param scope our current scope
-     * @return returns the scope in which the variable appears
+     * @return the variable in the innermost scope that has it, or null if there is none.
      */
-    public static Scope searchScopeOfVariable (String variableName, Scope scope)
+    public static Variable findVariable(String variableName, Scope scope)
     {
-        while (scope !=null)
+        int symbol = scope.context.getSymbols().lookup(variableName);
+        if (symbol == SymbolTable.NO_SYMBOL)
+            return null;
+        while (scope != null)
         {
-            if (scope.variables.containsKey(variableName))
-                return scope;
+            Variable variable = scope.lookup(symbol);
+            if (variable != null)
+                return variable;
             scope = scope.outerScope;
         }
         return null;
     }
 
     /**
-     * Resets the root.
+     * The root scope constructor.
+     * @param context the compilation the root scope belongs to.
      */
-    public static void  resetRoot()
+    public Scope(CompilationContext context)
     {
-        root = null;
+        this.outerScope = null;
+        this.isMethodScope = false;
+        this.isRoot = true;
+        this.context = context;
+        this.arena = new VariableArena();
     }
 
     /**
-     * A getter function - gets our scope root.
-     * @return returns our scope root
-     */
-    public static Scope getRoot()
+     * The scope constructor.
+     * @param outerScope the outer scope - the "father" of our current scope
+     * @param methodScope a boolean, indicating if the method is a scope, or not.
+     * */
+    public Scope(Scope outerScope, boolean methodScope)
     {
-        return root;
+        this(outerScope, methodScope, outerScope.context);
     }
 
     /**
-     * The scope constructor.
+     * A constructor for a scope that belongs to a different context than its outer scope - such as a method
+     * that keeps its deferred checks apart from the rest of the compilation.
      * @param outerScope the outer scope - the "father" of our current scope
      * @param methodScope a boolean, indicating if the method is a scope, or not.
-     * */
-    public Scope(Scope outerScope, boolean methodScope)
+     * @param context the context the scope and its inner scopes belong to.
+     */
+    public Scope(Scope outerScope, boolean methodScope, CompilationContext context)
     {
         this.outerScope = outerScope;
         this.isMethodScope = methodScope;
-        this.innerScopes = new ArrayList<>();
-        if (outerScope!= null) {
-            isRoot = false;
-            outerScope.innerScopes.add(this);
-        }
-        else {
-            isRoot = true;
-            root = this;
+        this.isRoot = false;
+        this.depth = outerScope.depth + 1;
+        this.context = context;
+        this.arena = context.getLocalVariables();
+        this.unreachable = outerScope.unreachable;
+    }
+
+    /**
+     * Finds a variable in a scope or in its outer scopes, without the root scope.
+     * @param variableName the name of the variable we're searching.
+     * @param scope our current scope
+     * @return the variable in the innermost scope that has it, or null if there is none but the root scope.
+     */
+    public static Variable findLocalVariable(String variableName, Scope scope)
+    {
+        int symbol = scope.context.getSymbols().lookup(variableName);
+        if (symbol == SymbolTable.NO_SYMBOL)
+            return null;
+        while (scope != null && !scope.isRoot)
+        {
+            Variable variable = scope.lookup(symbol);
+            if (variable != null)
+                return variable;
+            scope = scope.outerScope;
         }
+        return null;
     }
 
     /**
@@ -77,7 +118,17 @@ public class Scope {
      */
     public Variable getVariable(String variableName)
     {
-        return variables.get(variableName);
+        int symbol = context.getSymbols().lookup(variableName);
+        return symbol == SymbolTable.NO_SYMBOL ? null : lookup(symbol);
+    }
+
+    /**
+     * @param symbol the symbol id of a name.
+     * @return the variable of this scope with that name, or null if there is none.
+     */
+    private Variable lookup(int symbol)
+    {
+        return tableCapacity == 0 ? null : arena.get(tableOffset, tableCapacity, symbol);
     }
 
     /**
@@ -89,14 +140,58 @@ public class Scope {
     }
 
     /**
-     * Adds a variable to our dictionary of variables.
+     * Adds a variable to our dictionary of variables. A global variable may be what deferred checks wait for,
+     * so the compilation is told about it.
      * @param variable the variable we'd like to add.
      */
     public void addVariable(Variable variable) throws DuplicateVariableException
     {
-        if (variables.containsKey(variable.getName()))
+        int symbol = context.getSymbols().intern(variable.getName());
+        if (tableCapacity == 0) {
+            tableCapacity = INITIAL_CAPACITY;
+            tableOffset = arena.allocate(tableCapacity);
+        }
+        else if (2 * (variableCount + 1) > tableCapacity) {
+            tableOffset = arena.grow(tableOffset, tableCapacity, tableCapacity * 2);
+            tableCapacity *= 2;
+        }
+        if (arena.putIfAbsent(tableOffset, tableCapacity, symbol, variable) != null)
             throw new DuplicateVariableException();
-        variables.put(variable.getName(),variable);
+        variableCount++;
+        if (isRoot)
+            context.declareGlobal(symbol);
+    }
+
+    /**
+     * @return the number of variables declared in this scope.
+     */
+    public int getVariableCount()
+    {
+        return variableCount;
+    }
+
+    /**
+     * @return the number of scopes this scope is nested in - 0 for the root scope.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return the compilation this scope belongs to.
+     */
+    public CompilationContext getContext()
+    {
+        return this.context;
+    }
+
+    /**
+     * @return true if this is the root (global) scope, false otherwise.
+     */
+    public boolean isRoot()
+    {
+        return this.isRoot;
     }
 
     /**
@@ -105,4 +200,54 @@ public class Scope {
     public boolean isMethodScope() {
         return isMethodScope;
     }
+
+    /**
+     * @return true if the scope can never run - it is the body of a block whose condition is always false, or
+     * it is inside one.
+     */
+    public boolean isUnreachable()
+    {
+        return unreachable;
+    }
+
+    /**
+     * Marks the scope as one that can never run, and so are the scopes that are opened inside it.
+     */
+    public void markUnreachable()
+    {
+        this.unreachable = true;
+    }
+
+    /**
+     * @return true if the scope, or a scope inside it that can run, has a return statement.
+     */
+    public boolean hasReturn()
+    {
+        return hasReturn;
+    }
+
+    /**
+     * Marks the scope as one that has a return statement.
+     */
+    public void markReturn()
+    {
+        this.hasReturn = true;
+    }
+
+    /**
+     * @return the warning of a while loop whose condition always holds, which is reported if the loop closes
+     * without a return in it, or null if the scope is no such loop.
+     */
+    public Diagnostic getEndlessLoop()
+    {
+        return endlessLoop;
+    }
+
+    /**
+     * @param endlessLoop the warning of a while loop whose condition always holds.
+     */
+    public void setEndlessLoop(Diagnostic endlessLoop)
+    {
+        this.endlessLoop = endlessLoop;
+    }
 }
@@ -0,0 +1,100 @@
+package oop.ex6.bench;
+
+import oop.ex6.codeelements.*;
+import oop.ex6.parser.CompilationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Measures variable lookups in deeply nested scopes with many locals each, through the interned scopes of the
+ * validator and through a chain of string keyed maps that is searched with a containsKey and a get per scope,
+ * as scopes used to be searched. Every lookup is of a variable of the outermost scope, from the innermost one.
+ * Usage: ScopeLookupBenchmark [depth] [locals] [lookups]
+ */
+public class ScopeLookupBenchmark {
+
+    private final static int DEFAULT_DEPTH = 20;
+    private final static int DEFAULT_LOCALS = 300;
+    private final static int DEFAULT_LOOKUPS = 2000000;
+    private final static int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args optionally the nesting depth, the number of locals in every scope and the number of lookups.
+     * @throws Exception when the scopes could not be built.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        int locals = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LOCALS;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_LOOKUPS;
+        CompilationContext context = new CompilationContext();
+        Scope scope = context.getRootScope();
+        ArrayList<HashMap<String, Variable>> chain = new ArrayList<>();
+        for (int level = 0; level < depth; level++) {
+            if (level > 0)
+                scope = new Scope(scope, level == 1);
+            HashMap<String, Variable> map = new HashMap<>();
+            for (int i = 0; i < locals; i++) {
+                Variable variable = new Variable(VariableType.INT, "v" + level + "_" + i, "0", false, scope);
+                scope.addVariable(variable);
+                map.put(variable.getName(), variable);
+            }
+            chain.add(0, map);
+        }
+        String[] names = new String[locals];
+        for (int i = 0; i < locals; i++)
+            names[i] = "v0_" + i;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            int found = interned(scope, names, lookups);
+            long internedNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            found += chained(chain, names, lookups);
+            long chainedNanos = System.nanoTime() - start;
+            if (found != 2 * lookups)
+                throw new IllegalStateException("Lookup missed a variable");
+            System.out.printf("depth %d, %d locals: interned %.1f ns/lookup, chained maps %.1f ns/lookup%n",
+                    depth, locals, (double) internedNanos / lookups, (double) chainedNanos / lookups);
+        }
+    }
+
+    /**
+     * @param scope the innermost scope.
+     * @param names the names to look up, in turn.
+     * @param lookups the number of lookups.
+     * @return the number of variables found.
+     */
+    private static int interned(Scope scope, String[] names, int lookups)
+    {
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            if (Scope.findVariable(names[i % names.length], scope) != null)
+                found++;
+        }
+        return found;
+    }
+
+    /**
+     * @param chain the maps of the scopes, from the innermost scope outwards.
+     * @param names the names to look up, in turn.
+     * @param lookups the number of lookups.
+     * @return the number of variables found.
+     */
+    private static int chained(ArrayList<HashMap<String, Variable>> chain, String[] names, int lookups)
+    {
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            String name = names[i % names.length];
+            for (HashMap<String, Variable> map : chain) {
+                if (map.containsKey(name)) {
+                    if (map.get(name) != null)
+                        found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+}
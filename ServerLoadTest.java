@@ -0,0 +1,191 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.ValidationServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Measures the latency and the throughput of a validation server. Every client opens a connection of its own
+ * and sends the same synthetic file as CODE requests, one after the other, timing every request from sending
+ * it to reading its reply; the clients run at once, and the latencies of all their requests are summed up.
+ * Without an address, a server is started in this process on a free port.
+ * Usage: ServerLoadTest [address] [clients] [requests per client] [lines per request]
+ */
+public class ServerLoadTest {
+
+    private final static String IN_PROCESS = "-";
+    private final static String FREE_PORT = "0";
+    private final static int DEFAULT_CLIENTS = 8;
+    private final static int DEFAULT_REQUESTS = 500;
+    private final static int DEFAULT_LINES = 200;
+    private final static int WARMUP_REQUESTS = 200;
+    private final static long SEED = 1;
+    private final static String VALID_REPLY = "\"code\":0";
+    private final static double NANOS_PER_MILLI = 1e6;
+    private final static double NANOS_PER_SECOND = 1e9;
+    private final static double P50 = 0.5, P99 = 0.99;
+
+    /**
+     * Runs the load test.
+     * @param args optionally the address of the server, or - to start one in this process, the number of
+     * clients, the number of requests every client sends, and the number of lines of the file.
+     * @throws Exception when the server could not be started or connected to, or a request failed.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String address = args.length > 0 ? args[0] : IN_PROCESS;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CLIENTS;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_REQUESTS;
+        int lines = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_LINES;
+        StringWriter code = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(code)) {
+            lines = CorpusGenerator.valid(SEED, lines).generate(writer);
+        }
+        String request = ValidationServer.CODE_REQUEST + " " + lines + "\n" + code;
+        ValidationServer server = null;
+        FutureTask<Void> acceptor = null;
+        if (address.equals(IN_PROCESS)) {
+            server = ValidationServer.open(FREE_PORT);
+            ValidationServer started = server;
+            acceptor = new FutureTask<>(() -> {
+                try {
+                    started.serve();
+                }
+                catch (IOException e) {
+                    // no client would be accepted anymore, so the waiting ones are failed
+                    started.close();
+                    throw e;
+                }
+                return null;
+            });
+            Thread thread = new Thread(acceptor);
+            thread.setDaemon(true);
+            thread.start();
+            address = server.getAddress();
+        }
+        try {
+            run(address, 1, WARMUP_REQUESTS, request);
+            long start = System.nanoTime();
+            long[] latencies = run(address, clients, requests, request);
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            Arrays.sort(latencies);
+            System.out.printf("%d clients x %d requests of %d lines: %.0f requests/s, %.0f lines/s%n", clients,
+                    requests, lines, latencies.length / seconds, (double) latencies.length * lines / seconds);
+            System.out.printf("latency: p50=%.3f ms p99=%.3f ms max=%.3f ms%n", percentile(latencies, P50),
+                    percentile(latencies, P99), latencies[latencies.length - 1] / NANOS_PER_MILLI);
+        }
+        finally {
+            if (server != null) {
+                server.close();
+                awaitAcceptor(acceptor);
+            }
+        }
+    }
+
+    /**
+     * Waits for the server in this process to stop accepting clients, which it does when it is closed.
+     * @param acceptor the task that accepts the clients of the server.
+     * @throws Exception when the server failed to accept a client, which fails the test even when the clients
+     * failed first, since the clients fail because of it.
+     */
+    private static void awaitAcceptor(FutureTask<Void> acceptor) throws Exception
+    {
+        try {
+            acceptor.get();
+        }
+        catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /**
+     * Runs clients at once, every one sending requests over a connection of its own.
+     * @param address the address of the server.
+     * @param clients the number of clients.
+     * @param requests the number of requests every client sends.
+     * @param request the request.
+     * @return the latencies of all the requests, in nanoseconds.
+     * @throws Exception when a request failed.
+     */
+    private static long[] run(String address, int clients, int requests, String request) throws Exception
+    {
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        try {
+            Future<?>[] results = new Future<?>[clients];
+            long[] latencies = new long[clients * requests];
+            for (int client = 0; client < clients; client++) {
+                int offset = client * requests;
+                Callable<Void> task = () -> {
+                    send(address, request, latencies, offset, requests);
+                    return null;
+                };
+                results[client] = threads.submit(task);
+            }
+            for (Future<?> result : results)
+                result.get();
+            return latencies;
+        }
+        catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+        finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends requests over a single connection, failing if the file is not valid.
+     * @param address the address of the server.
+     * @param request the request.
+     * @param latencies the latencies of the requests, in nanoseconds.
+     * @param offset the index of the latency of the first request.
+     * @param requests the number of requests to send.
+     * @throws IOException when the server could not be reached.
+     */
+    private static void send(String address, String request, long[] latencies, int offset, int requests)
+            throws IOException
+    {
+        try (SocketChannel connection = ValidationServer.connect(address);
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(connection),
+                     StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(Channels.newOutputStream(connection), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < requests; i++) {
+                long start = System.nanoTime();
+                out.write(request);
+                out.flush();
+                String reply = in.readLine();
+                latencies[offset + i] = System.nanoTime() - start;
+                if (reply == null || !reply.contains(VALID_REPLY))
+                    throw new IllegalStateException("Unexpected reply " + reply);
+            }
+            out.write(ValidationServer.QUIT_REQUEST + "\n");
+        }
+    }
+
+    /**
+     * @param sorted sorted latencies, in nanoseconds.
+     * @param quantile the quantile, between 0 and 1.
+     * @return the latency at the quantile, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double quantile)
+    {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * quantile) - 1);
+        return sorted[Math.max(0, index)] / NANOS_PER_MILLI;
+    }
+}
@@ -1,16 +1,54 @@
 package oop.ex6.main;
 
+import oop.ex6.parser.Diagnostic;
 import oop.ex6.parser.FileParser;
+import oop.ex6.parser.LineReader;
+import oop.ex6.parser.ValidationMode;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The main class that takes the input arguments and sends them to our file parser to parse.
+ * The flags it takes are listed in USAGE, which is printed to the standard error when the arguments can't be
+ * understood. Each flag picks a {@link ValidationMode} or another use of the validator, which is documented
+ * where it is implemented - see {@link BatchValidator}, {@link FileParser#compileFile},
+ * {@link FileParser#parseAndRunFile} and {@link ValidationServer}.
  */
 public class Sjavac {
 
     private static final int IO_ERROR = 2;
+    private static final int CODE_IS_VALID = 0;
+    private static final int CODE_IS_INVALID = 1;
+    private static final String BATCH_FLAG = "--batch";
+    private static final String JSON_FLAG = "--json";
+    private static final String PARALLEL_FLAG = "--parallel";
+    private static final String SERVER_FLAG = "--server";
+    private static final String EMIT_FLAG = "--emit";
+    private static final String RUN_FLAG = "--run";
+    private static final String SKIP_DEAD_FLAG = "--skip-dead";
+    private static final String ANALYZE_FLAG = "--analyze";
+    private static final String PIPELINED_FLAG = "--pipelined";
+    private static final String STANDARD_INPUT = "-";
+    private static final String FLAG_PREFIX = "--";
+    private static final String USAGE = "Usage: Sjavac [FLAG] FILE\n" +
+            "  FILE                  validate the file and print its result code; - reads the standard input\n" +
+            "  --json FILE           print all the errors of the file as a JSON object\n" +
+            "  --analyze [--skip-dead] FILE\n" +
+            "                        print the errors and the warnings of the file as a JSON object\n" +
+            "  --skip-dead FILE      don't validate the bodies of if and while blocks whose conditions are\n" +
+            "                        always false, only follow their scopes\n" +
+            "  --parallel FILE       validate the method bodies in parallel\n" +
+            "  --pipelined FILE      lex the lines on the other processors while they are parsed in order\n" +
+            "  --emit DIR FILE       also compile a valid file to a class file in DIR\n" +
+            "  --run FILE [METHOD]   also run a valid file, and then METHOD, and print its global variables\n" +
+            "  --server ADDRESS      validate the requests of clients on a port or a unix domain socket\n" +
+            "  --batch [--jobs N] [--cache FILE] [PATH...]\n" +
+            "                        validate many files, or the files listed in the standard input";
 
     /**
      * The main function that sends our file to parsing.
@@ -19,8 +57,50 @@ public class Sjavac {
     public static void main (String [] args)
     {
         try {
+            if (args.length == 0) {
+                printUsage();
+                return;
+            }
+            if (args[0].equals(BATCH_FLAG)) {
+                BatchValidator.run(Arrays.asList(args).subList(1, args.length), System.out);
+                return;
+            }
+            if (args.length > 1 && args[0].equals(JSON_FLAG)) {
+                printJson(args[1]);
+                return;
+            }
+            if (args.length > 1 && args[0].equals(ANALYZE_FLAG)) {
+                boolean skipDead = args.length > 2 && args[1].equals(SKIP_DEAD_FLAG);
+                printAnalysis(args[skipDead ? 2 : 1], skipDead);
+                return;
+            }
+            ValidationMode mode = validationMode(args[0]);
+            if (args.length > 1 && mode != null) {
+                FileParser.parseFile(new File(args[1]), mode);
+                return;
+            }
+            if (args.length > 2 && args[0].equals(EMIT_FLAG)) {
+                FileParser.parseAndCompileFile(new File(args[2]), new File(args[1]));
+                return;
+            }
+            if (args.length > 1 && args[0].equals(RUN_FLAG)) {
+                FileParser.parseAndRunFile(new File(args[1]), args.length > 2 ? args[2] : null);
+                return;
+            }
+            if (args.length > 1 && args[0].equals(SERVER_FLAG)) {
+                runServer(args[1]);
+                return;
+            }
+            if (args[0].equals(STANDARD_INPUT)) {
+                FileParser.parseInput(System.in);
+                return;
+            }
+            if (args[0].startsWith(FLAG_PREFIX)) {
+                printUsage();
+                return;
+            }
             File file = new File(args[0]);
-            FileParser.parseFile(file);
+            FileParser.parseFile(file, ValidationMode.SEQUENTIAL);
 
         }
         catch (IOException e) {
@@ -28,4 +108,127 @@ public class Sjavac {
         }
 
     }
+
+    /**
+     * @param flag the first argument.
+     * @return the way the file is validated if the flag picks one, or null.
+     */
+    private static ValidationMode validationMode(String flag)
+    {
+        switch (flag) {
+            case SKIP_DEAD_FLAG:
+                return ValidationMode.SKIP_UNREACHABLE;
+            case PARALLEL_FLAG:
+                return ValidationMode.PARALLEL;
+            case PIPELINED_FLAG:
+                return ValidationMode.PIPELINED;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Prints the usage to the standard error, and the result of arguments that can't be understood - the io
+     * error result code, as for a file that can't be read.
+     */
+    private static void printUsage()
+    {
+        System.err.println(USAGE);
+        System.out.println(IO_ERROR);
+    }
+
+    /**
+     * Runs a validation server until the process is killed, closing it on the way out so the socket file of a
+     * unix domain socket is removed.
+     * @param address the port or the socket path to listen on.
+     * @throws IOException when the server could not be opened.
+     */
+    private static void runServer(String address) throws IOException
+    {
+        ValidationServer server = ValidationServer.open(address);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            }
+            catch (IOException e) {
+                // the process is going away anyway
+            }
+        }));
+        System.err.println("Listening on " + server.getAddress());
+        server.serve();
+    }
+
+    /**
+     * Prints all the errors of the given file as a JSON object, with the path of the file, its result code and
+     * its list of diagnostics.
+     * @param path the path of the file to validate, or - for the standard input.
+     */
+    private static void printJson(String path)
+    {
+        try {
+            List<Diagnostic> diagnostics = path.equals(STANDARD_INPUT) ?
+                    FileParser.diagnose(new LineReader(System.in, Charset.defaultCharset())) :
+                    FileParser.diagnoseFile(new File(path));
+            System.out.println(jsonReport(path, diagnostics));
+        }
+        catch (IOException e) {
+            System.out.println(jsonError(path, e.getMessage()));
+        }
+    }
+
+    /**
+     * Prints all the errors and the warnings of the given file as a JSON object, as printJson prints its errors,
+     * with its list of warnings after them.
+     * @param path the path of the file to validate, or - for the standard input.
+     * @param skipDead true to skip the code that can never run, rather than collect its errors.
+     */
+    private static void printAnalysis(String path, boolean skipDead)
+    {
+        ArrayList<Diagnostic> warnings = new ArrayList<>();
+        try (LineReader reader = path.equals(STANDARD_INPUT) ?
+                new LineReader(System.in, Charset.defaultCharset()) : new LineReader(new File(path))) {
+            List<Diagnostic> diagnostics = FileParser.diagnose(reader, warnings, skipDead);
+            System.out.println(jsonReport(path, diagnostics, warnings));
+        }
+        catch (IOException e) {
+            System.out.println(jsonError(path, e.getMessage()));
+        }
+    }
+
+    /**
+     * @param path the path of the validated file.
+     * @param diagnostics the errors of the file.
+     * @param warnings the warnings of the file.
+     * @return the JSON object of the file, as jsonReport writes it, with its list of warnings.
+     */
+    static String jsonReport(String path, List<Diagnostic> diagnostics, List<Diagnostic> warnings)
+    {
+        String report = jsonReport(path, diagnostics);
+        return report.substring(0, report.length() - 1) + ",\"warnings\":" + Diagnostic.toJson(warnings) + "}";
+    }
+
+    /**
+     * @param path the path of the validated file.
+     * @param diagnostics the errors of the file.
+     * @return the JSON object of the file, with its path, its result code and its list of diagnostics.
+     */
+    static String jsonReport(String path, List<Diagnostic> diagnostics)
+    {
+        int code = diagnostics.isEmpty() ? CODE_IS_VALID : CODE_IS_INVALID;
+        return "{\"file\":" + Diagnostic.quote(path) + ",\"code\":" + code + ",\"diagnostics\":" +
+                Diagnostic.toJson(diagnostics) + "}";
+    }
+
+    /**
+     * @param path the path of the file that could not be validated, or null for an error that isn't about a
+     * file.
+     * @param message the message of the error.
+     * @return the JSON object of the file, with its path if there is one, the io error result code and the error.
+     */
+    static String jsonError(String path, String message)
+    {
+        String file = path == null ? "" : "\"file\":" + Diagnostic.quote(path) + ",";
+        return "{" + file + "\"code\":" + IO_ERROR + ",\"error\":" + Diagnostic.quote(message) +
+                ",\"diagnostics\":[]}";
+    }
 }
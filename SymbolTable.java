@@ -0,0 +1,51 @@
+package oop.ex6.codeelements;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gives every identifier of a compilation a dense integer id, so scopes can find their variables by id rather
+ * than by comparing names. Names are not interned as the lines are lexed, since the lexer knows nothing of the
+ * compilation; they are interned where the parser first needs their id - when a variable or a method is
+ * declared, or when a deferred check has to wait for a name - while looking a name up never interns it. Ids are
+ * given in that order, starting from 0. The table may be used by several threads at once.
+ */
+public class SymbolTable {
+
+    /** The id of a name that was never interned. */
+    public final static int NO_SYMBOL = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * @param name an identifier.
+     * @return the id of the identifier, given to it now if it has none yet.
+     */
+    public int intern(String name)
+    {
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+        return ids.computeIfAbsent(name, key -> nextId.getAndIncrement());
+    }
+
+    /**
+     * @param name an identifier.
+     * @return the id of the identifier, or NO_SYMBOL if it was never interned - in which case no scope can hold
+     * a variable with that name.
+     */
+    public int lookup(String name)
+    {
+        Integer id = ids.get(name);
+        return id == null ? NO_SYMBOL : id;
+    }
+
+    /**
+     * @return the number of interned identifiers.
+     */
+    public int size()
+    {
+        return nextId.get();
+    }
+}
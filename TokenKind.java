@@ -0,0 +1,36 @@
+package oop.ex6.parser;
+
+/**
+ * The kinds of tokens a line of s-java is made of.
+ */
+public enum TokenKind {
+    /** An identifier or a keyword, including true and false. */
+    WORD,
+    /** A number, possibly negative and possibly with a fraction. */
+    NUMBER,
+    /** A string literal, including its quotation marks. */
+    STRING,
+    /** A char literal, including its apostrophes. */
+    CHAR,
+    OPEN_PAREN,
+    CLOSE_PAREN,
+    OPEN_SCOPE,
+    CLOSE_SCOPE,
+    SEMICOLON,
+    COMMA,
+    ASSIGN,
+    OR,
+    AND,
+    /** A comment that takes the whole line. */
+    COMMENT,
+    /** Any character s-java doesn't know. */
+    OTHER;
+
+    /**
+     * @return true if a token of this kind can be a value - a variable name or a literal.
+     */
+    boolean isValue()
+    {
+        return this == WORD || this == NUMBER || this == STRING || this == CHAR;
+    }
+}
@@ -0,0 +1,190 @@
+package oop.ex6.parser;
+
+import oop.ex6.codeelements.Constant;
+
+import java.util.Arrays;
+
+/**
+ * A line of code split into tokens. The tokens are kept as offsets into the line, so the text of a token is
+ * only created when it is asked for, and a tokenized line can be reset and reused for the next line without
+ * allocating. Asking for a token past the end of the line is safe, and behaves as if there was no such token.
+ */
+public class TokenizedLine {
+
+    private final static int INITIAL_CAPACITY = 16;
+
+    private String line;
+    private TokenKind[] kinds = new TokenKind[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] typeMasks = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * The tokenized line constructor, with no line and no tokens yet.
+     */
+    public TokenizedLine()
+    {
+    }
+
+    /**
+     * Removes all the tokens, keeping the buffers, to take the tokens of a new line.
+     * @param line the line the tokens are taken from.
+     */
+    void reset(String line)
+    {
+        this.line = line;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a token to the end of the line.
+     * @param kind the kind of the token.
+     * @param start the offset of the first character of the token.
+     * @param end the offset after the last character of the token.
+     * @param typeMask the types the token is a literal value of, as a bitmask of variable types.
+     */
+    void add(TokenKind kind, int start, int end, int typeMask)
+    {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            typeMasks = Arrays.copyOf(typeMasks, size * 2);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        ends[size] = end;
+        typeMasks[size] = typeMask;
+        size++;
+    }
+
+    /**
+     * @return the line the tokens were taken from.
+     */
+    public String getLine()
+    {
+        return line;
+    }
+
+    /**
+     * @return the number of tokens in the line.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param index the index of the token.
+     * @return the kind of the token, or null if there is no such token.
+     */
+    public TokenKind kind(int index)
+    {
+        if (index < 0 || index >= size)
+            return null;
+        return kinds[index];
+    }
+
+    /**
+     * @param index the index of the token.
+     * @param kind the expected kind.
+     * @return true if the token exists and is of the given kind.
+     */
+    public boolean is(int index, TokenKind kind)
+    {
+        return kind(index) == kind;
+    }
+
+    /**
+     * @param index the index of the token.
+     * @return true if the token exists and can be a value - a variable name or a literal.
+     */
+    public boolean isValue(int index)
+    {
+        TokenKind kind = kind(index);
+        return kind != null && kind.isValue();
+    }
+
+    /**
+     * @param index the index of the token.
+     * @return the variable types the token is a literal value of, as a bitmask (see
+     * {@link oop.ex6.codeelements.VariableType#getMask()}) - 0 for a variable name, a token that is not a value,
+     * or no token at all.
+     */
+    public int typeMask(int index)
+    {
+        if (index < 0 || index >= size)
+            return 0;
+        return typeMasks[index];
+    }
+
+    /**
+     * @param index the index of the token.
+     * @return the constant of a literal token, parsed from the line without creating the text of the token, or
+     * null for a variable name, a token that is not a value, or no token at all.
+     */
+    public Constant constant(int index)
+    {
+        int typeMask = typeMask(index);
+        return typeMask == 0 ? null : Constant.parse(line, starts[index], ends[index], typeMask);
+    }
+
+    /**
+     * Checks if a token is the given word, without creating the text of the token.
+     * @param index the index of the token.
+     * @param word the expected word.
+     * @return true if the token exists, is a word, and equals the given word.
+     */
+    public boolean isWord(int index, String word)
+    {
+        return is(index, TokenKind.WORD) && ends[index] - starts[index] == word.length() &&
+                line.regionMatches(starts[index], word, 0, word.length());
+    }
+
+    /**
+     * @param kind the kind to search for.
+     * @return true if the line has a token of the given kind.
+     */
+    public boolean contains(TokenKind kind)
+    {
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == kind)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param word the word to search for.
+     * @return true if the line has a word token that equals the given word.
+     */
+    public boolean containsWord(String word)
+    {
+        for (int i = 0; i < size; i++) {
+            if (isWord(i, word))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param index the index of the token.
+     * @return the text of the token, or null if there is no such token.
+     */
+    public String text(int index)
+    {
+        if (index < 0 || index >= size)
+            return null;
+        return line.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * @param index the index of the token.
+     * @return the offset of the first character of the token in the line.
+     */
+    public int start(int index)
+    {
+        return starts[index];
+    }
+}
@@ -0,0 +1,28 @@
+package oop.ex6.parser;
+
+/**
+ * An exception class for valid code that can't be compiled to a class file - code that s-java allows but the
+ * JVM has no place for, such as a method declared inside another one, or code that is too large for a class.
+ */
+public class UnsupportedCodeException extends ParserException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String message;
+
+    /**
+     * The exception constructor
+     * @param message a message that describes what can't be compiled.
+     */
+    public UnsupportedCodeException(String message) {
+        this.message = message;
+    }
+
+    /**
+     * @return returns a message the describes the error.
+     */
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,250 @@
+package oop.ex6.main;
+
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.LineReader;
+import oop.ex6.parser.ValidationResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of validation results that is kept on disk between runs, so files that didn't change are not
+ * validated again. Results are keyed by the SHA-256 hash of the content of the file, and stamped with the
+ * version of the validator, so results of an older validator are never used.
+ * The cache file is a header followed by records that are only ever appended. It is memory mapped and read
+ * once when the cache is opened; the results found during the run are appended when it is closed. The header
+ * counts the runs that closed the cache, and every record is stamped with the last run its result was used in,
+ * so the results of contents that are gone - files that were edited or deleted since - age out, while a run
+ * over only some of the files keeps the results of the others. A result that is still used is appended again
+ * with a new stamp once its record is half as old as that. Records that are stale - written by another
+ * validator version, replaced by a later record, or not used for MAX_IDLE_RUNS runs - are evicted by
+ * rewriting the file once they make up most of it.
+ */
+public class ValidationCache implements Closeable {
+
+    /** Must change whenever the validation rules change, so that older results are evicted. */
+    final static int VALIDATOR_VERSION = 10;
+
+    private final static int MAGIC = 0x534A5643;
+    private final static int FORMAT = 2;
+    private final static int RUN_OFFSET = 2 * Integer.BYTES;
+    private final static int HEADER_LENGTH = 3 * Integer.BYTES;
+    private final static String DIGEST_ALGORITHM = "SHA-256";
+    private final static int DIGEST_LENGTH = 32;
+    private final static int RECORD_FIXED_LENGTH =
+            2 * Integer.BYTES + DIGEST_LENGTH + 1 + Integer.BYTES + Short.BYTES;
+    private final static int MAX_MESSAGE_LENGTH = 0xFFFF;
+    private final static double MAX_STALE_RATIO = 0.5;
+    private final static int MAX_IDLE_RUNS = 32;
+    private final static int REFRESH_RUNS = MAX_IDLE_RUNS / 2;
+    private final static String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path path;
+    private final Map<ByteBuffer, ValidationResult> entries = new ConcurrentHashMap<>();
+    private final Map<ByteBuffer, ValidationResult> added = new ConcurrentHashMap<>();
+    private final Map<ByteBuffer, Integer> lastUsed = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private int run = 1;
+    private int storedRecords;
+    private boolean validHeader;
+
+    /**
+     * Opens the cache kept in the given file, reading all its records.
+     * @param path the cache file. It is created when the cache is closed if it doesn't exist.
+     * @throws IOException when the cache file could not be read.
+     */
+    public ValidationCache(Path path) throws IOException
+    {
+        this.path = path;
+        if (Files.exists(path))
+            load();
+    }
+
+    /**
+     * Returns the result of the given file from the cache, validating the file if its content is not there.
+     * Safe to call from several threads at once.
+     * @param file the file to validate.
+     * @return the result of the file.
+     * @throws IOException when the file could not be read.
+     */
+    public ValidationResult validate(File file) throws IOException
+    {
+        byte[] content = Files.readAllBytes(file.toPath());
+        ByteBuffer key = ByteBuffer.wrap(digest(content));
+        ValidationResult result = entries.get(key);
+        if (result != null) {
+            hits.incrementAndGet();
+            Integer last = lastUsed.put(key, run);
+            if (last != null && run - last >= REFRESH_RUNS)
+                added.put(key, result);
+            return result;
+        }
+        misses.incrementAndGet();
+        LineReader reader = new LineReader(Channels.newChannel(new ByteArrayInputStream(content)),
+                Charset.defaultCharset());
+        result = FileParser.validate(reader);
+        entries.put(key, result);
+        added.put(key, result);
+        lastUsed.put(key, run);
+        return result;
+    }
+
+    /**
+     * @return a line that reports how the cache was used during the run.
+     */
+    public String report()
+    {
+        return "cache: " + hits.get() + " hits, " + misses.get() + " misses, " + countStale() +
+                " stale records of " + (storedRecords + added.size());
+    }
+
+    /**
+     * @return the number of records of the cache file, once the results of the run are appended, that are
+     * stale - all but the last record of every result that was used in the last MAX_IDLE_RUNS runs.
+     */
+    private int countStale()
+    {
+        return storedRecords + added.size() - live().size();
+    }
+
+    /**
+     * @return the results that were used in the last MAX_IDLE_RUNS runs.
+     */
+    private Map<ByteBuffer, ValidationResult> live()
+    {
+        Map<ByteBuffer, ValidationResult> live = new HashMap<>();
+        for (Map.Entry<ByteBuffer, Integer> entry : lastUsed.entrySet()) {
+            if (run - entry.getValue() <= MAX_IDLE_RUNS)
+                live.put(entry.getKey(), entries.get(entry.getKey()));
+        }
+        return live;
+    }
+
+    /**
+     * Writes the results found during the run to the cache file and counts the run, rewriting the file with
+     * only its live results if the stale records make up most of it.
+     * @throws IOException when the cache file could not be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        ByteBuffer runNumber = ByteBuffer.allocate(Integer.BYTES).putInt(run);
+        runNumber.flip();
+        if (!validHeader || countStale() > (storedRecords + added.size()) * MAX_STALE_RATIO) {
+            Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(FORMAT).putInt(run);
+                header.flip();
+                channel.write(header);
+                write(channel, live());
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        else {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(runNumber, RUN_OFFSET);
+                channel.position(channel.size());
+                write(channel, added);
+            }
+        }
+    }
+
+    /**
+     * Reads all the records of the cache file. A file with an unknown header is ignored, and a truncated
+     * record at its end - left by a run that was stopped while writing - is dropped.
+     * @throws IOException when the cache file could not be read.
+     */
+    private void load() throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT)
+                return;
+            validHeader = true;
+            run = buffer.getInt() + 1;
+            while (buffer.remaining() >= RECORD_FIXED_LENGTH) {
+                int version = buffer.getInt();
+                int stamp = buffer.getInt();
+                byte[] digest = new byte[DIGEST_LENGTH];
+                buffer.get(digest);
+                int code = buffer.get();
+                int line = buffer.getInt();
+                int messageLength = Short.toUnsignedInt(buffer.getShort());
+                if (buffer.remaining() < messageLength) {
+                    validHeader = false;
+                    break;
+                }
+                byte[] message = new byte[messageLength];
+                buffer.get(message);
+                storedRecords++;
+                if (version != VALIDATOR_VERSION)
+                    continue;
+                ValidationResult result = new ValidationResult(code,
+                        code == ValidationResult.CODE_IS_VALID ? null : new String(message, StandardCharsets.UTF_8),
+                        line);
+                ByteBuffer key = ByteBuffer.wrap(digest);
+                entries.put(key, result);
+                lastUsed.merge(key, stamp, Math::max);
+            }
+            if (buffer.hasRemaining())
+                validHeader = false;
+        }
+    }
+
+    /**
+     * Appends records of the given results to the cache file, each stamped with the last run it was used in.
+     * @param channel the channel of the cache file, positioned at its end.
+     * @param results the results to write, by the digest of their content.
+     * @throws IOException when the cache file could not be written.
+     */
+    private void write(FileChannel channel, Map<ByteBuffer, ValidationResult> results) throws IOException
+    {
+        for (Map.Entry<ByteBuffer, ValidationResult> entry : results.entrySet()) {
+            ValidationResult result = entry.getValue();
+            byte[] message = result.getMessage() == null ? new byte[0] :
+                    result.getMessage().getBytes(StandardCharsets.UTF_8);
+            int messageLength = Math.min(message.length, MAX_MESSAGE_LENGTH);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_FIXED_LENGTH + messageLength);
+            record.putInt(VALIDATOR_VERSION).putInt(lastUsed.get(entry.getKey())).put(entry.getKey().duplicate())
+                    .put((byte) result.getCode())
+                    .putInt(result.getLine()).putShort((short) messageLength).put(message, 0, messageLength);
+            record.flip();
+            while (record.hasRemaining())
+                channel.write(record);
+        }
+    }
+
+    /**
+     * @param content the content of a file.
+     * @return the SHA-256 hash of the content.
+     */
+    private static byte[] digest(byte[] content)
+    {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
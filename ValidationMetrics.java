@@ -0,0 +1,259 @@
+package oop.ex6.parser;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the validator does - the lines of every line type, how long every phase of the validation takes,
+ * and how large scopes and the deferred checks grow - summed over every file validated in the process, on any
+ * thread. The metrics are off unless the process is started with -Dsjavac.metrics=true; the flag is a
+ * constant, so when it is off the checks of it are compiled away and the validator runs as if the metrics
+ * didn't exist. When they are on, they are exported through JMX as {@value #OBJECT_NAME}, and a batch run
+ * prints them when it ends.
+ * Timings and sizes are kept in histograms of power of two buckets, so a percentile is accurate to within a
+ * factor of two.
+ */
+public final class ValidationMetrics implements ValidationMetricsMXBean {
+
+    /** True if the metrics are collected. */
+    public final static boolean ENABLED = Boolean.getBoolean("sjavac.metrics");
+
+    /** The name the metrics are exported under through JMX. */
+    public final static String OBJECT_NAME = "oop.ex6:type=ValidationMetrics";
+
+    private final static double P50 = 0.5;
+    private final static double P99 = 0.99;
+
+    /**
+     * The timed phases of the validation.
+     */
+    enum Phase {
+        /** Choosing the type of a line. */
+        CLASSIFY,
+        /** Parsing a line of a known type, including the scope it opens or closes. */
+        PARSE,
+        /** Running the deferred assignment checks of a file. */
+        VERIFY_ASSIGNMENTS,
+        /** Running the deferred method call checks of a file. */
+        VERIFY_METHOD_CALLS
+    }
+
+    /**
+     * The measured sizes.
+     */
+    enum Size {
+        /** The depth of every scope that is opened, the root scope being 0. */
+        SCOPE_DEPTH,
+        /** The number of variables of every scope that is closed. */
+        SCOPE_VARIABLES,
+        /** The number of deferred checks of a file when they are run. */
+        DEFERRED_CHECKS
+    }
+
+    /**
+     * A histogram of non negative values, in buckets of powers of two - bucket i holds the values that need
+     * exactly i bits.
+     */
+    private static class Histogram {
+        private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Creates an empty histogram.
+         */
+        private Histogram()
+        {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        /**
+         * @param value the value to add.
+         */
+        private void add(long value)
+        {
+            value = Math.max(0, value);
+            buckets[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * @param quantile the quantile, between 0 and 1.
+         * @return the upper bound of the bucket that holds the quantile, or 0 if there are no values.
+         */
+        private long quantile(double quantile)
+        {
+            long total = count.sum();
+            long target = (long) Math.ceil(total * quantile), seen = 0;
+            for (int i = 0; i < buckets.length && total > 0; i++) {
+                seen += buckets[i].sum();
+                if (seen >= target)
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+            }
+            return max.get();
+        }
+
+        /**
+         * @return a line that sums the histogram up.
+         */
+        private String summary()
+        {
+            long total = count.sum();
+            return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d", total,
+                    total == 0 ? 0.0 : (double) sum.sum() / total, quantile(P50), quantile(P99), max.get());
+        }
+
+        /**
+         * Clears the histogram.
+         */
+        private void reset()
+        {
+            for (LongAdder bucket : buckets)
+                bucket.reset();
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+
+    private final static ValidationMetrics INSTANCE = new ValidationMetrics();
+
+    private final EnumMap<LineType, LongAdder> lines = new EnumMap<>(LineType.class);
+    private final EnumMap<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+    private final EnumMap<Size, Histogram> sizes = new EnumMap<>(Size.class);
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            }
+            catch (JMException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates empty metrics.
+     */
+    private ValidationMetrics()
+    {
+        for (LineType type : LineType.values())
+            lines.put(type, new LongAdder());
+        for (Phase phase : Phase.values())
+            phases.put(phase, new Histogram());
+        for (Size size : Size.values())
+            sizes.put(size, new Histogram());
+    }
+
+    /**
+     * Counts a parsed line.
+     * @param type the type of the line.
+     */
+    static void countLine(LineType type)
+    {
+        INSTANCE.lines.get(type).increment();
+    }
+
+    /**
+     * Adds a run of a phase that ends now.
+     * @param phase the phase.
+     * @param start the value of System.nanoTime() when the run started.
+     */
+    static void time(Phase phase, long start)
+    {
+        INSTANCE.phases.get(phase).add(System.nanoTime() - start);
+    }
+
+    /**
+     * Adds a measured size.
+     * @param size the measured size.
+     * @param value the value it had.
+     */
+    static void size(Size size, long value)
+    {
+        INSTANCE.sizes.get(size).add(value);
+    }
+
+    /**
+     * Prints all the metrics.
+     * @param out the stream the metrics are printed to.
+     */
+    public static void dump(PrintStream out)
+    {
+        out.print(INSTANCE.getReport());
+    }
+
+    @Override
+    public Map<String, Long> getLineCounts()
+    {
+        LinkedHashMap<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<LineType, LongAdder> entry : lines.entrySet())
+            counts.put(entry.getKey().name(), entry.getValue().sum());
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos()
+    {
+        LinkedHashMap<String, Long> nanos = new LinkedHashMap<>();
+        for (Map.Entry<Phase, Histogram> entry : phases.entrySet())
+            nanos.put(entry.getKey().name(), entry.getValue().sum.sum());
+        return nanos;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseP99Nanos()
+    {
+        LinkedHashMap<String, Long> nanos = new LinkedHashMap<>();
+        for (Map.Entry<Phase, Histogram> entry : phases.entrySet())
+            nanos.put(entry.getKey().name(), entry.getValue().quantile(P99));
+        return nanos;
+    }
+
+    @Override
+    public Map<String, Long> getMaxSizes()
+    {
+        LinkedHashMap<String, Long> maxima = new LinkedHashMap<>();
+        for (Map.Entry<Size, Histogram> entry : sizes.entrySet())
+            maxima.put(entry.getKey().name(), entry.getValue().max.get());
+        return maxima;
+    }
+
+    @Override
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder("lines:\n");
+        for (Map.Entry<LineType, LongAdder> entry : lines.entrySet())
+            report.append(String.format("  %-20s %d%n", entry.getKey(), entry.getValue().sum()));
+        report.append("phases (ns):\n");
+        for (Map.Entry<Phase, Histogram> entry : phases.entrySet())
+            report.append(String.format("  %-20s %s%n", entry.getKey(), entry.getValue().summary()));
+        report.append("sizes:\n");
+        for (Map.Entry<Size, Histogram> entry : sizes.entrySet())
+            report.append(String.format("  %-20s %s%n", entry.getKey(), entry.getValue().summary()));
+        return report.toString();
+    }
+
+    @Override
+    public void reset()
+    {
+        for (LongAdder count : lines.values())
+            count.reset();
+        for (Histogram histogram : phases.values())
+            histogram.reset();
+        for (Histogram histogram : sizes.values())
+            histogram.reset();
+    }
+}
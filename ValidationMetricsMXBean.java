@@ -0,0 +1,39 @@
+package oop.ex6.parser;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link ValidationMetrics}, as it is exported through JMX.
+ */
+public interface ValidationMetricsMXBean {
+
+    /**
+     * @return the number of lines that were parsed, by the name of their line type.
+     */
+    Map<String, Long> getLineCounts();
+
+    /**
+     * @return the total time spent in every phase of the validation, in nanoseconds, by the name of the phase.
+     */
+    Map<String, Long> getPhaseNanos();
+
+    /**
+     * @return the 99th percentile of a single run of every phase, in nanoseconds, by the name of the phase.
+     */
+    Map<String, Long> getPhaseP99Nanos();
+
+    /**
+     * @return the largest value seen of every measured size, by the name of the size.
+     */
+    Map<String, Long> getMaxSizes();
+
+    /**
+     * @return all the metrics, as the text that is printed at the end of a batch run.
+     */
+    String getReport();
+
+    /**
+     * Clears all the metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,80 @@
+package oop.ex6.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The ways a file can be validated by {@link FileParser#validateFile(File, ValidationMode)}. All of them find
+ * the same first error, apart from SKIP_UNREACHABLE, which doesn't look for errors in code that can never run.
+ */
+public enum ValidationMode {
+    SEQUENTIAL
+            {
+                /**
+                 * Validates the lines of the file one at a time, as they are read
+                 * @param file the file to validate
+                 * @return the result of the validation
+                 * @throws IOException when the file could not be read
+                 */
+                ValidationResult validate(File file) throws IOException
+                {
+                    try (LineReader reader = new LineReader(file)) {
+                        return FileParser.validate(reader, false);
+                    }
+                }
+            },
+    SKIP_UNREACHABLE
+            {
+                /**
+                 * Validates the lines of the file as SEQUENTIAL does, skipping the code that can never run (see
+                 * {@link FileParser#validate(LineReader, boolean)})
+                 * @param file the file to validate
+                 * @return the result of the validation
+                 * @throws IOException when the file could not be read
+                 */
+                ValidationResult validate(File file) throws IOException
+                {
+                    try (LineReader reader = new LineReader(file)) {
+                        return FileParser.validate(reader, true);
+                    }
+                }
+            },
+    PARALLEL
+            {
+                /**
+                 * Validates the method bodies of the file in parallel on the common pool (see
+                 * {@link ParallelValidator}). Unlike the other modes, the whole file is kept in memory.
+                 * @param file the file to validate
+                 * @return the result of the validation
+                 * @throws IOException when the file could not be read
+                 */
+                ValidationResult validate(File file) throws IOException
+                {
+                    return ParallelValidator.validate(FileParser.readLines(file), ForkJoinPool.commonPool());
+                }
+            },
+    PIPELINED
+            {
+                /**
+                 * Lexes the lines of the file on all but one of the available processors, while they are
+                 * parsed in order on the calling thread (see {@link PipelinedValidator})
+                 * @param file the file to validate
+                 * @return the result of the validation
+                 * @throws IOException when the file could not be read
+                 */
+                ValidationResult validate(File file) throws IOException
+                {
+                    int lexers = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+                    return PipelinedValidator.validateFile(file, lexers);
+                }
+            };
+
+    /**
+     * Validates the given file in a compilation of its own - over ridden by each mode
+     * @param file the file to validate
+     * @return the result of the validation
+     * @throws IOException when the file could not be read
+     */
+    abstract ValidationResult validate(File file) throws IOException;
+}
@@ -0,0 +1,97 @@
+package oop.ex6.parser;
+
+/**
+ * The result of validating a single file - the result code, and for invalid files the error message and the
+ * line in which the error was found.
+ */
+public class ValidationResult {
+
+    /** The code is valid. */
+    public final static int CODE_IS_VALID = 0;
+    /** The code is invalid. */
+    public final static int CODE_IS_INVALID = 1;
+    /** The file could not be read. */
+    public final static int IO_ERROR = 2;
+    /** The validator failed on the file. */
+    public final static int INTERNAL_ERROR = 3;
+
+    private final static int NO_LINE = 0;
+
+    private final int code;
+    private final String message;
+    private final int line;
+
+    /**
+     * The result constructor.
+     * @param code the result code.
+     * @param message the error message, null for a valid file.
+     * @param line the line of the error, 0 if there is none.
+     */
+    public ValidationResult(int code, String message, int line)
+    {
+        this.code = code;
+        this.message = message;
+        this.line = line;
+    }
+
+    /**
+     * @return the result of a valid file.
+     */
+    static ValidationResult valid()
+    {
+        return new ValidationResult(CODE_IS_VALID, null, NO_LINE);
+    }
+
+    /**
+     * @param message the message of the error that was found.
+     * @param line the line of the error.
+     * @return the result of an invalid file.
+     */
+    static ValidationResult invalid(String message, int line)
+    {
+        return new ValidationResult(CODE_IS_INVALID, message, line);
+    }
+
+    /**
+     * @param message the message of the io error.
+     * @return the result of a file that could not be read.
+     */
+    public static ValidationResult ioError(String message)
+    {
+        return new ValidationResult(IO_ERROR, message, NO_LINE);
+    }
+
+    /**
+     * @param failure the failure of the validator.
+     * @return the result of a file the validator failed on, which says nothing about the code in the file.
+     */
+    public static ValidationResult internalError(RuntimeException failure)
+    {
+        return new ValidationResult(INTERNAL_ERROR, failure.toString(), NO_LINE);
+    }
+
+    /**
+     * @return the result code - 0 for valid code, 1 for invalid code, 2 for io errors and 3 for failures of the
+     * validator.
+     */
+    public int getCode()
+    {
+        return code;
+    }
+
+    /**
+     * @return the error message, null for a valid file.
+     */
+    public String getMessage()
+    {
+        return message;
+    }
+
+    /**
+     * @return the line of the error, 0 if there is none.
+     */
+    public int getLine()
+    {
+        return line;
+    }
+}
@@ -0,0 +1,303 @@
+package oop.ex6.main;
+
+import oop.ex6.parser.Diagnostic;
+import oop.ex6.parser.FileParser;
+import oop.ex6.parser.LineReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long running validator, which saves clients such as editors and commit hooks the start up of a process,
+ * and of a cold JIT, for every check. The server listens on a port of the loopback interface, or on a unix
+ * domain socket, and every client connection is served on a thread of its own, for as many requests as the
+ * client sends over it. Compilations share no state, so any number of clients are served at once.
+ * A request is a line of text, and its reply is a single line - the same JSON object Sjavac --json prints:
+ * <ul>
+ * <li>FILE path - validates the file at the given path.</li>
+ * <li>CODE n - validates the n lines that follow the request, as a file named -. n is at most
+ * MAX_CODE_LINES, and the lines are at most MAX_CODE_LENGTH characters long together.</li>
+ * <li>QUIT - closes the connection.</li>
+ * </ul>
+ * A request that can't be understood, or that the validator fails on, is replied to with result code 2 and an
+ * error, like a file that can't be read. No line may be longer than MAX_LINE_LENGTH characters; since the rest
+ * of the connection can't be read in step with its requests after one is, it is replied to with an error and
+ * the connection is closed, as it is when a CODE request is longer than MAX_CODE_LENGTH.
+ */
+public class ValidationServer implements Closeable {
+
+    /** The request to validate a file. */
+    public final static String FILE_REQUEST = "FILE";
+    /** The request to validate the lines that follow it. */
+    public final static String CODE_REQUEST = "CODE";
+    /** The request to close the connection. */
+    public final static String QUIT_REQUEST = "QUIT";
+    /** The most lines a CODE request may have. */
+    public final static int MAX_CODE_LINES = 1 << 20;
+    /** The most characters a line of a request may have. */
+    public final static int MAX_LINE_LENGTH = 1 << 16;
+    /** The most characters the lines of a CODE request may have together. */
+    public final static int MAX_CODE_LENGTH = 1 << 26;
+
+    private final static String INLINE_FILE = "-";
+    private final static char SEPARATOR = ' ';
+    private final static char NEW_LINE = '\n';
+    private final static char CARRIAGE_RETURN = '\r';
+    private final static String THREAD_NAME = "sjavac-client";
+
+    private final ServerSocketChannel channel;
+    private final Path socketFile;
+    private final ExecutorService clients = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param channel the bound channel of the server.
+     * @param socketFile the file of the unix domain socket, or null for a port.
+     */
+    private ValidationServer(ServerSocketChannel channel, Path socketFile)
+    {
+        this.channel = channel;
+        this.socketFile = socketFile;
+    }
+
+    /**
+     * Opens a server on the given address.
+     * @param address a port number, to listen on that port of the loopback interface - 0 for any free port -
+     * or else the path of a unix domain socket to create.
+     * @return the server, which doesn't accept clients until it is served.
+     * @throws IOException when the address could not be bound.
+     */
+    public static ValidationServer open(String address) throws IOException
+    {
+        if (isPort(address)) {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address)));
+            return new ValidationServer(channel, null);
+        }
+        Path socketFile = Path.of(address);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socketFile));
+        return new ValidationServer(channel, socketFile);
+    }
+
+    /**
+     * Connects to a server.
+     * @param address the address the server was opened on.
+     * @return the connection to the server.
+     * @throws IOException when the server could not be connected to.
+     */
+    public static SocketChannel connect(String address) throws IOException
+    {
+        if (isPort(address)) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(address)));
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            return channel;
+        }
+        return SocketChannel.open(UnixDomainSocketAddress.of(address));
+    }
+
+    /**
+     * @return the address the server listens on, in the form it can be opened and connected with - the port,
+     * or the path of the socket.
+     * @throws IOException when the address of the channel could not be read.
+     */
+    public String getAddress() throws IOException
+    {
+        SocketAddress address = channel.getLocalAddress();
+        if (address instanceof InetSocketAddress)
+            return String.valueOf(((InetSocketAddress) address).getPort());
+        return socketFile.toString();
+    }
+
+    /**
+     * Accepts clients and serves every one on a thread of its own, until the server is closed.
+     * @throws IOException when a client could not be accepted.
+     */
+    public void serve() throws IOException
+    {
+        while (true) {
+            SocketChannel client;
+            try {
+                client = channel.accept();
+            }
+            catch (ClosedChannelException e) {
+                return;
+            }
+            if (socketFile == null)
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            clients.execute(() -> serve(client));
+        }
+    }
+
+    /**
+     * Stops accepting clients, and removes the socket file of a unix domain socket. Clients that are connected
+     * are served until they close their connections.
+     * @throws IOException when the channel or the socket file could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+        clients.shutdown();
+        if (socketFile != null)
+            Files.deleteIfExists(socketFile);
+    }
+
+    /**
+     * Serves the requests of a client until it quits, closes its connection or sends a request that is too long.
+     * @param client the connection of the client.
+     */
+    private static void serve(SocketChannel client)
+    {
+        try (SocketChannel connection = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(connection),
+                     StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(Channels.newOutputStream(connection), StandardCharsets.UTF_8)) {
+            try {
+                String request;
+                while ((request = readLine(in)) != null && !request.equals(QUIT_REQUEST))
+                    send(out, reply(request, in));
+            }
+            catch (ProtocolException e) {
+                send(out, Sjavac.jsonError(null, e.getMessage()));
+            }
+        }
+        catch (IOException e) {
+            // the client went away; there is no one left to tell
+        }
+    }
+
+    /**
+     * Runs a single request.
+     * @param request the line of the request.
+     * @param in the reader of the connection, holding the lines of a CODE request.
+     * @return the reply to the request.
+     * @throws ProtocolException when a line of the request is too long, or a CODE request is.
+     * @throws IOException when the connection could not be read.
+     */
+    private static String reply(String request, BufferedReader in) throws IOException
+    {
+        int separator = request.indexOf(SEPARATOR);
+        String command = separator < 0 ? request : request.substring(0, separator);
+        String argument = separator < 0 ? "" : request.substring(separator + 1);
+        if (command.equals(FILE_REQUEST)) {
+            try {
+                return Sjavac.jsonReport(argument, FileParser.diagnoseFile(new File(argument)));
+            }
+            catch (IOException e) {
+                return Sjavac.jsonError(argument, e.getMessage());
+            }
+            catch (RuntimeException e) {
+                return Sjavac.jsonError(argument, e.toString());
+            }
+        }
+        if (command.equals(CODE_REQUEST)) {
+            int lineCount;
+            try {
+                lineCount = Integer.parseInt(argument);
+            }
+            catch (NumberFormatException e) {
+                return Sjavac.jsonError(INLINE_FILE, "Invalid line count " + argument);
+            }
+            if (lineCount < 0 || lineCount > MAX_CODE_LINES)
+                return Sjavac.jsonError(INLINE_FILE, "Invalid line count " + argument);
+            StringBuilder code = new StringBuilder();
+            for (int i = 0; i < lineCount; i++) {
+                String line = readLine(in);
+                if (line == null)
+                    throw new IOException("The connection closed within the code");
+                code.append(line).append(NEW_LINE);
+                if (code.length() > MAX_CODE_LENGTH)
+                    throw new ProtocolException("Code longer than " + MAX_CODE_LENGTH + " characters");
+            }
+            try {
+                List<Diagnostic> diagnostics =
+                        FileParser.diagnose(new LineReader(new StringReader(code.toString())));
+                return Sjavac.jsonReport(INLINE_FILE, diagnostics);
+            }
+            catch (RuntimeException e) {
+                return Sjavac.jsonError(INLINE_FILE, e.toString());
+            }
+        }
+        return Sjavac.jsonError(null, "Unknown request " + command);
+    }
+
+    /**
+     * Reads a line of the connection, which ends with a new line, optionally after a carriage return.
+     * @param in the reader of the connection.
+     * @return the line, without its end, or null when the connection was closed before it.
+     * @throws ProtocolException when the line is longer than MAX_LINE_LENGTH, before all of it is read.
+     * @throws IOException when the connection could not be read.
+     */
+    private static String readLine(BufferedReader in) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int next;
+        while ((next = in.read()) != NEW_LINE) {
+            if (next < 0)
+                return line.length() == 0 ? null : line.toString();
+            if (line.length() == MAX_LINE_LENGTH)
+                throw new ProtocolException("Line longer than " + MAX_LINE_LENGTH + " characters");
+            line.append((char) next);
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == CARRIAGE_RETURN)
+            line.setLength(end - 1);
+        return line.toString();
+    }
+
+    /**
+     * Sends a reply to the client.
+     * @param out the writer of the connection.
+     * @param reply the reply.
+     * @throws IOException when the connection could not be written.
+     */
+    private static void send(Writer out, String reply) throws IOException
+    {
+        out.write(reply);
+        out.write(NEW_LINE);
+        out.flush();
+    }
+
+    /**
+     * @param address an address of a server.
+     * @return true if the address is a port number, rather than the path of a socket.
+     */
+    private static boolean isPort(String address)
+    {
+        if (address.isEmpty())
+            return false;
+        for (int i = 0; i < address.length(); i++) {
+            if (address.charAt(i) < '0' || address.charAt(i) > '9')
+                return false;
+        }
+        return true;
+    }
+}
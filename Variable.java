@@ -2,9 +2,6 @@ package oop.ex6.codeelements;
 
 import oop.ex6.parser.AssignmentCall;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * A class to define variables in a program.
  */
@@ -15,25 +12,43 @@ public class Variable {
     private static final String TRUE = "true";
     private final static String FALSE = "false";
     private final static char MINUS = '-';
-    private final static String VARIABLENAME = "[_]{1}\\w{1,}|[a-zA-Z]{1}\\w{0,}";
+    private final static char UNDERSCORE = '_';
 
 
     private VariableType variableType;
     private String name;
-    private String value;
+    private Constant value;
     private boolean isFinal;
+    private boolean isKnown;
     private Scope scope;
 
     /**
+     * A valid name is a letter followed by any letters, digits and underscores, or an underscore followed by at
+     * least one of them. The name is scanned by hand, since this runs for every declared variable.
      * @param name the name to check is valid
      * @throws InvalidVariableNameException is thrown when variable name is invalid
      */
     public static void checkValidName(String name) throws InvalidVariableNameException
     {
-        Pattern pattern = Pattern.compile(VARIABLENAME);
-        Matcher matcher = pattern.matcher(name);
-        if (!matcher.matches())
+        if (name.isEmpty() || (name.charAt(0) == UNDERSCORE && name.length() == 1))
+            throw new InvalidVariableNameException();
+        char first = name.charAt(0);
+        if (first != UNDERSCORE && !isAsciiLetter(first))
             throw new InvalidVariableNameException();
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != UNDERSCORE)
+                throw new InvalidVariableNameException();
+        }
+    }
+
+    /**
+     * @param c the character to check
+     * @return true if the character is an ascii letter
+     */
+    private static boolean isAsciiLetter(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
     /**
@@ -45,10 +60,7 @@ public class Variable {
      */
     public static Variable getVariable(String variableName, Scope scope) throws UndeclaredVariableException
     {
-        Scope varScope = Scope.searchScopeOfVariable(variableName,scope);
-        if (varScope == null)
-            return null;
-        return varScope.getVariable(variableName);
+        return Scope.findVariable(variableName, scope);
     }
 
     /**
@@ -69,7 +81,8 @@ public class Variable {
     }
 
     /**
-     * A variable constructor.
+     * A variable constructor. The value is parsed into a {@link Constant} once, here, and a value that is another
+     * variable shares the constant of that variable.
      * @param variableType variable variableType according the the 5 predesignated types.
      * @param name variable name.
      * @param value the given value for the variable
@@ -94,6 +107,59 @@ public class Variable {
             throw new FinalAssigmentException();
     }
 
+    /**
+     * A constructor for a variable whose value is a literal, which was already parsed into its constant.
+     * @param variableType variable variableType according the the 5 predesignated types.
+     * @param name variable name.
+     * @param value the constant of the literal.
+     * @param isFinal a boolean indicating whether the variable is final.
+     * @param scope the scope in which our variable occurs.
+     * @throws InvalidVariableNameException is thrown when the variable has been given an invalid name
+     * @throws IncompatibleValueTypeException is thrown when the value and type are incompatible.
+     */
+    public Variable(VariableType variableType, String name, Constant value, boolean isFinal, Scope scope)
+            throws InvalidVariableNameException, IncompatibleValueTypeException {
+        this.variableType = variableType;
+        this.name = name;
+        this.isFinal = isFinal;
+        this.scope = scope;
+        checkValidName();
+        setValue(value);
+    }
+
+    /**
+     * A constructor for a variable that shadows a variable of an outer scope, once it is assigned in an inner
+     * scope - the copy shares the name and the type of the variable, which were already checked, and only has
+     * a value and a scope of its own, so the outer variable is left as it was.
+     * @param shadowed the variable of the outer scope, which must not be final.
+     * @param value the value assigned to the variable in the inner scope.
+     * @param scope the inner scope.
+     * @throws UndeclaredVariableException is thrown when the value is an undeclared variable
+     * @throws IncompatibleValueTypeException is thrown when the value and type are incompatible.
+     */
+    public Variable(Variable shadowed, String value, Scope scope)
+            throws UndeclaredVariableException, IncompatibleValueTypeException {
+        this.variableType = shadowed.variableType;
+        this.name = shadowed.name;
+        this.scope = scope;
+        setValue(value);
+    }
+
+    /**
+     * A constructor for a variable that shadows a variable of an outer scope, as the constructor above, once it
+     * is assigned a literal, which was already parsed into its constant.
+     * @param shadowed the variable of the outer scope, which must not be final.
+     * @param value the constant assigned to the variable in the inner scope.
+     * @param scope the inner scope.
+     * @throws IncompatibleValueTypeException is thrown when the value and type are incompatible.
+     */
+    public Variable(Variable shadowed, Constant value, Scope scope) throws IncompatibleValueTypeException {
+        this.variableType = shadowed.variableType;
+        this.name = shadowed.name;
+        this.scope = scope;
+        setValue(value);
+    }
+
     /**
      * A function that checks if the variable name is valid.
      * @throws InvalidVariableNameException
@@ -111,12 +177,12 @@ public class Variable {
      private void checkVariableAssigmentAsValueIsValid(String variableValue) throws UndeclaredVariableException {
          Variable assignerVariable = getVariable(variableValue, scope);
          if (assignerVariable!=null) {
-             if (assignerVariable.value != null)
-                 this.value = assignerVariable.value;
-             else {
+             this.value = assignerVariable.value;
+             this.isKnown = isFinal && assignerVariable.isKnown;
+             if (assignerVariable.value == null) {
                  // if both variables are global and one is not assigned, an error should be thrown
-                 boolean assignerIsGlobal = Scope.getRoot() == assignerVariable.scope;
-                 if (this.scope==Scope.getRoot() && assignerIsGlobal)
+                 boolean assignerIsGlobal = assignerVariable.scope.isRoot();
+                 if (this.scope.isRoot() && assignerIsGlobal)
                      throw new UndeclaredVariableException();
                  // if a local variable is assigned as a value but it is not initialized, an error should be thrown
                  if (!assignerIsGlobal)
@@ -128,7 +194,8 @@ public class Variable {
              }
          }
          else {
-             if (this.scope==Scope.getRoot())
+             this.value = null;
+             if (this.scope.isRoot())
                 throw new UndeclaredVariableException();
              else
                  new AssignmentCall(null,this,variableValue,scope);
@@ -136,13 +203,22 @@ public class Variable {
         }
 
     /**
-     * @return gets the value of the variable.
+     * @return gets the value of the variable, null if it has none, or {@link Constant#UNKNOWN} for a parameter.
      */
-    public String getValue()
+    public Constant getValue()
     {
         return this.value;
     }
 
+    /**
+     * @return the types the value of the variable is a value of, as a bitmask - 0 if it has none, or if it is
+     * not known.
+     */
+    public int getValueTypeMask()
+    {
+        return value == null ? 0 : value.getTypeMask();
+    }
+
     /**
      * @return gets the variable name
      */
@@ -157,6 +233,13 @@ public class Variable {
         return this.variableType;
     }
 
+    /**
+     * @return the scope in which the variable was declared.
+     */
+    public Scope getScope() {
+        return this.scope;
+    }
+
     /**
      * @return returns true if variable is final, false otherwise
      */
@@ -164,29 +247,46 @@ public class Variable {
         return isFinal;
     }
 
+    /**
+     * @return true if the value of the variable is known once the file is parsed, whatever the code does when
+     * it runs - it is final, and it was declared with a literal, or with another variable whose value is known.
+     */
+    public boolean isKnown() {
+        return isKnown;
+    }
+
     /**
      *  A setter function - sets the value to a new value.
-     * @param value the value we'd like to change
+     * @param value the value we'd like to change - a literal, the name of a variable, an empty string for the
+     * unknown value of a parameter, or null for none
      * @throws UndeclaredVariableException is thrown when variable is undeclared
      * @throws IncompatibleValueTypeException -is thrown when type and a value are incompatible
      */
     public void setValue(String value) throws UndeclaredVariableException, IncompatibleValueTypeException {
-        if (value == null || value.equals(""))
-            this.value = value;
+        if (value == null)
+            this.value = null;
+        else if (value.isEmpty())
+            this.value = Constant.UNKNOWN;
         else if (checkValueIsVariable(value)) {
+            // the value is the value of the assigner variable, or null if it is not known yet
             checkVariableAssigmentAsValueIsValid(value);
-            Variable variable = Variable.getVariable(value,this.scope);
-            if (variable==null)
-                this.value = null;
-            else
-                this.value = variable.value;
         }
         else {
             //value is a value, not a variable
-            if (!this.variableType.checkValue(value))
-                throw new IncompatibleValueTypeException();
-            this.value = value;
+            setValue(Constant.parse(value));
         }
     }
+
+    /**
+     * A setter function - sets the value to a literal, which was already parsed into its constant.
+     * @param value the constant of the literal
+     * @throws IncompatibleValueTypeException -is thrown when type and a value are incompatible
+     */
+    public void setValue(Constant value) throws IncompatibleValueTypeException {
+        if (!this.variableType.accepts(value))
+            throw new IncompatibleValueTypeException();
+        this.value = value;
+        this.isKnown = isFinal;
+    }
 }
 
@@ -0,0 +1,137 @@
+package oop.ex6.codeelements;
+
+import java.util.Arrays;
+
+/**
+ * The variable tables of many scopes, packed into a single pair of arrays - the symbol ids of the variables and
+ * the variables themselves - instead of a pair of arrays for every scope. A scope that has variables owns a slice
+ * of the arrays, an open addressing table over the symbol ids of its variables, which is taken from the end of
+ * the arrays when its first variable is added, and again whenever it grows. Slices are never freed one by one:
+ * the local scopes of a compilation only live until their top level scope closes, so at that point the whole
+ * arena is reset, and the next top level scope reuses the same arrays.
+ */
+public class VariableArena {
+
+    private final static int EMPTY = -1;
+    private final static int INITIAL_LENGTH = 64;
+    private final static int GOLDEN_RATIO = 0x9E3779B9;
+
+    private int[] keys;
+    private Variable[] values;
+    private int top;
+
+    /**
+     * Takes a slice for a new table. Every slot the arena has not handed out yet is empty, so the slice is too.
+     * @param capacity the number of slots of the table, a power of two.
+     * @return the offset of the slice.
+     */
+    int allocate(int capacity)
+    {
+        if (keys == null) {
+            keys = new int[Math.max(INITIAL_LENGTH, capacity)];
+            Arrays.fill(keys, EMPTY);
+            values = new Variable[keys.length];
+        }
+        else if (top + capacity > keys.length) {
+            int length = Math.max(keys.length * 2, top + capacity);
+            int oldLength = keys.length;
+            keys = Arrays.copyOf(keys, length);
+            Arrays.fill(keys, oldLength, length, EMPTY);
+            values = Arrays.copyOf(values, length);
+        }
+        int offset = top;
+        top += capacity;
+        return offset;
+    }
+
+    /**
+     * @param offset the offset of a table.
+     * @param capacity the capacity of the table.
+     * @param symbol the symbol id of a name.
+     * @return the variable of the table with that name, or null if there is none.
+     */
+    Variable get(int offset, int capacity, int symbol)
+    {
+        int mask = capacity - 1;
+        for (int i = slot(symbol, mask); keys[offset + i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[offset + i] == symbol)
+                return values[offset + i];
+        }
+        return null;
+    }
+
+    /**
+     * Adds a variable to a table, unless the table already has a variable with that name. The table must have
+     * an empty slot.
+     * @param offset the offset of the table.
+     * @param capacity the capacity of the table.
+     * @param symbol the symbol id of the name of the variable.
+     * @param variable the variable to add.
+     * @return the variable that was already there, or null if the variable was added.
+     */
+    Variable putIfAbsent(int offset, int capacity, int symbol, Variable variable)
+    {
+        int mask = capacity - 1;
+        int i = slot(symbol, mask);
+        for (; keys[offset + i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[offset + i] == symbol)
+                return values[offset + i];
+        }
+        keys[offset + i] = symbol;
+        values[offset + i] = variable;
+        return null;
+    }
+
+    /**
+     * Moves a table into a new slice of a larger capacity. The old slice is left as it is until the arena is
+     * reset.
+     * @param offset the offset of the table.
+     * @param capacity the capacity of the table.
+     * @param newCapacity the capacity of the new table, a larger power of two.
+     * @return the offset of the new table.
+     */
+    int grow(int offset, int capacity, int newCapacity)
+    {
+        int newOffset = allocate(newCapacity);
+        for (int j = offset; j < offset + capacity; j++) {
+            if (keys[j] != EMPTY)
+                putIfAbsent(newOffset, newCapacity, keys[j], values[j]);
+        }
+        return newOffset;
+    }
+
+    /**
+     * Empties the arena, keeping its arrays for the tables of the next top level scope.
+     */
+    public void reset()
+    {
+        if (keys == null)
+            return;
+        Arrays.fill(keys, 0, top, EMPTY);
+        Arrays.fill(values, 0, top, null);
+        top = 0;
+    }
+
+    /**
+     * Empties the arena and drops its arrays, for an arena that won't be used again.
+     */
+    public void release()
+    {
+        keys = null;
+        values = null;
+        top = 0;
+    }
+
+    /**
+     * Ids are given in sequence, so they are scattered over the table - otherwise the variables of a scope
+     * would fill a single run of slots, which every missing id that falls into it would have to probe.
+     * @param symbol the symbol id of a name.
+     * @param mask the capacity of the table minus one.
+     * @return the first slot to probe for the id.
+     */
+    private static int slot(int symbol, int mask)
+    {
+        int hash = symbol * GOLDEN_RATIO;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
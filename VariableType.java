@@ -1,44 +1,16 @@
 package oop.ex6.codeelements;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * An enum class that defines the 5 types of variables our program can compile.
  */
 
 public enum VariableType {
 
-    INT ("int", RegexForTypes.REGEXINTERGER),
-    DOUBLE ("double", RegexForTypes.REGEXDOUBLE),
-    STRING("String", RegexForTypes.REGEXSTRING),
-    BOOLEAN ("boolean", RegexForTypes.REGEXBOOLEAN),
-    CHAR("char", RegexForTypes.REGEXCHAR) ;
-
-
-    private static class RegexForTypes {
-
-        private static final String REGEXINTERGER = "-?[\\d]+";
-        private static final String REGEXDECIMAL = "-?[\\d]+\\.+[\\d]+";
-        private static final String REGEXDOUBLE = REGEXINTERGER + "|" + REGEXDECIMAL;
-        private static final String REGEXBOOLEAN = REGEXDOUBLE + "|" + "true|false";
-        private static final String REGEXSTRING = "\"[^>]*\"";
-        private static final String REGEXCHAR = "'[^>]{1}'";
-
-    }
-
-    /**
-     * Creates a regex for all types, making the code more extensible
-     * @return a string of regex types
-     */
-    public static String getAllTypesRegex()
-    {
-        String regexAlternatives = "(";
-        for (VariableType variableType : VariableType.values())
-            regexAlternatives += variableType.getName()+"|";
-        regexAlternatives = regexAlternatives.substring(0,regexAlternatives.length()-1)+")";
-        return regexAlternatives;
-    }
+    INT ("int"),
+    DOUBLE ("double"),
+    STRING("String"),
+    BOOLEAN ("boolean"),
+    CHAR("char") ;
 
     /**
      * Chooses the type of a value.
@@ -53,33 +25,28 @@ public enum VariableType {
         throw new InvalidTypeException ();
     }
 
-    /**
-     * @param line the line to check
-     * @return true if the line starts with an existing variable name, false otherwise.
-     */
-    public static boolean startsWithVariableTypeName (String line)
-    {
-        for (VariableType variableType : VariableType.values())
-        {
-            if (line.startsWith(variableType.name))
-                return true;
-        }
-        return false;
-    }
 
+    /** The types an integer literal, such as -12, is a value of. */
+    public final static int INTEGER_LITERAL = INT.mask | DOUBLE.mask | BOOLEAN.mask;
+    /** The types a decimal literal, such as 1.5, is a value of. */
+    public final static int DECIMAL_LITERAL = DOUBLE.mask | BOOLEAN.mask;
+    /** The types true and false are values of. */
+    public final static int BOOLEAN_LITERAL = BOOLEAN.mask;
+    /** The types a string literal is a value of. */
+    public final static int STRING_LITERAL = STRING.mask;
+    /** The types a char literal is a value of. */
+    public final static int CHAR_LITERAL = CHAR.mask;
 
     private final String name;
-    private final String valuePattern;
+    private final int mask = 1 << ordinal();
 
 
     /**
-     * VariableType constructor that takes the name of our type and the pattern it understands.
+     * VariableType constructor that takes the name of our type.
      * @param name -  the type's name
-     * @param valuePattern - the type's regex value pattern.
      */
-        VariableType(String name, String valuePattern) {
+        VariableType(String name) {
             this.name = name;
-            this.valuePattern = valuePattern;
         }
 
     /**
@@ -91,23 +58,28 @@ public enum VariableType {
     }
 
     /**
-     * A getter function for our types regex pattern.
-     * @return the value pattern
+     * @return the bit of the type in a set of types.
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * @param typeMask a set of types, as a bitmask - such as the types a literal is a value of.
+     * @return true if this type is in the set.
      */
-    public String getValuePattern() {
-        return valuePattern;
+    public boolean accepts(int typeMask) {
+        return (typeMask & mask) != 0;
     }
 
     /**
-     * A function that checks that the input value matches our type values intake.
-     * @param value - the value to be checked.
-     * @return true if the value matches the value pattern of its type.
-     * @throws IncompatibleValueTypeException is thrown when value and type don't match
+     * A function that checks that a value matches our type values intake. The value was classified by the
+     * {@link LiteralClassifier} once, when it was parsed.
+     * @param value - the value to be checked, or null for no value.
+     * @return true if the value is a value of the type.
      */
-    public boolean checkValue(String value) throws IncompatibleValueTypeException {
-        Pattern pattern = Pattern.compile(valuePattern);
-        Matcher matcher = pattern.matcher(value);
-        return matcher.matches();
+    public boolean accepts(Constant value) {
+        return value != null && accepts(value.getTypeMask());
     }
 
 }